@@ -0,0 +1,83 @@
+package com.cymelle.backend.benchmark;
+
+import com.cymelle.backend.model.Role;
+import com.cymelle.backend.model.User;
+import com.cymelle.backend.security.JwtAuthenticationFilter;
+import com.cymelle.backend.security.JwtService;
+import jakarta.servlet.ServletException;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The per-request authentication path: signing and parsing tokens, the full filter including the user
+ * lookup against H2, and building a user's authorities, which happens on every authorization check.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AuthenticationBenchmark {
+
+    private H2Fixture fixture;
+    private JwtService jwtService;
+    private JwtAuthenticationFilter filter;
+    private User user;
+    private String token;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = new H2Fixture();
+        jwtService = fixture.bean(JwtService.class);
+        filter = fixture.bean(JwtAuthenticationFilter.class);
+        user = fixture.user(Role.CUSTOMER);
+        token = jwtService.generateToken(user);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtService.generateToken(user);
+    }
+
+    @Benchmark
+    public String extractUsername() {
+        return jwtService.extractUsername(token);
+    }
+
+    @Benchmark
+    public boolean isTokenValid() {
+        return jwtService.isTokenValid(token, user);
+    }
+
+    @Benchmark
+    public Authentication filter() throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/orders");
+        request.addHeader("Authorization", "Bearer " + token);
+        try {
+            filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    @Benchmark
+    public Collection<? extends GrantedAuthority> authorities() {
+        return user.getAuthorities();
+    }
+}
@@ -0,0 +1,86 @@
+package com.cymelle.backend.benchmark;
+
+import com.cymelle.backend.dispatch.AssignmentSolver;
+import com.cymelle.backend.geo.DriverLocationIndex;
+import com.cymelle.backend.geo.DriverLocationIndex.DriverDistance;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One dispatch tick on a city-sized area: candidate generation from the driver index, and the assignment
+ * itself, for a few thousand rides against a larger pool of drivers.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BatchDispatchBenchmark {
+
+    private static final int CANDIDATES = 8;
+    private static final long MAX_PICKUP_METERS = 5_000;
+
+    @Param({"500", "2000"})
+    public int rides;
+
+    private DriverLocationIndex index;
+    private double[][] pickups;
+    private int[] rowStart;
+    private int[] pairColumns;
+    private long[] pairCosts;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(5);
+        index = new DriverLocationIndex(0.01, 20_000);
+        int drivers = rides * 5 / 4;
+        for (long id = 1; id <= drivers; id++) {
+            index.update(id, -1.4 + random.nextDouble() * 0.2, 36.7 + random.nextDouble() * 0.2, true, 0);
+        }
+        pickups = new double[rides][];
+        for (int i = 0; i < rides; i++) {
+            // Demand clusters around the centre, so nearby rides compete for the same drivers
+            pickups[i] = new double[]{-1.3 + random.nextGaussian() * 0.02, 36.8 + random.nextGaussian() * 0.02};
+        }
+        buildPairs();
+    }
+
+    @Benchmark
+    public int[] candidatesAndSolve() {
+        buildPairs();
+        return solve();
+    }
+
+    @Benchmark
+    public int[] solveOnly() {
+        return solve();
+    }
+
+    private int[] solve() {
+        return AssignmentSolver.solve(rides, rides * 5 / 4 + 1, rowStart, pairColumns, pairCosts, MAX_PICKUP_METERS);
+    }
+
+    private void buildPairs() {
+        rowStart = new int[rides + 1];
+        int[] columns = new int[rides * CANDIDATES];
+        long[] costs = new long[columns.length];
+        int pairs = 0;
+        for (int i = 0; i < rides; i++) {
+            for (DriverDistance candidate : index.nearest(pickups[i][0], pickups[i][1], CANDIDATES, driverId -> true)) {
+                if (candidate.distanceMeters() >= MAX_PICKUP_METERS) {
+                    break;
+                }
+                columns[pairs] = (int) candidate.driverId();
+                costs[pairs] = Math.round(candidate.distanceMeters());
+                pairs++;
+            }
+            rowStart[i + 1] = pairs;
+        }
+        pairColumns = Arrays.copyOf(columns, pairs);
+        pairCosts = Arrays.copyOf(costs, pairs);
+    }
+}
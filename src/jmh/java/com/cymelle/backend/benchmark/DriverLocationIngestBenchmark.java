@@ -0,0 +1,101 @@
+package com.cymelle.backend.benchmark;
+
+import com.cymelle.backend.geo.DriverLocationIndex;
+import com.cymelle.backend.geo.DriverLocationRecorder;
+import com.cymelle.backend.geo.LocationBatch;
+import com.cymelle.backend.model.Role;
+import com.cymelle.backend.model.User;
+import com.cymelle.backend.service.LocationIngestService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Location ingestion throughput per sample. {@code applyBatch} is the index path on its own,
+ * {@code applyOneByOne} takes the lock per sample for comparison, and {@code parseAndIngest} adds JSON
+ * parsing and sample recording as the endpoint does. Run with {@code -prof gc} to see bytes allocated
+ * per sample.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DriverLocationIngestBenchmark {
+
+    private static final int DRIVERS = 50_000;
+    private static final int BATCH = 500;
+
+    private DriverLocationIndex index;
+    private LocationIngestService ingestService;
+    private User gateway;
+    private LocationBatch[] batches;
+    private byte[][] payloads;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        index = new DriverLocationIndex(0.01, 20_000);
+        DriverLocationRecorder recorder = new DriverLocationRecorder(null, null, 30_000, 1 << 20, 1_000);
+        ingestService = new LocationIngestService(new ObjectMapper(), index, recorder);
+        ReflectionTestUtils.setField(ingestService, "maxBatchSize", BATCH);
+        gateway = User.builder().id(0L).role(Role.ADMIN).build();
+
+        Random random = new Random(7);
+        for (long id = 1; id <= DRIVERS; id++) {
+            index.update(id, -1.4 + random.nextDouble() * 0.3, 36.6 + random.nextDouble() * 0.4, true, 0);
+        }
+        batches = new LocationBatch[64];
+        payloads = new byte[batches.length][];
+        for (int b = 0; b < batches.length; b++) {
+            LocationBatch batch = new LocationBatch(BATCH);
+            StringBuilder json = new StringBuilder("[");
+            for (int i = 0; i < BATCH; i++) {
+                long driverId = 1 + random.nextInt(DRIVERS);
+                double latitude = -1.4 + random.nextDouble() * 0.3;
+                double longitude = 36.6 + random.nextDouble() * 0.4;
+                batch.add(driverId, latitude, longitude, 1, true);
+                json.append(i == 0 ? "" : ",")
+                        .append("{\"driverId\":").append(driverId)
+                        .append(",\"latitude\":").append(latitude)
+                        .append(",\"longitude\":").append(longitude)
+                        .append(",\"available\":true}");
+            }
+            batches[b] = batch;
+            payloads[b] = json.append(']').toString().getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int applyBatch() {
+        return index.updateAll(nextBatch());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void applyOneByOne() {
+        LocationBatch batch = nextBatch();
+        for (int i = 0; i < batch.size(); i++) {
+            index.update(batch.driverId(i), batch.latitude(i), batch.longitude(i), batch.available(i), batch.timestamp(i));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public Object parseAndIngest() throws IOException {
+        byte[] payload = payloads[next++ & (payloads.length - 1)];
+        return ingestService.ingest(gateway, new ByteArrayInputStream(payload));
+    }
+
+    private LocationBatch nextBatch() {
+        return batches[next++ & (batches.length - 1)];
+    }
+}
@@ -0,0 +1,79 @@
+package com.cymelle.backend.benchmark;
+
+import com.cymelle.backend.dto.FareQuoteResponse;
+import com.cymelle.backend.geo.DistanceCache;
+import com.cymelle.backend.geo.DriverLocationIndex;
+import com.cymelle.backend.geo.GeoPoint;
+import com.cymelle.backend.geo.Geohash;
+import com.cymelle.backend.geo.LocationResolver;
+import com.cymelle.backend.pricing.SurgeTracker;
+import com.cymelle.backend.service.PricingService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fare quotes against a populated driver index and busy surge counters, measured from several threads
+ * to include contention on the shared demand windows.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class FareQuoteBenchmark {
+
+    private PricingService pricingService;
+    private SurgeTracker surgeTracker;
+    private double[][] trips;
+
+    @Setup
+    public void setUp() {
+        DriverLocationIndex index = new DriverLocationIndex(0.01, 20_000);
+        surgeTracker = new SurgeTracker(index, Duration.ofMinutes(10), 20, 1.0, 0.5, 3.0, 0.1);
+        DistanceCache distanceCache = new DistanceCache(GeoPoint::distanceMeters, 0.001, 50_000);
+        LocationResolver locationResolver = new LocationResolver(name -> Optional.empty(), 1_000);
+        pricingService = new PricingService(surgeTracker, distanceCache, locationResolver);
+        ReflectionTestUtils.setField(pricingService, "baseFare", new BigDecimal("2.50"));
+        ReflectionTestUtils.setField(pricingService, "perKm", new BigDecimal("1.20"));
+        ReflectionTestUtils.setField(pricingService, "perMinute", new BigDecimal("0.25"));
+        ReflectionTestUtils.setField(pricingService, "minimumFare", new BigDecimal("5.00"));
+        ReflectionTestUtils.setField(pricingService, "roadFactor", 1.3);
+        ReflectionTestUtils.setField(pricingService, "averageSpeedKmh", 25.0);
+
+        Random random = new Random(11);
+        for (long id = 1; id <= 10_000; id++) {
+            index.update(id, -1.4 + random.nextDouble() * 0.3, 36.6 + random.nextDouble() * 0.4, true, 0);
+        }
+        trips = new double[1024][];
+        for (int i = 0; i < trips.length; i++) {
+            trips[i] = new double[]{-1.4 + random.nextDouble() * 0.3, 36.6 + random.nextDouble() * 0.4,
+                    -1.4 + random.nextDouble() * 0.3, 36.6 + random.nextDouble() * 0.4};
+            surgeTracker.recordRequest(Geohash.zoneBits(trips[i][0], trips[i][1]));
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Benchmark
+    public FareQuoteResponse quote(Cursor cursor) {
+        double[] trip = trips[cursor.next++ & (trips.length - 1)];
+        return pricingService.quote(trip[0], trip[1], trip[2], trip[3]);
+    }
+
+    @Benchmark
+    public void recordRequest(Cursor cursor) {
+        double[] trip = trips[cursor.next++ & (trips.length - 1)];
+        surgeTracker.recordRequest(Geohash.zoneBits(trip[0], trip[1]));
+    }
+}
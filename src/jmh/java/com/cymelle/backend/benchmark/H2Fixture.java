@@ -0,0 +1,68 @@
+package com.cymelle.backend.benchmark;
+
+import com.cymelle.backend.BackendApplication;
+import com.cymelle.backend.model.Product;
+import com.cymelle.backend.model.Role;
+import com.cymelle.backend.model.User;
+import com.cymelle.backend.repository.ProductRepository;
+import com.cymelle.backend.repository.UserRepository;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * The application context on a private in-memory H2 database, without a web server or ride expiry, for
+ * benchmarks that go through the real services, repositories and object mapper.
+ */
+final class H2Fixture implements AutoCloseable {
+
+    final ConfigurableApplicationContext context;
+
+    H2Fixture() {
+        context = new SpringApplicationBuilder(BackendApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:bench-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                        "rides.expiry.enabled=false",
+                        "logging.level.root=WARN")
+                .run();
+    }
+
+    <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    User user(Role role) {
+        return bean(UserRepository.class).save(User.builder()
+                .email(role.name().toLowerCase() + "-" + UUID.randomUUID() + "@example.com")
+                .password("unused")
+                .firstName("Bench")
+                .lastName("User")
+                .role(role)
+                .build());
+    }
+
+    List<Product> products(int count) {
+        List<Product> products = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            products.add(Product.builder()
+                    .name("Bench product " + i)
+                    .description("Benchmark fixture")
+                    .price(new BigDecimal("9.99").add(BigDecimal.valueOf(i)))
+                    .stockQuantity(Integer.MAX_VALUE)
+                    .category("bench")
+                    .build());
+        }
+        return bean(ProductRepository.class).saveAll(products);
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+}
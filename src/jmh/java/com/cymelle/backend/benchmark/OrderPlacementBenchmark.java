@@ -0,0 +1,65 @@
+package com.cymelle.backend.benchmark;
+
+import com.cymelle.backend.dto.OrderItemRequest;
+import com.cymelle.backend.dto.OrderRequest;
+import com.cymelle.backend.model.Order;
+import com.cymelle.backend.model.Product;
+import com.cymelle.backend.model.Role;
+import com.cymelle.backend.model.User;
+import com.cymelle.backend.service.OrderService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code OrderService.placeOrder} against H2: product lookups, stock checks, item assembly and the total,
+ * for small and large baskets. Each order is rolled back so the tables, and the timings, stay steady
+ * across iterations.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OrderPlacementBenchmark {
+
+    @Param({"1", "10"})
+    public int items;
+
+    private H2Fixture fixture;
+    private OrderService orderService;
+    private TransactionTemplate transactionTemplate;
+    private User customer;
+    private OrderRequest request;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = new H2Fixture();
+        orderService = fixture.bean(OrderService.class);
+        transactionTemplate = fixture.bean(TransactionTemplate.class);
+        customer = fixture.user(Role.CUSTOMER);
+        List<Product> products = fixture.products(items);
+        request = OrderRequest.builder()
+                .items(products.stream()
+                        .map(product -> OrderItemRequest.builder().productId(product.getId()).quantity(2).build())
+                        .toList())
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public Order placeOrder() {
+        return transactionTemplate.execute(status -> {
+            Order order = orderService.placeOrder(customer, request);
+            status.setRollbackOnly();
+            return order;
+        });
+    }
+}
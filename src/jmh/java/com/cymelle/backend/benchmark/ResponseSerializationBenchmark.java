@@ -0,0 +1,89 @@
+package com.cymelle.backend.benchmark;
+
+import com.cymelle.backend.model.*;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Response bodies as the controllers write them, using the application's own {@link ObjectMapper}: a full
+ * page of orders with their items, a page of rides, and a single product.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResponseSerializationBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+    private static final int ITEMS_PER_ORDER = 3;
+
+    private H2Fixture fixture;
+    private ObjectMapper objectMapper;
+    private Page<Order> orders;
+    private Page<Ride> rides;
+    private Product product;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = new H2Fixture();
+        objectMapper = fixture.bean(ObjectMapper.class);
+        LocalDateTime now = LocalDateTime.now();
+        User customer = User.builder().id(1L).email("customer@example.com").firstName("Jane").lastName("Doe").role(Role.CUSTOMER).build();
+        User driver = User.builder().id(2L).email("driver@example.com").firstName("John").lastName("Roe").role(Role.DRIVER).build();
+        product = Product.builder().id(1L).sku("SKU-0001").name("Espresso beans").description("Single origin, 1kg")
+                .price(new BigDecimal("24.90")).stockQuantity(120).category("coffee").build();
+
+        List<Order> orderContent = new ArrayList<>(PAGE_SIZE);
+        List<Ride> rideContent = new ArrayList<>(PAGE_SIZE);
+        for (long i = 1; i <= PAGE_SIZE; i++) {
+            Order order = Order.builder().id(i).user(customer).status(OrderStatus.PENDING).paymentStatus("PAID")
+                    .totalCost(new BigDecimal("74.70")).createdAt(now).build();
+            List<OrderItem> items = new ArrayList<>(ITEMS_PER_ORDER);
+            for (long j = 1; j <= ITEMS_PER_ORDER; j++) {
+                items.add(OrderItem.builder().id(i * ITEMS_PER_ORDER + j).order(order).product(product)
+                        .quantity(1).price(product.getPrice()).build());
+            }
+            order.setOrderItems(items);
+            orderContent.add(order);
+            rideContent.add(Ride.builder().id(i).customer(customer).driver(driver)
+                    .pickupLocation("Kenyatta Avenue").dropoffLocation("Westlands")
+                    .pickupLatitude(-1.2841).pickupLongitude(36.8155).dropoffLatitude(-1.2676).dropoffLongitude(36.8108)
+                    .pickupZone("kzf0").fare(new BigDecimal("6.40")).status(RideStatus.ACCEPTED)
+                    .requestedAt(now).acceptedAt(now).build());
+        }
+        orders = new PageImpl<>(orderContent, PageRequest.of(0, PAGE_SIZE), 500);
+        rides = new PageImpl<>(rideContent, PageRequest.of(0, PAGE_SIZE), 500);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public byte[] orderPage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(orders);
+    }
+
+    @Benchmark
+    public byte[] ridePage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(rides);
+    }
+
+    @Benchmark
+    public byte[] product() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(product);
+    }
+}
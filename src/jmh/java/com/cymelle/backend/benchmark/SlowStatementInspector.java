@@ -0,0 +1,21 @@
+package com.cymelle.backend.benchmark;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Adds a fixed delay before every SQL statement, standing in for a database that has slowed down. The
+ * delay is taken while the request holds its connection, as real latency would be.
+ */
+public class SlowStatementInspector implements StatementInspector {
+
+    static final long LATENCY_NANOS = TimeUnit.MILLISECONDS.toNanos(Long.getLong("benchmark.statement-latency-ms", 5));
+
+    @Override
+    public String inspect(String sql) {
+        LockSupport.parkNanos(LATENCY_NANOS);
+        return sql;
+    }
+}
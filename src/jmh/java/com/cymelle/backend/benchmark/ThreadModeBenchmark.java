@@ -0,0 +1,136 @@
+package com.cymelle.backend.benchmark;
+
+import com.cymelle.backend.BackendApplication;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Order and ride endpoints over real HTTP with platform versus virtual request threads, while every SQL
+ * statement takes an extra {@code benchmark.statement-latency-ms} (default 5 ms). Tomcat is capped at 32
+ * platform threads and both connection pools at 64, so with 128 concurrent clients the platform mode runs
+ * out of request threads long before the pools or the CPU are busy. Sample mode reports p50/p99/p999 per
+ * endpoint alongside throughput.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g"})
+@Threads(128)
+@State(Scope.Benchmark)
+public class ThreadModeBenchmark {
+
+    @Param({"platform", "virtual"})
+    public String threads;
+
+    private ConfigurableApplicationContext context;
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private String baseUrl;
+    private String customerToken;
+    private String driverToken;
+    private String orderBody;
+
+    @Setup(Level.Trial)
+    public void start() throws Exception {
+        context = new SpringApplicationBuilder(BackendApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.threads.virtual.enabled=" + threads.equals("virtual"),
+                        "server.tomcat.threads.max=32",
+                        "bulkhead.write.pool-size=64",
+                        "bulkhead.read.pool-size=64",
+                        "spring.datasource.url=jdbc:h2:mem:bench-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                        "spring.jpa.properties.hibernate.session_factory.statement_inspector=" + SlowStatementInspector.class.getName(),
+                        "catalog.cache.enabled=false",
+                        // 128 clients against a limit of 20 would measure load shedding, not the thread mode
+                        "overload.limiter.enabled=false",
+                        "logging.level.root=WARN")
+                .run();
+        baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+
+        String adminToken = register("ADMIN");
+        customerToken = register("CUSTOMER");
+        driverToken = register("DRIVER");
+        JsonNode product = post("/api/v1/products", adminToken,
+                "{\"name\":\"Bench\",\"description\":\"d\",\"price\":10.0,\"stockQuantity\":100000000,\"category\":\"bench\"}");
+        orderBody = "{\"items\":[{\"productId\":" + product.get("id").asLong() + ",\"quantity\":1}]}";
+        for (int i = 0; i < 20; i++) {
+            post("/api/v1/orders", customerToken, orderBody);
+            post("/api/v1/rides", customerToken, "{\"pickupLocation\":\"A\",\"dropoffLocation\":\"B\"}");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public int placeOrder() throws Exception {
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/v1/orders"))
+                .header("Authorization", "Bearer " + customerToken)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(orderBody)));
+    }
+
+    @Benchmark
+    public int listOrders() throws Exception {
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/v1/orders?size=10"))
+                .header("Authorization", "Bearer " + customerToken).GET());
+    }
+
+    @Benchmark
+    public int requestRide() throws Exception {
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/v1/rides"))
+                .header("Authorization", "Bearer " + customerToken)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"pickupLocation\":\"A\",\"dropoffLocation\":\"B\"}")));
+    }
+
+    @Benchmark
+    public int listRidesAsDriver() throws Exception {
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/v1/rides?status=REQUESTED&size=10"))
+                .header("Authorization", "Bearer " + driverToken).GET());
+    }
+
+    private int send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        int status = client.send(request.build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+        if (status != 200) {
+            throw new IllegalStateException("Unexpected status " + status);
+        }
+        return status;
+    }
+
+    private String register(String role) throws Exception {
+        String body = "{\"firstName\":\"Bench\",\"lastName\":\"User\",\"email\":\"" + role.toLowerCase() + "-" + UUID.randomUUID()
+                + "@example.com\",\"password\":\"password123\",\"role\":\"" + role + "\"}";
+        return post("/api/v1/auth/register", null, body).get("token").asText();
+    }
+
+    private JsonNode post(String path, String token, String body) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body));
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        HttpResponse<String> response = client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException(path + " returned " + response.statusCode() + ": " + response.body());
+        }
+        return objectMapper.readTree(response.body());
+    }
+}
@@ -0,0 +1,77 @@
+package com.cymelle.backend.loadtest;
+
+import com.cymelle.backend.loadtest.ApiCollection.Template;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Sends collection requests to the application under test and times each one under its endpoint label.
+ */
+final class ApiClient {
+
+    private final HttpClient httpClient;
+    private final String baseUrl;
+    private final ObjectMapper objectMapper;
+    private final LatencyRecorder recorder;
+
+    ApiClient(String baseUrl, ObjectMapper objectMapper, LatencyRecorder recorder) {
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        this.baseUrl = baseUrl;
+        this.objectMapper = objectMapper;
+        this.recorder = recorder;
+    }
+
+    JsonNode send(Template template, String token) throws InterruptedException {
+        return send(template, null, Map.of(), template.newBody(), token);
+    }
+
+    /**
+     * @return the parsed response body, or {@code null} if the call failed or returned no JSON
+     */
+    JsonNode send(Template template, Long id, Map<String, String> query, ObjectNode body, String token)
+            throws InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + template.uri(id, query)))
+                .timeout(Duration.ofSeconds(30))
+                .header("Accept", "application/json");
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        if (body != null) {
+            request.header("Content-Type", "application/json")
+                    .method(template.method(), HttpRequest.BodyPublishers.ofString(body.toString()));
+        } else {
+            request.method(template.method(), HttpRequest.BodyPublishers.noBody());
+        }
+        String endpoint = template.label();
+        long start = System.nanoTime();
+        HttpResponse<byte[]> response;
+        try {
+            response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        } catch (IOException e) {
+            recorder.recordFailure(endpoint);
+            return null;
+        }
+        boolean ok = response.statusCode() / 100 == 2;
+        recorder.record(endpoint, (System.nanoTime() - start) / 1_000, !ok);
+        if (!ok || response.body().length == 0) {
+            return null;
+        }
+        try {
+            return objectMapper.readTree(response.body());
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.cymelle.backend.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Requests from the Postman collection, looked up by item name, so scenarios replay the documented
+ * method, path, query and body and only fill in the ids and emails of the run.
+ */
+final class ApiCollection {
+
+    private final Map<String, Template> templates = new HashMap<>();
+
+    ApiCollection(Path file, ObjectMapper objectMapper) throws IOException {
+        collect(objectMapper.readTree(file.toFile()).path("item"), objectMapper);
+    }
+
+    Template get(String name) {
+        Template template = templates.get(name);
+        if (template == null) {
+            throw new IllegalArgumentException("No request named '" + name + "' in the API collection");
+        }
+        return template;
+    }
+
+    private void collect(JsonNode items, ObjectMapper objectMapper) throws IOException {
+        for (JsonNode item : items) {
+            if (item.has("item")) {
+                collect(item.get("item"), objectMapper);
+                continue;
+            }
+            JsonNode request = item.get("request");
+            JsonNode url = request.get("url");
+            String raw = (url.isTextual() ? url.asText() : url.path("raw").asText()).replace("{{baseUrl}}", "");
+            String body = request.path("body").path("raw").asText("");
+            templates.put(item.get("name").asText(), new Template(request.get("method").asText(), raw,
+                    body.isBlank() ? null : (ObjectNode) objectMapper.readTree(body)));
+        }
+    }
+
+    record Template(String method, String uri, ObjectNode body) {
+
+        /**
+         * The endpoint the request is reported under: method and path, with ids generalized and no query.
+         */
+        String label() {
+            return method + " " + path().replaceAll("/\\d+(?=/|$)", "/{id}");
+        }
+
+        String path() {
+            int query = uri.indexOf('?');
+            return query < 0 ? uri : uri.substring(0, query);
+        }
+
+        /**
+         * The documented URI with its id, if any, replaced and the given query parameters overridden.
+         */
+        String uri(Long id, Map<String, String> query) {
+            String path = id == null ? path() : path().replaceFirst("/\\d+(?=/|$)", "/" + id);
+            Map<String, String> parameters = new LinkedHashMap<>();
+            int start = uri.indexOf('?');
+            if (start >= 0) {
+                for (String pair : uri.substring(start + 1).split("&")) {
+                    int eq = pair.indexOf('=');
+                    parameters.put(eq < 0 ? pair : pair.substring(0, eq), eq < 0 ? "" : pair.substring(eq + 1));
+                }
+            }
+            query.forEach((key, value) -> parameters.put(key, URLEncoder.encode(value, StandardCharsets.UTF_8)));
+            StringBuilder result = new StringBuilder(path);
+            char separator = '?';
+            for (Map.Entry<String, String> parameter : parameters.entrySet()) {
+                result.append(separator).append(parameter.getKey()).append('=').append(parameter.getValue());
+                separator = '&';
+            }
+            return result.toString();
+        }
+
+        ObjectNode newBody() {
+            return body == null ? null : body.deepCopy();
+        }
+    }
+}
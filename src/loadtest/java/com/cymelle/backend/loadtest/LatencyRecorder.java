@@ -0,0 +1,53 @@
+package com.cymelle.backend.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Response times per endpoint in microseconds, recorded from any number of virtual users without locking.
+ * Failed calls are counted separately and still recorded if a response came back.
+ */
+final class LatencyRecorder {
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    void record(String endpoint, long micros, boolean failed) {
+        Endpoint stats = endpoints.computeIfAbsent(endpoint, key -> new Endpoint());
+        stats.latencies.recordValue(Math.max(1, micros));
+        if (failed) {
+            stats.errors.increment();
+        }
+    }
+
+    void recordFailure(String endpoint) {
+        endpoints.computeIfAbsent(endpoint, key -> new Endpoint()).errors.increment();
+    }
+
+    /**
+     * Drains everything recorded since the previous call, so the warm-up can be discarded. Endpoints
+     * without calls in the interval are left out.
+     */
+    Map<String, Interval> drain() {
+        Map<String, Interval> intervals = new TreeMap<>();
+        endpoints.forEach((name, stats) -> {
+            Interval interval = new Interval(stats.latencies.getIntervalHistogram(), stats.errors.sumThenReset());
+            if (interval.latencies().getTotalCount() > 0 || interval.errors() > 0) {
+                intervals.put(name, interval);
+            }
+        });
+        return intervals;
+    }
+
+    record Interval(Histogram latencies, long errors) {
+    }
+
+    private static final class Endpoint {
+        final Recorder latencies = new Recorder(3);
+        final LongAdder errors = new LongAdder();
+    }
+}
@@ -0,0 +1,123 @@
+package com.cymelle.backend.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.zip.DataFormatException;
+
+/**
+ * The outcome of one run: throughput, error count and latency percentiles per endpoint, plus the
+ * compressed HDR histogram behind them so a run can be re-analysed or compared later.
+ */
+record LoadReport(String name, String startedAt, String target, int concurrency, String mix,
+                  double durationSeconds, Map<String, Endpoint> endpoints) {
+
+    static final String ALL = "ALL";
+
+    record Endpoint(long count, long errors, double throughput, double p50Ms, double p95Ms, double p99Ms,
+                    double maxMs, String histogram) {
+
+        static Endpoint of(Histogram latencies, long errors, double seconds) {
+            ByteBuffer buffer = ByteBuffer.allocate(latencies.getNeededByteBufferCapacity());
+            int length = latencies.encodeIntoCompressedByteBuffer(buffer);
+            return new Endpoint(latencies.getTotalCount(), errors, latencies.getTotalCount() / seconds,
+                    millis(latencies.getValueAtPercentile(50)), millis(latencies.getValueAtPercentile(95)),
+                    millis(latencies.getValueAtPercentile(99)), millis(latencies.getMaxValue()),
+                    Base64.getEncoder().encodeToString(Arrays.copyOf(buffer.array(), length)));
+        }
+
+        Histogram latencies() {
+            try {
+                return Histogram.decodeFromCompressedByteBuffer(ByteBuffer.wrap(Base64.getDecoder().decode(histogram)), 0);
+            } catch (DataFormatException e) {
+                throw new IllegalStateException("Corrupt histogram in report", e);
+            }
+        }
+
+        private static double millis(long micros) {
+            return micros / 1_000.0;
+        }
+    }
+
+    static LoadReport of(String name, String startedAt, String target, int concurrency, ScenarioMix mix,
+                         double seconds, Map<String, LatencyRecorder.Interval> intervals) {
+        Map<String, Endpoint> endpoints = new LinkedHashMap<>();
+        Histogram all = new Histogram(3);
+        long errors = 0;
+        for (Map.Entry<String, LatencyRecorder.Interval> interval : intervals.entrySet()) {
+            endpoints.put(interval.getKey(), Endpoint.of(interval.getValue().latencies(), interval.getValue().errors(), seconds));
+            all.add(interval.getValue().latencies());
+            errors += interval.getValue().errors();
+        }
+        endpoints.put(ALL, Endpoint.of(all, errors, seconds));
+        return new LoadReport(name, startedAt, target, concurrency, mix.toString(), seconds, endpoints);
+    }
+
+    static LoadReport read(Path file, ObjectMapper objectMapper) throws IOException {
+        return objectMapper.readValue(file.toFile(), LoadReport.class);
+    }
+
+    void write(Path file, ObjectMapper objectMapper) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        objectMapper.writer(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), this);
+    }
+
+    void print(PrintStream out) {
+        out.printf("%s: %d virtual users, mix %s, %.0f s measured against %s%n",
+                name, concurrency, mix, durationSeconds, target);
+        out.printf("%-44s %9s %7s %9s %9s %9s %9s %9s%n",
+                "Endpoint", "Count", "Errors", "Req/s", "p50 ms", "p95 ms", "p99 ms", "Max ms");
+        endpoints.forEach((endpoint, stats) -> out.printf("%-44s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f%n",
+                endpoint, stats.count(), stats.errors(), stats.throughput(),
+                stats.p50Ms(), stats.p95Ms(), stats.p99Ms(), stats.maxMs()));
+    }
+
+    /**
+     * Prints each endpoint's throughput and percentiles in the baseline and this run, with the change in
+     * percent. Percentiles are recomputed from the stored histograms.
+     */
+    void printComparison(LoadReport baseline, PrintStream out) {
+        out.printf("%s (baseline) vs %s%n", baseline.name(), name);
+        out.printf("%-44s %-26s %-26s %-26s %-26s%n", "Endpoint", "Req/s", "p50 ms", "p95 ms", "p99 ms");
+        TreeSet<String> sorted = new TreeSet<>(baseline.endpoints().keySet());
+        sorted.addAll(endpoints.keySet());
+        sorted.remove(ALL);
+        List<String> names = new ArrayList<>(sorted);
+        names.add(ALL);
+        for (String endpoint : names) {
+            Endpoint before = baseline.endpoints().get(endpoint);
+            Endpoint after = endpoints.get(endpoint);
+            if (before == null || after == null) {
+                out.printf("%-44s only in %s%n", endpoint, before == null ? name : baseline.name());
+                continue;
+            }
+            Histogram a = before.latencies();
+            Histogram b = after.latencies();
+            out.printf("%-44s %-26s %-26s %-26s %-26s%n", endpoint,
+                    change(before.throughput(), after.throughput()),
+                    change(a.getValueAtPercentile(50) / 1_000.0, b.getValueAtPercentile(50) / 1_000.0),
+                    change(a.getValueAtPercentile(95) / 1_000.0, b.getValueAtPercentile(95) / 1_000.0),
+                    change(a.getValueAtPercentile(99) / 1_000.0, b.getValueAtPercentile(99) / 1_000.0));
+        }
+    }
+
+    private static String change(double before, double after) {
+        String delta = before == 0 ? "n/a" : String.format("%+.1f%%", (after - before) * 100 / before);
+        return String.format("%.2f -> %.2f (%s)", before, after, delta);
+    }
+}
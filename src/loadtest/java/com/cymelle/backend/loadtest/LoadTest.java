@@ -0,0 +1,185 @@
+package com.cymelle.backend.loadtest;
+
+import com.cymelle.backend.BackendApplication;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Closed-loop load generator replaying the flows of {@code Cymelle_API_Collection.json}.
+ *
+ * <pre>
+ * run     [--base-url=URL] [--concurrency=32] [--warmup=10s] [--duration=60s] [--think-time=0ms]
+ *         [--mix=browse=50,order=25,ride=20,admin=5] [--products=50] [--collection=FILE]
+ *         [--name=NAME] [--output=FILE] [--baseline=FILE] [--app.PROPERTY=VALUE ...]
+ * compare BASELINE CANDIDATE
+ * </pre>
+ *
+ * Without {@code --base-url} the application is started in this JVM on a private in-memory H2 database;
+ * {@code --app.*} options are passed to it, for example {@code --app.spring.datasource.url=...} to use a
+ * local database instead. The in-process application runs without load shedding. Each virtual user signs up
+ * a customer and a driver, then runs scenarios back to back; users whose sign-up fails are reported. Results
+ * recorded during the warm-up are discarded.
+ */
+public final class LoadTest {
+
+    private static final List<String> CATEGORIES = List.of("Electronics", "Accessories", "Books", "Home");
+
+    public static void main(String[] args) throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        if (args.length > 0 && args[0].equals("compare")) {
+            if (args.length != 3) {
+                throw new IllegalArgumentException("Usage: compare BASELINE CANDIDATE");
+            }
+            LoadReport.read(Path.of(args[2]), objectMapper)
+                    .printComparison(LoadReport.read(Path.of(args[1]), objectMapper), System.out);
+            return;
+        }
+        Map<String, String> options = new HashMap<>();
+        List<String> appArgs = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.equals("run")) {
+                continue;
+            }
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --option=value but got '" + arg + "'");
+            }
+            if (arg.startsWith("--app.")) {
+                appArgs.add("--" + arg.substring("--app.".length()));
+            } else {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        System.exit(run(options, appArgs, objectMapper));
+    }
+
+    private static int run(Map<String, String> options, List<String> appArgs, ObjectMapper objectMapper) throws Exception {
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "32"));
+        Duration warmup = DurationStyle.detectAndParse(options.getOrDefault("warmup", "10s"));
+        Duration duration = DurationStyle.detectAndParse(options.getOrDefault("duration", "60s"));
+        Duration thinkTime = DurationStyle.detectAndParse(options.getOrDefault("think-time", "0ms"));
+        ScenarioMix mix = ScenarioMix.parse(options.getOrDefault("mix", "browse=50,order=25,ride=20,admin=5"));
+        int productCount = Integer.parseInt(options.getOrDefault("products", "50"));
+        ApiCollection collection = new ApiCollection(
+                Path.of(options.getOrDefault("collection", "Cymelle_API_Collection.json")), objectMapper);
+        String startedAt = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        String name = options.getOrDefault("name", "run-" + startedAt);
+        Path output = Path.of(options.getOrDefault("output", "target/loadtest/" + name + ".json"));
+
+        ConfigurableApplicationContext context = null;
+        String baseUrl = options.get("base-url");
+        if (baseUrl == null) {
+            context = startApplication(appArgs);
+            baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+        }
+        LatencyRecorder recorder = new LatencyRecorder();
+        ApiClient client = new ApiClient(baseUrl, objectMapper, recorder);
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger failedSignUps = new AtomicInteger();
+        ExecutorService users = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            String adminToken = register(client, collection, "ADMIN");
+            VirtualUser.Catalog catalog = new VirtualUser.Catalog(createProducts(client, collection, adminToken, productCount), CATEGORIES);
+            for (int i = 0; i < concurrency; i++) {
+                VirtualUser user = new VirtualUser(client, collection, catalog, adminToken, i);
+                users.submit(() -> {
+                    if (user.signUp()) {
+                        user.run(mix, thinkTime, running::get);
+                    } else {
+                        failedSignUps.incrementAndGet();
+                    }
+                    return null;
+                });
+            }
+            Thread.sleep(warmup);
+            if (failedSignUps.get() > 0) {
+                System.err.printf("Warning: %d of %d virtual users could not sign up; running with %d%n",
+                        failedSignUps.get(), concurrency, concurrency - failedSignUps.get());
+            }
+            recorder.drain();
+            long start = System.nanoTime();
+            Thread.sleep(duration);
+            Map<String, LatencyRecorder.Interval> intervals = recorder.drain();
+            double seconds = (System.nanoTime() - start) / 1e9;
+            running.set(false);
+
+            LoadReport report = LoadReport.of(name, startedAt, baseUrl, concurrency, mix, seconds, intervals);
+            report.print(System.out);
+            report.write(output, objectMapper);
+            System.out.println("Report written to " + output.toAbsolutePath());
+            if (options.containsKey("baseline")) {
+                System.out.println();
+                report.printComparison(LoadReport.read(Path.of(options.get("baseline")), objectMapper), System.out);
+            }
+            return report.endpoints().get(LoadReport.ALL).count() == 0 ? 1 : 0;
+        } finally {
+            running.set(false);
+            users.shutdown();
+            users.awaitTermination(30, TimeUnit.SECONDS);
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext startApplication(List<String> appArgs) {
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:loadtest-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                "--logging.level.root=WARN",
+                // Measure the application, not load shedding; --app.overload.limiter.enabled=true turns it back on
+                "--overload.limiter.enabled=false"));
+        // Later arguments win, so --app.* options override the defaults above
+        args.addAll(appArgs);
+        return new SpringApplicationBuilder(BackendApplication.class).run(args.toArray(String[]::new));
+    }
+
+    private static String register(ApiClient client, ApiCollection collection, String role) throws InterruptedException {
+        ApiCollection.Template register = collection.get("Register User");
+        ObjectNode body = register.newBody()
+                .put("email", role.toLowerCase() + "-" + UUID.randomUUID() + "@example.com")
+                .put("role", role);
+        JsonNode response = client.send(register, null, Map.of(), body, null);
+        if (response == null) {
+            throw new IllegalStateException("Could not register the " + role + " user for the load test");
+        }
+        return response.get("token").asText();
+    }
+
+    private static List<Long> createProducts(ApiClient client, ApiCollection collection, String adminToken, int count)
+            throws InterruptedException {
+        ApiCollection.Template create = collection.get("Create Product (Admin)");
+        List<Long> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ObjectNode body = create.newBody()
+                    .put("name", "Load test product " + i + " " + UUID.randomUUID())
+                    .put("category", CATEGORIES.get(i % CATEGORIES.size()))
+                    .put("stockQuantity", 100_000_000);
+            JsonNode product = client.send(create, null, Map.of(), body, adminToken);
+            if (product == null) {
+                throw new IllegalStateException("Could not create the load test catalog");
+            }
+            ids.add(product.get("id").asLong());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,71 @@
+package com.cymelle.backend.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.Map;
+
+/**
+ * The flows a virtual user repeats, each built from the requests of the API collection.
+ */
+enum Scenario {
+
+    /** Search the catalog and open a product. */
+    BROWSE {
+        @Override
+        void run(VirtualUser user) throws InterruptedException {
+            user.client().send(user.request("Get Products (Paginated & Search)"), null,
+                    Map.of("search", user.category(), "page", Integer.toString(user.random().nextInt(3))),
+                    null, user.customerToken());
+            user.client().send(user.request("Get Product By ID"), user.productId(), Map.of(), null, user.customerToken());
+        }
+    },
+
+    /** Browse, then buy one to three products. */
+    ORDER {
+        @Override
+        void run(VirtualUser user) throws InterruptedException {
+            BROWSE.run(user);
+            ApiCollection.Template placeOrder = user.request("Place Order");
+            ObjectNode body = placeOrder.newBody();
+            ArrayNode items = body.putArray("items");
+            int count = 1 + user.random().nextInt(3);
+            for (int i = 0; i < count; i++) {
+                items.addObject().put("productId", user.productId()).put("quantity", 1 + user.random().nextInt(2));
+            }
+            user.client().send(placeOrder, null, Map.of(), body, user.customerToken());
+        }
+    },
+
+    /** Request a ride, have a driver accept it and complete it. */
+    RIDE {
+        @Override
+        void run(VirtualUser user) throws InterruptedException {
+            JsonNode ride = user.client().send(user.request("Request Ride"), user.customerToken());
+            if (ride == null) {
+                return;
+            }
+            ApiCollection.Template updateStatus = user.request("Update Ride Status (Driver/Admin)");
+            for (String status : new String[]{"ACCEPTED", "COMPLETED"}) {
+                ObjectNode body = updateStatus.newBody().put("status", status);
+                if (user.client().send(updateStatus, ride.get("id").asLong(), Map.of(), body, user.driverToken()) == null) {
+                    return;
+                }
+            }
+        }
+    },
+
+    /** Look up a customer's pending orders and open rides. */
+    ADMIN {
+        @Override
+        void run(VirtualUser user) throws InterruptedException {
+            user.client().send(user.request("Admin Search Orders (Email & Status)"), null,
+                    Map.of("email", user.customerEmail()), null, user.adminToken());
+            user.client().send(user.request("Admin Search Rides (Email & Status)"), null,
+                    Map.of("email", user.customerEmail()), null, user.adminToken());
+        }
+    };
+
+    abstract void run(VirtualUser user) throws InterruptedException;
+}
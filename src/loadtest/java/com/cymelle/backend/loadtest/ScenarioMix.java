@@ -0,0 +1,51 @@
+package com.cymelle.backend.loadtest;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Relative weights of the scenarios, written as {@code browse=50,order=25,ride=20,admin=5}.
+ */
+record ScenarioMix(Map<Scenario, Integer> weights) {
+
+    static ScenarioMix parse(String spec) {
+        Map<Scenario, Integer> weights = new EnumMap<>(Scenario.class);
+        for (String part : spec.split(",")) {
+            String[] pair = part.trim().split("=");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Expected scenario=weight but got '" + part + "'");
+            }
+            int weight = Integer.parseInt(pair[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Weight of " + pair[0] + " cannot be negative");
+            }
+            weights.put(Scenario.valueOf(pair[0].trim().toUpperCase(Locale.ROOT)), weight);
+        }
+        if (weights.values().stream().mapToInt(Integer::intValue).sum() == 0) {
+            throw new IllegalArgumentException("At least one scenario needs a positive weight");
+        }
+        return new ScenarioMix(weights);
+    }
+
+    Scenario pick(Random random) {
+        int total = weights.values().stream().mapToInt(Integer::intValue).sum();
+        int point = random.nextInt(total);
+        for (Map.Entry<Scenario, Integer> entry : weights.entrySet()) {
+            point -= entry.getValue();
+            if (point < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("Unreachable");
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder spec = new StringBuilder();
+        weights.forEach((scenario, weight) -> spec.append(spec.isEmpty() ? "" : ",")
+                .append(scenario.name().toLowerCase(Locale.ROOT)).append('=').append(weight));
+        return spec.toString();
+    }
+}
@@ -0,0 +1,114 @@
+package com.cymelle.backend.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+
+/**
+ * One simulated customer, with a driver to serve their rides, repeating scenarios picked from the mix
+ * back to back, optionally pausing between them.
+ */
+final class VirtualUser {
+
+    private final ApiClient client;
+    private final ApiCollection collection;
+    private final Catalog catalog;
+    private final Random random;
+    private final String adminToken;
+    private String customerEmail;
+    private String customerToken;
+    private String driverToken;
+
+    /**
+     * What the setup created and every virtual user shares.
+     */
+    record Catalog(List<Long> productIds, List<String> categories) {
+    }
+
+    VirtualUser(ApiClient client, ApiCollection collection, Catalog catalog, String adminToken, long seed) {
+        this.client = client;
+        this.collection = collection;
+        this.catalog = catalog;
+        this.adminToken = adminToken;
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Registers and signs in the customer and registers the driver, as the first requests of the run.
+     */
+    boolean signUp() throws InterruptedException {
+        customerEmail = "loadtest-" + UUID.randomUUID() + "@example.com";
+        if (register(customerEmail, "CUSTOMER") == null) {
+            return false;
+        }
+        ObjectNode credentials = collection.get("Authenticate").newBody()
+                .put("email", customerEmail)
+                .put("password", "password123");
+        JsonNode authenticated = client.send(collection.get("Authenticate"), null, Map.of(), credentials, null);
+        JsonNode driver = register("loadtest-driver-" + UUID.randomUUID() + "@example.com", "DRIVER");
+        if (authenticated == null || driver == null) {
+            return false;
+        }
+        customerToken = authenticated.get("token").asText();
+        driverToken = driver.get("token").asText();
+        return true;
+    }
+
+    void run(ScenarioMix mix, Duration thinkTime, BooleanSupplier running) throws InterruptedException {
+        while (running.getAsBoolean()) {
+            mix.pick(random).run(this);
+            if (!thinkTime.isZero()) {
+                Thread.sleep(thinkTime);
+            }
+        }
+    }
+
+    private JsonNode register(String email, String role) throws InterruptedException {
+        ObjectNode body = collection.get("Register User").newBody()
+                .put("email", email)
+                .put("role", role);
+        return client.send(collection.get("Register User"), null, Map.of(), body, null);
+    }
+
+    ApiClient client() {
+        return client;
+    }
+
+    ApiCollection.Template request(String name) {
+        return collection.get(name);
+    }
+
+    Random random() {
+        return random;
+    }
+
+    long productId() {
+        return catalog.productIds().get(random.nextInt(catalog.productIds().size()));
+    }
+
+    String category() {
+        return catalog.categories().get(random.nextInt(catalog.categories().size()));
+    }
+
+    String customerEmail() {
+        return customerEmail;
+    }
+
+    String customerToken() {
+        return customerToken;
+    }
+
+    String driverToken() {
+        return driverToken;
+    }
+
+    String adminToken() {
+        return adminToken;
+    }
+}
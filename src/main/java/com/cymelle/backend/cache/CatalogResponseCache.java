@@ -0,0 +1,145 @@
+package com.cymelle.backend.cache;
+
+import com.cymelle.backend.datasource.ReplicaRoutingDataSource;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Holds fully rendered JSON (and gzipped JSON) for public catalog reads, keyed by request shape.
+ * Every product write bumps the generation, so entries rendered before the write are never served.
+ * Entries are loaded from the primary: a lagging replica would otherwise store pre-write data under the
+ * new generation, to be served until the next product write.
+ */
+@Component
+public class CatalogResponseCache {
+
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final int maxEntries;
+    private final int gzipMinBytes;
+
+    private final Map<String, CachedResponse> entries = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public CatalogResponseCache(
+            ObjectMapper objectMapper,
+            @Value("${catalog.cache.enabled:true}") boolean enabled,
+            @Value("${catalog.cache.max-entries:1024}") int maxEntries,
+            @Value("${catalog.cache.gzip-min-bytes:512}") int gzipMinBytes
+    ) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.maxEntries = maxEntries;
+        this.gzipMinBytes = gzipMinBytes;
+    }
+
+    public CachedResponse get(String key, Supplier<?> loader) {
+        long currentGeneration = generation.get();
+        if (enabled) {
+            CachedResponse cached = entries.get(key);
+            if (cached != null && cached.generation() == currentGeneration) {
+                hits.increment();
+                return cached;
+            }
+        }
+        misses.increment();
+        CachedResponse rendered = enabled
+                ? ReplicaRoutingDataSource.onPrimary(() -> render(loader.get(), currentGeneration))
+                : render(loader.get(), currentGeneration);
+        if (enabled && generation.get() == currentGeneration) {
+            if (entries.size() >= maxEntries) {
+                evictOne();
+            }
+            entries.put(key, rendered);
+        }
+        return rendered;
+    }
+
+    /**
+     * Drops every entry now and, when called inside a transaction, once more after it completes so
+     * that reads racing the commit cannot leave pre-commit data behind.
+     */
+    public void invalidate() {
+        invalidateNow();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidateNow();
+                }
+            });
+        }
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void invalidateNow() {
+        generation.incrementAndGet();
+        entries.clear();
+    }
+
+    private void evictOne() {
+        Iterator<String> keys = entries.keySet().iterator();
+        if (keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    private CachedResponse render(Object value, long renderedGeneration) {
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(value);
+            byte[] gzipBody = body.length >= gzipMinBytes ? gzip(body) : null;
+            return new CachedResponse(body, gzipBody, etag(body), renderedGeneration);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to render catalog response", e);
+        }
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static String etag(byte[] body) {
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        return "\"" + Long.toHexString(crc.getValue()) + "-" + Integer.toHexString(body.length) + "\"";
+    }
+
+    public record CachedResponse(byte[] body, byte[] gzipBody, String etag, long generation) {
+    }
+}
@@ -0,0 +1,93 @@
+package com.cymelle.backend.cache;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Collapses concurrent loads of the same key into one: the first caller runs the loader and every
+ * caller arriving while it is in flight waits for that result. A waiter that gives up after its
+ * timeout loads on its own rather than failing the request.
+ */
+public class SingleFlight {
+
+    private final String name;
+    private final Duration defaultTimeout;
+    private final ConcurrentHashMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder sharedLoads = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+
+    public SingleFlight(String name, Duration defaultTimeout) {
+        this.name = name;
+        this.defaultTimeout = defaultTimeout;
+    }
+
+    public <V> V execute(String key, Supplier<V> loader) {
+        return execute(key, defaultTimeout, loader);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <V> V execute(String key, Duration timeout, Supplier<V> loader) {
+        CompletableFuture<Object> call = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, call);
+        if (existing == null) {
+            loads.increment();
+            try {
+                V value = loader.get();
+                call.complete(value);
+                return value;
+            } catch (RuntimeException | Error e) {
+                call.completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlight.remove(key, call);
+            }
+        }
+
+        sharedLoads.increment();
+        try {
+            return (V) existing.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            timeouts.increment();
+            loads.increment();
+            return loader.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for " + name + " load of " + key, e);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    public long getLoadCount() {
+        return loads.sum();
+    }
+
+    public long getSharedLoadCount() {
+        return sharedLoads.sum();
+    }
+
+    public long getTimeoutCount() {
+        return timeouts.sum();
+    }
+}
@@ -1,7 +1,10 @@
 package com.cymelle.backend.config;
 
+import com.cymelle.backend.datasource.ReplicaRoutingDataSource;
 import com.cymelle.backend.repository.UserRepository;
+import com.cymelle.backend.security.RecordedPasswordEncoder;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -13,15 +16,21 @@ import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.util.Optional;
+
 @Configuration
 @RequiredArgsConstructor
 public class ApplicationConfig {
 
     private final UserRepository userRepository;
+    private final ObjectProvider<ReplicaRoutingDataSource> replicaDataSource;
 
     @Bean
     public UserDetailsService userDetailsService() {
+        boolean replicated = replicaDataSource.getIfAvailable() != null;
         return username -> userRepository.findByEmail(username)
+                // A replica may not have replayed a sign-up yet
+                .or(() -> replicated ? ReplicaRoutingDataSource.onPrimary(() -> userRepository.findByEmail(username)) : Optional.empty())
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
     }
 
@@ -40,6 +49,6 @@ public class ApplicationConfig {
 
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        return new RecordedPasswordEncoder(new BCryptPasswordEncoder());
     }
 }
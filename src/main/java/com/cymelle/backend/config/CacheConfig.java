@@ -0,0 +1,17 @@
+package com.cymelle.backend.config;
+
+import com.cymelle.backend.cache.SingleFlight;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class CacheConfig {
+
+    @Bean
+    public SingleFlight productReadFlight(@Value("${catalog.single-flight.timeout-ms:2000}") long timeoutMillis) {
+        return new SingleFlight("products", Duration.ofMillis(timeoutMillis));
+    }
+}
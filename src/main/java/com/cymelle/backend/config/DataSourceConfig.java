@@ -0,0 +1,78 @@
+package com.cymelle.backend.config;
+
+import com.cymelle.backend.datasource.PoolRoutingDataSource;
+import com.cymelle.backend.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Bulkheads between transactional writes and listing/reporting reads: two connection pools on the same
+ * database, each with its own size, acquisition timeout and statement timeout, so a catalog search storm or
+ * a slow report can exhaust only the read pool while checkout keeps its connections. Both pools export
+ * the usual {@code hikaricp.*} meters tagged with their name. Pools are configured by {@code bulkhead.*} only;
+ * {@code spring.datasource.hikari.*} is not bound to either of them.
+ */
+@Slf4j
+@Configuration
+public class DataSourceConfig {
+
+    @Bean(destroyMethod = "close")
+    public HikariDataSource writeDataSource(
+            DataSourceProperties properties,
+            @Value("${bulkhead.write.pool-size:10}") int poolSize,
+            @Value("${bulkhead.write.connection-timeout:PT5S}") Duration connectionTimeout,
+            @Value("${bulkhead.write.statement-timeout:PT0S}") Duration statementTimeout) {
+        return pool(properties, properties.determineUrl(), "write", poolSize, connectionTimeout, statementTimeout, false);
+    }
+
+    @Bean(destroyMethod = "close")
+    public HikariDataSource readDataSource(
+            DataSourceProperties properties,
+            @Value("${bulkhead.read.pool-size:6}") int poolSize,
+            @Value("${bulkhead.read.connection-timeout:PT2S}") Duration connectionTimeout,
+            @Value("${bulkhead.read.statement-timeout:PT0S}") Duration statementTimeout) {
+        return pool(properties, properties.determineUrl(), "read", poolSize, connectionTimeout, statementTimeout, true);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("writeDataSource") DataSource writeDataSource,
+                                 @Qualifier("readDataSource") DataSource readDataSource,
+                                 ObjectProvider<ReplicaRoutingDataSource> replicaDataSource) {
+        // With replicas configured the read pool becomes their fallback
+        DataSource reads = replicaDataSource.getIfAvailable();
+        if (reads == null) {
+            reads = readDataSource;
+        }
+        return new LazyConnectionDataSourceProxy(new PoolRoutingDataSource(writeDataSource, reads));
+    }
+
+    static HikariDataSource pool(DataSourceProperties properties, String url, String name, int poolSize,
+                                 Duration connectionTimeout, Duration statementTimeout, boolean readOnly) {
+        HikariDataSource pool = properties.initializeDataSourceBuilder().type(HikariDataSource.class).url(url).build();
+        pool.setPoolName(name);
+        pool.setMaximumPoolSize(poolSize);
+        pool.setConnectionTimeout(connectionTimeout.toMillis());
+        // The database rejects writes that reach the read pool by mistake
+        pool.setReadOnly(readOnly);
+        if (!statementTimeout.isZero()) {
+            if (pool.getJdbcUrl().startsWith("jdbc:postgresql:")) {
+                pool.setConnectionInitSql("SET statement_timeout = " + statementTimeout.toMillis());
+            } else {
+                log.warn("Statement timeout for the {} pool is only applied on PostgreSQL; ignoring it for {}", name, pool.getJdbcUrl());
+            }
+        }
+        return pool;
+    }
+}
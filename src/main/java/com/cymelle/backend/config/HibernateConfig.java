@@ -0,0 +1,49 @@
+package com.cymelle.backend.config;
+
+import com.cymelle.backend.diagnostics.QueryCounter;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class HibernateConfig {
+
+    /**
+     * Installs the query counter as Hibernate's statement inspector, after any inspector already set
+     * through {@code spring.jpa.properties}.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer queryCounterCustomizer(QueryCounter queryCounter) {
+        return properties -> {
+            StatementInspector configured = configuredInspector(properties.get(AvailableSettings.STATEMENT_INSPECTOR));
+            properties.put(AvailableSettings.STATEMENT_INSPECTOR, configured == null
+                    ? queryCounter
+                    : (StatementInspector) sql -> queryCounter.inspect(configured.inspect(sql)));
+        };
+    }
+
+    /**
+     * Returns the connection at the end of each transaction rather than holding it for the request's open
+     * session, so every transaction is routed to the write or read pool by its own read-only flag.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer connectionHandlingCustomizer() {
+        return properties -> properties.putIfAbsent(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+
+    private static StatementInspector configuredInspector(Object setting) {
+        if (setting == null || setting instanceof StatementInspector) {
+            return (StatementInspector) setting;
+        }
+        try {
+            Class<?> type = setting instanceof Class<?> c ? c : Class.forName(setting.toString());
+            return (StatementInspector) type.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot create statement inspector " + setting, e);
+        }
+    }
+}
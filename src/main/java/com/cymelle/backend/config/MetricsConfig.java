@@ -0,0 +1,89 @@
+package com.cymelle.backend.config;
+
+import com.cymelle.backend.cache.BoundedLruCache;
+import com.cymelle.backend.cache.CatalogResponseCache;
+import com.cymelle.backend.cache.SingleFlight;
+import com.cymelle.backend.geo.DistanceCache;
+import com.cymelle.backend.geo.LocationResolver;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Publishes the in-process caches under Micrometer's cache conventions ({@code cache.gets} tagged by
+ * result, and {@code cache.size}), so hit rates are queried the same way for every cache. The counters
+ * are read from the caches at scrape time rather than incremented twice.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MeterBinder cacheMetrics(CatalogResponseCache catalogResponseCache, DistanceCache distanceCache,
+                                    LocationResolver locationResolver, SingleFlight productReadFlight) {
+        return registry -> {
+            bindCache(registry, "catalog-responses", catalogResponseCache,
+                    CatalogResponseCache::getHitCount, CatalogResponseCache::getMissCount, CatalogResponseCache::size);
+            bindLruCache(registry, "trip-distances", distanceCache.getCache());
+            bindLruCache(registry, "locations", locationResolver.getCache());
+
+            FunctionCounter.builder("singleflight.loads", productReadFlight, SingleFlight::getLoadCount)
+                    .description("Reads that went to the database")
+                    .tag("name", "products")
+                    .register(registry);
+            FunctionCounter.builder("singleflight.shared", productReadFlight, SingleFlight::getSharedLoadCount)
+                    .description("Reads served by joining another caller's load")
+                    .tag("name", "products")
+                    .register(registry);
+            FunctionCounter.builder("singleflight.timeouts", productReadFlight, SingleFlight::getTimeoutCount)
+                    .tag("name", "products")
+                    .register(registry);
+        };
+    }
+
+    /**
+     * One number per connection pool for alerting: connections in use plus threads waiting for one, over the
+     * pool size. Above 1 the pool is saturated and callers queue towards its connection timeout.
+     */
+    @Bean
+    public MeterBinder connectionPoolSaturation(List<HikariDataSource> pools) {
+        return registry -> {
+            for (HikariDataSource pool : pools) {
+                bindSaturation(registry, pool);
+            }
+        };
+    }
+
+    static void bindSaturation(MeterRegistry registry, HikariDataSource pool) {
+        Gauge.builder("db.pool.saturation", pool, MetricsConfig::saturation)
+                .description("Active connections plus pending requests, over the maximum pool size")
+                .tag("pool", pool.getPoolName())
+                .register(registry);
+    }
+
+    private static double saturation(HikariDataSource pool) {
+        HikariPoolMXBean state = pool.getHikariPoolMXBean();
+        if (state == null) {
+            return 0;
+        }
+        return (double) (state.getActiveConnections() + state.getThreadsAwaitingConnection()) / pool.getMaximumPoolSize();
+    }
+
+    private static void bindLruCache(MeterRegistry registry, String name, BoundedLruCache<?, ?> cache) {
+        bindCache(registry, name, cache, BoundedLruCache::getHitCount, BoundedLruCache::getMissCount, BoundedLruCache::size);
+    }
+
+    private static <C> void bindCache(MeterRegistry registry, String name, C cache, ToDoubleFunction<C> hits,
+                                      ToDoubleFunction<C> misses, ToDoubleFunction<C> size) {
+        FunctionCounter.builder("cache.gets", cache, hits).tag("cache", name).tag("result", "hit").register(registry);
+        FunctionCounter.builder("cache.gets", cache, misses).tag("cache", name).tag("result", "miss").register(registry);
+        Gauge.builder("cache.size", cache, size).tag("cache", name).register(registry);
+    }
+}
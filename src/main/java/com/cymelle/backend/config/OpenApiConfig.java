@@ -37,7 +37,8 @@ public class OpenApiConfig {
                         new Tag().name("Authentication").description("Endpoints for user registration and JWT token generation"),
                         new Tag().name("Products").description("Endpoints for catalog management. Viewing is public, modifications require ADMIN role."),
                         new Tag().name("Orders").description("Endpoints for placing and managing ecommerce orders"),
-                        new Tag().name("Rides").description("Endpoints for the ride-hailing service")
+                        new Tag().name("Rides").description("Endpoints for the ride-hailing service"),
+                        new Tag().name("Drivers").description("Endpoints for driver location reporting and availability")
                 ));
     }
 }
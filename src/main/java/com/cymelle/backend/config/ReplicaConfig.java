@@ -0,0 +1,106 @@
+package com.cymelle.backend.config;
+
+import com.cymelle.backend.datasource.ReplicaLagMonitor;
+import com.cymelle.backend.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read replicas behind the read pool, enabled by listing their JDBC URLs in {@code replicas.urls}. Each
+ * replica gets a pool sized and timed like the primary's read pool, which stays as the fallback.
+ */
+@Configuration
+@ConditionalOnExpression("!'${replicas.urls:}'.isBlank()")
+public class ReplicaConfig {
+
+    /**
+     * The replica connection pools by name, closed with the context.
+     */
+    public record ReplicaPools(Map<String, HikariDataSource> pools) implements AutoCloseable {
+        @Override
+        public void close() {
+            pools.values().forEach(HikariDataSource::close);
+        }
+    }
+
+    @Bean(destroyMethod = "close")
+    public ReplicaPools replicaPools(
+            DataSourceProperties properties,
+            MeterRegistry meterRegistry,
+            @Value("${replicas.urls}") List<String> urls,
+            @Value("${bulkhead.read.pool-size:6}") int poolSize,
+            @Value("${bulkhead.read.connection-timeout:PT2S}") Duration connectionTimeout,
+            @Value("${bulkhead.read.statement-timeout:PT0S}") Duration statementTimeout) {
+        Map<String, HikariDataSource> pools = new LinkedHashMap<>();
+        for (String url : urls) {
+            String name = "replica-" + pools.size();
+            HikariDataSource pool = DataSourceConfig.pool(properties, url, name, poolSize, connectionTimeout, statementTimeout, true);
+            pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            pools.put(name, pool);
+        }
+        return new ReplicaPools(pools);
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaDataSource(
+            @Qualifier("readDataSource") DataSource readDataSource,
+            ReplicaPools replicaPools,
+            @Value("${replicas.max-lag:PT5S}") Duration maxLag,
+            @Value("${replicas.read-your-writes-window:PT5S}") Duration readYourWritesWindow) {
+        return new ReplicaRoutingDataSource(readDataSource, new LinkedHashMap<>(replicaPools.pools()), maxLag,
+                readYourWritesWindow, Clock.systemUTC());
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(@Qualifier("writeDataSource") DataSource writeDataSource,
+                                               ReplicaPools replicaPools, ReplicaRoutingDataSource replicaDataSource) {
+        return new ReplicaLagMonitor(writeDataSource, new ArrayList<>(replicaPools.pools().values()), replicaDataSource,
+                Clock.systemUTC());
+    }
+
+    @Bean
+    public MeterBinder replicaMetrics(ReplicaPools replicaPools, ReplicaRoutingDataSource replicaDataSource) {
+        return registry -> {
+            replicaPools.pools().forEach((name, pool) -> {
+                Gauge.builder("db.replica.lag", replicaDataSource, replicas -> lagSeconds(replicas.getLagMillis(name)))
+                        .description("Age of the newest heartbeat the replica has replayed; NaN while it cannot be read")
+                        .baseUnit("seconds")
+                        .tag("replica", name)
+                        .register(registry);
+                MetricsConfig.bindSaturation(registry, pool);
+            });
+            FunctionCounter.builder("db.replica.reads", replicaDataSource, ReplicaRoutingDataSource::getReplicaReads)
+                    .description("Read-only connections served by a replica or, with a reason, by the primary")
+                    .tag("target", "replica").tag("reason", "fresh")
+                    .register(registry);
+            FunctionCounter.builder("db.replica.reads", replicaDataSource, ReplicaRoutingDataSource::getLagFallbacks)
+                    .tag("target", "primary").tag("reason", "lag")
+                    .register(registry);
+            FunctionCounter.builder("db.replica.reads", replicaDataSource, ReplicaRoutingDataSource::getStickyReads)
+                    .tag("target", "primary").tag("reason", "read-your-writes")
+                    .register(registry);
+        };
+    }
+
+    private static double lagSeconds(long millis) {
+        return millis == Long.MAX_VALUE ? Double.NaN : millis / 1000.0;
+    }
+}
@@ -3,6 +3,7 @@ package com.cymelle.backend.config;
 import com.cymelle.backend.security.CustomAccessDeniedHandler;
 import com.cymelle.backend.security.JwtAuthenticationEntryPoint;
 import com.cymelle.backend.security.JwtAuthenticationFilter;
+import com.cymelle.backend.security.MetricsScrapeAuthorizationManager;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -30,6 +31,7 @@ public class SecurityConfig {
     private final AuthenticationProvider authenticationProvider;
     private final JwtAuthenticationEntryPoint jwtAuthenticationEntryPoint;
     private final CustomAccessDeniedHandler customAccessDeniedHandler;
+    private final MetricsScrapeAuthorizationManager metricsScrapeAuthorizationManager;
 
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
@@ -38,12 +40,19 @@ public class SecurityConfig {
                 .authorizeHttpRequests(req ->
                         req.requestMatchers("/api/v1/auth/**").permitAll()
                                 .requestMatchers("/swagger-ui/**", "/v3/api-docs/**", "/api-docs/**", "/swagger-ui.html").permitAll()
+                                .requestMatchers("/actuator/health").permitAll()
+                                .requestMatchers("/actuator/prometheus").access(metricsScrapeAuthorizationManager)
+                                .requestMatchers("/actuator/**").hasRole(ADMIN.name())
+                                .requestMatchers("/api/v1/diagnostics/**").hasRole(ADMIN.name())
                                 .requestMatchers(GET, "/api/v1/products/**").permitAll()
                                 .requestMatchers(POST, "/api/v1/products/**").hasRole(ADMIN.name())
                                 .requestMatchers(PUT, "/api/v1/products/**").hasRole(ADMIN.name())
                                 .requestMatchers(DELETE, "/api/v1/products/**").hasRole(ADMIN.name())
                                 .requestMatchers(PATCH, "/api/v1/orders/*/status").hasRole(ADMIN.name())
                                 .requestMatchers(PATCH, "/api/v1/rides/*/status").hasAnyRole(ADMIN.name(), DRIVER.name())
+                                .requestMatchers("/api/v1/drivers/**").hasAnyRole(ADMIN.name(), DRIVER.name())
+                                .requestMatchers(GET, "/api/v1/rides/feed").hasAnyRole(ADMIN.name(), DRIVER.name())
+                                .requestMatchers(GET, "/api/v1/rides/phase-metrics").hasRole(ADMIN.name())
                                 .requestMatchers("/api/v1/orders/**").authenticated()
                                 .requestMatchers("/api/v1/rides/**").authenticated()
                                 .anyRequest()
@@ -0,0 +1,50 @@
+package com.cymelle.backend.controller;
+
+import com.cymelle.backend.diagnostics.FlightRecordings;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+@RestController
+@RequestMapping("/api/v1/diagnostics")
+@RequiredArgsConstructor
+@Tag(name = "Diagnostics")
+@SecurityRequirement(name = "bearerAuth")
+public class DiagnosticsController {
+
+    private final FlightRecordings flightRecordings;
+
+    @PostMapping(value = "/recordings", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    @Operation(summary = "Take a flight recording", description = "Runs a JDK Flight Recorder recording for the given ISO-8601 duration (at most diagnostics.recording.max-duration) with the default or profile settings, then returns the .jfr file for JDK Mission Control. Includes the application's own events under Cymelle. One recording at a time. Admins only.")
+    public ResponseEntity<Resource> record(
+            @RequestParam(defaultValue = "PT30S") Duration duration,
+            @RequestParam(defaultValue = "profile") String settings
+    ) throws IOException {
+        Path file = flightRecordings.record(duration, settings);
+        long size = Files.size(file);
+        // The file is removed once the response has been written
+        Resource body = new InputStreamResource(Files.newInputStream(file, StandardOpenOption.DELETE_ON_CLOSE));
+        String filename = "cymelle-" + Instant.now().truncatedTo(ChronoUnit.SECONDS).toString().replace(':', '-') + ".jfr";
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .contentLength(size)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .body(body);
+    }
+}
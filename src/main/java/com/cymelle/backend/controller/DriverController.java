@@ -0,0 +1,56 @@
+package com.cymelle.backend.controller;
+
+import com.cymelle.backend.dto.DriverLocationRequest;
+import com.cymelle.backend.dto.LocationIngestResponse;
+import com.cymelle.backend.model.User;
+import com.cymelle.backend.service.DriverMatchingService;
+import com.cymelle.backend.service.LocationIngestService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+@RestController
+@RequestMapping("/api/v1/drivers")
+@RequiredArgsConstructor
+@Tag(name = "Drivers")
+@SecurityRequirement(name = "bearerAuth")
+public class DriverController {
+
+    private final DriverMatchingService matchingService;
+    private final LocationIngestService locationIngestService;
+
+    @PutMapping("/me/location")
+    @Operation(summary = "Report current location", description = "Drivers report their position and availability so they can be matched to nearby pickups.")
+    public ResponseEntity<Void> updateLocation(
+            @AuthenticationPrincipal User driver,
+            @RequestBody @Valid DriverLocationRequest request
+    ) {
+        matchingService.updateLocation(driver, request);
+        return ResponseEntity.noContent().build();
+    }
+
+    @DeleteMapping("/me/location")
+    @Operation(summary = "Go offline", description = "Removes the driver from matching until they report a location again.")
+    public ResponseEntity<Void> goOffline(@AuthenticationPrincipal User driver) {
+        matchingService.goOffline(driver);
+        return ResponseEntity.noContent().build();
+    }
+
+    @PostMapping(value = "/locations", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Report locations in bulk", description = "Accepts a JSON array of {driverId, latitude, longitude, timestamp, available} samples. driverId defaults to the caller and only admins may report for other drivers. A sample without available keeps the driver's current availability. Samples with out-of-range coordinates are counted as rejected.")
+    public ResponseEntity<LocationIngestResponse> ingestLocations(
+            @AuthenticationPrincipal User sender,
+            InputStream body
+    ) throws IOException {
+        return ResponseEntity.ok(locationIngestService.ingest(sender, body));
+    }
+}
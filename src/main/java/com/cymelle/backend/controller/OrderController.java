@@ -1,5 +1,6 @@
 package com.cymelle.backend.controller;
 
+import com.cymelle.backend.datasource.ReadPool;
 import com.cymelle.backend.dto.OrderRequest;
 import com.cymelle.backend.model.Order;
 import com.cymelle.backend.model.OrderStatus;
@@ -49,6 +50,7 @@ public class OrderController {
     }
 
     @GetMapping
+    @ReadPool
     @Operation(
             summary = "Get list of orders",
             description = "Retrieves a paginated list of orders. Admins can see all orders or filter by email. Customers only see their own orders."
@@ -1,20 +1,35 @@
 package com.cymelle.backend.controller;
 
+import com.cymelle.backend.datasource.ReadPool;
+import com.cymelle.backend.cache.CatalogResponseCache;
+import com.cymelle.backend.cache.CatalogResponseCache.CachedResponse;
+import com.cymelle.backend.dto.ProductImportResponse;
+import com.cymelle.backend.dto.TrendingProductResponse;
+import com.cymelle.backend.event.ProductChangeStream;
 import com.cymelle.backend.model.Product;
+import com.cymelle.backend.service.ProductImportService;
 import com.cymelle.backend.service.ProductService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import com.cymelle.backend.exception.ResourceNotFoundException;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springdoc.core.annotations.ParameterObject;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/v1/products")
 @RequiredArgsConstructor
@@ -22,23 +37,64 @@ import org.springdoc.core.annotations.ParameterObject;
 public class ProductController {
 
     private final ProductService service;
+    private final ProductImportService importService;
+    private final CatalogResponseCache responseCache;
+    private final ProductChangeStream changeStream;
+
+    private static final String TRENDING_SORT = "trending";
+    private static final int MAX_TRENDING_LIMIT = 100;
 
     @GetMapping
-    @Operation(summary = "Search or list all products", description = "Public endpoint to retrieve products items. Optional search parameter filters by name or category.")
-    public ResponseEntity<Page<Product>> getAllProducts(
+    @ReadPool
+    @Operation(summary = "Search or list all products", description = "Public endpoint to retrieve products items. Optional search parameter filters by name or category. Use sort=trending to rank by recent sales.")
+    public ResponseEntity<byte[]> getAllProducts(
             @RequestParam(required = false) String search,
-            @ParameterObject Pageable pageable
+            @ParameterObject Pageable pageable,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
     ) {
+        String pageKey = pageable.getPageNumber() + ":" + pageable.getPageSize() + ":" + pageable.getSort();
+        boolean trending = pageable.getSort().getOrderFor(TRENDING_SORT) != null;
+        if (trending) {
+            if (search != null && !search.isEmpty()) {
+                throw new IllegalArgumentException("sort=trending cannot be combined with search");
+            }
+            return cachedResponse(responseCache.get("trending-page:" + pageKey,
+                    () -> service.getTrendingProductsPage(pageable)), acceptEncoding);
+        }
         if (search != null && !search.isEmpty()) {
-            return ResponseEntity.ok(service.searchProducts(search, pageable));
+            return cachedResponse(responseCache.get("search:" + pageKey + ":" + search,
+                    () -> service.searchProducts(search, pageable)), acceptEncoding);
         }
-        return ResponseEntity.ok(service.getAllProducts(pageable));
+        return cachedResponse(responseCache.get("list:" + pageKey,
+                () -> service.getAllProducts(pageable)), acceptEncoding);
+    }
+
+    @GetMapping("/trending")
+    @Operation(summary = "Top trending products", description = "Public endpoint returning the best selling products by exponentially decayed recent sales, served from memory.")
+    @ApiResponse(responseCode = "200", content = @Content(schema = @Schema(implementation = TrendingProductResponse.class)))
+    public ResponseEntity<byte[]> getTrendingProducts(
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+    ) {
+        int boundedLimit = Math.max(1, Math.min(limit, MAX_TRENDING_LIMIT));
+        return cachedResponse(responseCache.get("trending:" + boundedLimit,
+                () -> service.getTrendingProducts(boundedLimit)), acceptEncoding);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Product> getProductById(@PathVariable Long id) {
-        return ResponseEntity.ok(service.getProductById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + id)));
+    @ApiResponse(responseCode = "200", content = @Content(schema = @Schema(implementation = Product.class)))
+    public ResponseEntity<byte[]> getProductById(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+    ) {
+        return cachedResponse(responseCache.get("id:" + id, () -> service.getProductById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + id))), acceptEncoding);
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream product changes", description = "Public server-sent events stream of price changes, stock level threshold crossings and deletions. Optional productIds restricts the stream to those products.")
+    public SseEmitter streamProductChanges(@RequestParam(required = false) List<Long> productIds) {
+        return changeStream.subscribe(productIds);
     }
 
     @PostMapping
@@ -55,6 +111,26 @@ public class ProductController {
         return ResponseEntity.ok(service.saveProduct(product));
     }
 
+    @PostMapping(value = "/import", consumes = "text/csv")
+    @Operation(
+            summary = "Bulk upsert products from CSV",
+            description = "Protected endpoint. Requires ADMIN role. Streams a CSV with a header row (sku,name,description,price,stockQuantity,category) and upserts rows by SKU in batches.",
+            security = @SecurityRequirement(name = "bearerAuth")
+    )
+    public ResponseEntity<ProductImportResponse> importProductsCsv(InputStream body) throws IOException {
+        return ResponseEntity.ok(importService.importCsv(body));
+    }
+
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(
+            summary = "Bulk upsert products from NDJSON",
+            description = "Protected endpoint. Requires ADMIN role. Streams one product JSON object per line and upserts rows by SKU in batches.",
+            security = @SecurityRequirement(name = "bearerAuth")
+    )
+    public ResponseEntity<ProductImportResponse> importProductsNdjson(InputStream body) throws IOException {
+        return ResponseEntity.ok(importService.importNdjson(body));
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<Product> updateProduct(
             @PathVariable Long id,
@@ -68,4 +144,19 @@ public class ProductController {
         service.deleteProduct(id);
         return ResponseEntity.ok().build();
     }
+
+    private ResponseEntity<byte[]> cachedResponse(CachedResponse cached, String acceptEncoding) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (cached.gzipBody() != null && acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                    .eTag(cached.etag().replace("\"", "") + "-gzip")
+                    .contentLength(cached.gzipBody().length)
+                    .body(cached.gzipBody());
+        }
+        return builder.eTag(cached.etag())
+                .contentLength(cached.body().length)
+                .body(cached.body());
+    }
 }
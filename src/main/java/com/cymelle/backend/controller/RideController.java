@@ -1,18 +1,29 @@
 package com.cymelle.backend.controller;
 
+import com.cymelle.backend.datasource.ReadPool;
+import com.cymelle.backend.dto.DriverCandidateResponse;
+import com.cymelle.backend.dto.FareQuoteRequest;
+import com.cymelle.backend.dto.FareQuoteResponse;
+import com.cymelle.backend.dto.RidePhaseMetricsResponse;
 import com.cymelle.backend.dto.RideRequest;
+import com.cymelle.backend.dto.RideTimelineResponse;
 import com.cymelle.backend.model.Ride;
 import com.cymelle.backend.model.RideStatus;
 import com.cymelle.backend.model.User;
+import com.cymelle.backend.service.DriverMatchingService;
+import com.cymelle.backend.service.PricingService;
 import com.cymelle.backend.service.RideService;
+import com.cymelle.backend.service.RideTimelineService;
 import com.cymelle.backend.dto.UpdateRideStatusRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import com.cymelle.backend.model.Role;
 import org.springframework.security.access.AccessDeniedException;
 import io.swagger.v3.oas.annotations.Operation;
@@ -22,6 +33,8 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.util.StringUtils;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/v1/rides")
 @RequiredArgsConstructor
@@ -30,6 +43,11 @@ import org.springframework.util.StringUtils;
 public class RideController {
 
     private final RideService service;
+    private final DriverMatchingService matchingService;
+    private final PricingService pricingService;
+    private final RideTimelineService timelineService;
+
+    private static final int MAX_DRIVER_CANDIDATES = 50;
 
     @PostMapping
     @Operation(summary = "Request a new ride", description = "Creates a ride request. Authenticated customers only.")
@@ -40,7 +58,15 @@ public class RideController {
         return ResponseEntity.ok(service.requestRide(user, request));
     }
 
+    @PostMapping("/quote")
+    @Operation(summary = "Quote a fare", description = "Estimates distance, duration and fare between two points, given as coordinates or known place names, including the current surge multiplier in the pickup zone. Rides requested with both points are charged the fare quoted at request time.")
+    public ResponseEntity<FareQuoteResponse> quoteFare(@RequestBody @Valid FareQuoteRequest request) {
+        return ResponseEntity.ok(pricingService.quote(request));
+    }
+
     @GetMapping
+    @ReadPool
+    @Operation(summary = "List rides", description = "Admins see all rides, optionally by customer email and status. Customers see their own rides. Drivers see open rides around their last reported location (and open rides without coordinates) plus rides assigned to them; with a status other than REQUESTED, only their assigned rides.")
     public ResponseEntity<Page<Ride>> getRides(
             @AuthenticationPrincipal User user,
             @RequestParam(required = false) String email,
@@ -61,11 +87,11 @@ public class RideController {
             }
             return ResponseEntity.ok(service.getAllRides(pageable));
         } else if (user.getRole() == Role.DRIVER) {
-            // Driver search 
+            // Driver search: open rides near them and rides assigned to them
             if (status != null) {
-                return ResponseEntity.ok(service.searchRidesByStatus(status, pageable));
+                return ResponseEntity.ok(service.searchRidesForDriver(user, status, pageable));
             }
-            return ResponseEntity.ok(service.getAllRides(pageable));
+            return ResponseEntity.ok(service.getRidesForDriver(user, pageable));
         } else {
             // Customer search
             if (status != null) {
@@ -75,21 +101,51 @@ public class RideController {
         }
     }
 
+    @GetMapping(value = "/feed", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream open rides", description = "Server-sent events of rides opening (OPENED) and being claimed or cancelled (REMOVED) in the given geohash zones. Drivers without zones follow the area around their last reported location. Drivers and admins only.")
+    public SseEmitter streamOpenRides(
+            @AuthenticationPrincipal User user,
+            @RequestParam(required = false) List<String> zones
+    ) {
+        return matchingService.openRideFeed(user, zones);
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Get ride by ID", description = "Admins can get any ride. Customers and Drivers can only get rides they are involved in.")
     public ResponseEntity<Ride> getRideById(
             @PathVariable Long id,
             @AuthenticationPrincipal User user
     ) {
-        Ride ride = service.getRideById(id);
-        boolean isAdmin = user.getRole() == Role.ADMIN;
-        boolean isCustomer = ride.getCustomer().getId().equals(user.getId());
-        boolean isDriver = ride.getDriver() != null && ride.getDriver().getId().equals(user.getId());
+        return ResponseEntity.ok(getRideInvolving(id, user));
+    }
 
-        if (!isAdmin && !isCustomer && !isDriver) {
-            throw new AccessDeniedException("You do not have permission to view this ride.");
+    @GetMapping("/{id}/timeline")
+    @Operation(summary = "Get ride timeline", description = "Every status transition of the ride in order, with who made it and the time-to-accept and trip durations. Same access rules as getting the ride.")
+    public ResponseEntity<RideTimelineResponse> getRideTimeline(
+            @PathVariable Long id,
+            @AuthenticationPrincipal User user
+    ) {
+        return ResponseEntity.ok(timelineService.getTimeline(getRideInvolving(id, user)));
+    }
+
+    @GetMapping("/phase-metrics")
+    @Operation(summary = "Ride phase durations", description = "Count, mean, percentiles and maximum of time-to-accept, time-to-cancel and trip duration across rides since startup. Admins only.")
+    public ResponseEntity<List<RidePhaseMetricsResponse>> getPhaseMetrics() {
+        return ResponseEntity.ok(timelineService.getPhaseMetrics());
+    }
+
+    @GetMapping("/{id}/drivers")
+    @Operation(summary = "Nearest available drivers", description = "Returns the nearest available drivers to the ride's pickup point. Admins and the requesting customer only.")
+    public ResponseEntity<List<DriverCandidateResponse>> getNearestDrivers(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "5") int limit,
+            @AuthenticationPrincipal User user
+    ) {
+        Ride ride = service.getRideById(id);
+        if (user.getRole() != Role.ADMIN && !ride.getCustomer().getId().equals(user.getId())) {
+            throw new AccessDeniedException("You do not have permission to view drivers for this ride.");
         }
-        return ResponseEntity.ok(ride);
+        return ResponseEntity.ok(matchingService.findNearestDrivers(ride, Math.max(1, Math.min(limit, MAX_DRIVER_CANDIDATES))));
     }
 
     @PatchMapping("/{id}/status")
@@ -99,7 +155,8 @@ public class RideController {
             responses = {
                     @ApiResponse(responseCode = "200", description = "Status updated successfully"),
                     @ApiResponse(responseCode = "400", description = "Illegal state transition or self-assignment"),
-                    @ApiResponse(responseCode = "403", description = "Forbidden - Requires DRIVER or ADMIN role")
+                    @ApiResponse(responseCode = "403", description = "Forbidden - Requires DRIVER or ADMIN role"),
+                    @ApiResponse(responseCode = "409", description = "Ride was already claimed by another driver")
             }
     )
     public ResponseEntity<Ride> updateRideStatus(
@@ -109,4 +166,16 @@ public class RideController {
     ) {
         return ResponseEntity.ok(service.updateRideStatus(id, request.getStatus(), driver));
     }
+
+    private Ride getRideInvolving(Long id, User user) {
+        Ride ride = service.getRideById(id);
+        boolean isAdmin = user.getRole() == Role.ADMIN;
+        boolean isCustomer = ride.getCustomer().getId().equals(user.getId());
+        boolean isDriver = ride.getDriver() != null && ride.getDriver().getId().equals(user.getId());
+
+        if (!isAdmin && !isCustomer && !isDriver) {
+            throw new AccessDeniedException("You do not have permission to view this ride.");
+        }
+        return ride;
+    }
 }
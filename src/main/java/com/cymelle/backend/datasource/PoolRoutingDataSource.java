@@ -0,0 +1,60 @@
+package com.cymelle.backend.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Sends each connection request to the write or the read pool. Read-only transactions use the read pool,
+ * which may be a {@link ReplicaRoutingDataSource}, and read-write transactions the write pool. Work outside
+ * a transaction (lazy loads while a response is written, plain JDBC writes) uses the write pool unless the
+ * request is marked {@link ReadPool}.
+ * <p>
+ * The decision is made when a statement first needs a connection, so this must sit behind a
+ * {@code LazyConnectionDataSourceProxy}: transaction managers ask for the connection before the
+ * transaction's read-only flag is published.
+ */
+public class PoolRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Pool { WRITE, READ }
+
+    private static final ThreadLocal<Boolean> READ_PREFERRED = new ThreadLocal<>();
+
+    private final ReplicaRoutingDataSource replicas;
+
+    public PoolRoutingDataSource(DataSource writePool, DataSource readPool) {
+        setTargetDataSources(Map.of(Pool.WRITE, writePool, Pool.READ, readPool));
+        setDefaultTargetDataSource(writePool);
+        afterPropertiesSet();
+        this.replicas = readPool instanceof ReplicaRoutingDataSource replicaReads ? replicaReads : null;
+    }
+
+    /**
+     * Routes this thread's work outside transactions to the read pool until {@link #clearReadPreferred()}.
+     */
+    public static void preferRead() {
+        READ_PREFERRED.set(Boolean.TRUE);
+    }
+
+    public static void clearReadPreferred() {
+        READ_PREFERRED.remove();
+    }
+
+    public static Pool currentPool() {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return TransactionSynchronizationManager.isCurrentTransactionReadOnly() ? Pool.READ : Pool.WRITE;
+        }
+        return READ_PREFERRED.get() != null ? Pool.READ : Pool.WRITE;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Pool pool = currentPool();
+        if (pool == Pool.WRITE && replicas != null && TransactionSynchronizationManager.isActualTransactionActive()) {
+            replicas.onWriteTransaction();
+        }
+        return pool;
+    }
+}
@@ -0,0 +1,18 @@
+package com.cymelle.backend.datasource;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a listing or reporting endpoint whose database work outside transactions, typically lazy loads while
+ * the response is written, should use the read pool. Read-only transactions use it anyway; read-write
+ * transactions never do.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+public @interface ReadPool {
+}
@@ -0,0 +1,28 @@
+package com.cymelle.backend.datasource;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.lang.NonNull;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Applies {@link ReadPool} for the whole request, including writing the response body.
+ */
+public class ReadPoolInterceptor implements HandlerInterceptor {
+
+    @Override
+    public boolean preHandle(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response, @NonNull Object handler) {
+        if (handler instanceof HandlerMethod method
+                && (method.hasMethodAnnotation(ReadPool.class) || method.getBeanType().isAnnotationPresent(ReadPool.class))) {
+            PoolRoutingDataSource.preferRead();
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                @NonNull Object handler, Exception ex) {
+        PoolRoutingDataSource.clearReadPreferred();
+    }
+}
@@ -0,0 +1,79 @@
+package com.cymelle.backend.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.util.List;
+
+/**
+ * Measures replica lag with a heartbeat: each tick writes the time to a one-row table on the primary, then
+ * reads it back from every replica. A replica's lag is how old the heartbeat it has replayed is. This works
+ * on any database and replication method, and an idle primary does not look like a lagging replica. A
+ * replica that cannot be read counts as infinitely behind until it answers again.
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+
+    private static final String CREATE = "CREATE TABLE IF NOT EXISTS replica_heartbeat (id INT PRIMARY KEY, beat_at BIGINT NOT NULL)";
+    private static final String UPDATE = "UPDATE replica_heartbeat SET beat_at = ? WHERE id = 1";
+    private static final String INSERT = "INSERT INTO replica_heartbeat (id, beat_at) VALUES (1, ?)";
+    private static final String SELECT = "SELECT beat_at FROM replica_heartbeat WHERE id = 1";
+
+    private final JdbcTemplate primary;
+    private final List<JdbcTemplate> replicas;
+    private final ReplicaRoutingDataSource routing;
+    private final Clock clock;
+    private final boolean[] unavailable;
+    private boolean created;
+
+    /**
+     * @param replicas the replicas in the order of {@link ReplicaRoutingDataSource#getReplicaNames()}
+     */
+    public ReplicaLagMonitor(DataSource primary, List<DataSource> replicas, ReplicaRoutingDataSource routing, Clock clock) {
+        this.primary = new JdbcTemplate(primary);
+        this.replicas = replicas.stream().map(JdbcTemplate::new).toList();
+        this.routing = routing;
+        this.clock = clock;
+        this.unavailable = new boolean[replicas.size()];
+    }
+
+    @Scheduled(fixedDelayString = "${replicas.heartbeat-interval-ms:1000}")
+    public void beat() {
+        try {
+            if (!created) {
+                primary.execute(CREATE);
+                created = true;
+            }
+            long now = clock.millis();
+            if (primary.update(UPDATE, now) == 0) {
+                primary.update(INSERT, now);
+            }
+        } catch (DataAccessException e) {
+            // Replicas keep their last measurement and fall behind the limit if the primary stays unwritable
+            log.warn("Could not write the replica heartbeat: {}", e.getMessage());
+        }
+        List<String> names = routing.getReplicaNames();
+        for (int i = 0; i < replicas.size(); i++) {
+            long lag = Long.MAX_VALUE;
+            try {
+                Long beatAt = replicas.get(i).queryForObject(SELECT, Long.class);
+                lag = Math.max(0, clock.millis() - beatAt);
+                if (unavailable[i]) {
+                    log.info("Replica {} is readable again, {} ms behind", names.get(i), lag);
+                    unavailable[i] = false;
+                }
+            } catch (DataAccessException e) {
+                if (!unavailable[i]) {
+                    log.warn("Replica {} is unavailable for reads: {}", names.get(i), e.getMessage());
+                    unavailable[i] = true;
+                }
+            }
+            routing.updateLag(i, lag);
+        }
+        routing.expireWrites();
+    }
+}
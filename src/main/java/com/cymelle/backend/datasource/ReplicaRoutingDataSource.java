@@ -0,0 +1,168 @@
+package com.cymelle.backend.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * The read side of {@link PoolRoutingDataSource} when replicas are configured. Reads are spread round-robin
+ * over the replicas whose last measured lag ({@link ReplicaLagMonitor}) is within the limit and fall back to
+ * the primary's read pool when none is. A user whose own write committed within the read-your-writes
+ * window reads from the primary too, so they always see what they just changed. Stickiness is kept in
+ * memory, per instance.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    private static final String PRIMARY = "primary";
+    private static final ThreadLocal<Boolean> PINNED = new ThreadLocal<>();
+
+    private final List<String> replicaNames;
+    private final long maxLagMillis;
+    private final long stickyMillis;
+    private final Clock clock;
+    private final AtomicLongArray lagMillis;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Map<String, Long> lastWriteByUser = new ConcurrentHashMap<>();
+    private final LongAdder replicaReads = new LongAdder();
+    private final LongAdder lagFallbacks = new LongAdder();
+    private final LongAdder stickyReads = new LongAdder();
+
+    /**
+     * @param replicas replica data sources by name, in a stable order
+     */
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, Duration maxLag,
+                                    Duration readYourWritesWindow, Clock clock) {
+        Map<Object, Object> targets = new HashMap<>(replicas);
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+        this.replicaNames = List.copyOf(replicas.keySet());
+        this.maxLagMillis = maxLag.toMillis();
+        this.stickyMillis = readYourWritesWindow.toMillis();
+        this.clock = clock;
+        this.lagMillis = new AtomicLongArray(replicaNames.size());
+        // Unknown until the first measurement, so reads start on the primary
+        for (int i = 0; i < replicaNames.size(); i++) {
+            lagMillis.set(i, Long.MAX_VALUE);
+        }
+    }
+
+    /**
+     * Runs {@code read} against the primary, for reads that must not miss a write a replica may not have yet.
+     */
+    public static <T> T onPrimary(Supplier<T> read) {
+        Boolean previous = PINNED.get();
+        PINNED.set(Boolean.TRUE);
+        try {
+            return read.get();
+        } finally {
+            if (previous == null) {
+                PINNED.remove();
+            }
+        }
+    }
+
+    public List<String> getReplicaNames() {
+        return replicaNames;
+    }
+
+    /**
+     * @return the last measured lag of the replica in milliseconds, or {@code Long.MAX_VALUE} if unreachable
+     */
+    public long getLagMillis(String replica) {
+        return lagMillis.get(replicaNames.indexOf(replica));
+    }
+
+    void updateLag(int replica, long millis) {
+        lagMillis.set(replica, millis);
+    }
+
+    /**
+     * Forgets users whose read-your-writes window has passed.
+     */
+    void expireWrites() {
+        long now = clock.millis();
+        lastWriteByUser.values().removeIf(at -> now - at > stickyMillis);
+    }
+
+    public long getReplicaReads() {
+        return replicaReads.sum();
+    }
+
+    public long getLagFallbacks() {
+        return lagFallbacks.sum();
+    }
+
+    public long getStickyReads() {
+        return stickyReads.sum();
+    }
+
+    /**
+     * Called when a read-write transaction takes its connection: once it commits, the current user reads
+     * from the primary for the read-your-writes window.
+     */
+    void onWriteTransaction() {
+        String user = currentUser();
+        if (user != null && TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    recordWrite(user);
+                }
+            });
+        }
+    }
+
+    void recordWrite(String user) {
+        lastWriteByUser.put(user, clock.millis());
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (PINNED.get() != null) {
+            return PRIMARY;
+        }
+        String user = currentUser();
+        if (user != null) {
+            Long wroteAt = lastWriteByUser.get(user);
+            if (wroteAt != null && clock.millis() - wroteAt <= stickyMillis) {
+                stickyReads.increment();
+                return PRIMARY;
+            }
+        }
+        int start = Math.floorMod(next.getAndIncrement(), replicaNames.size());
+        for (int i = 0; i < replicaNames.size(); i++) {
+            int candidate = (start + i) % replicaNames.size();
+            if (lagMillis.get(candidate) <= maxLagMillis) {
+                replicaReads.increment();
+                return replicaNames.get(candidate);
+            }
+        }
+        lagFallbacks.increment();
+        return PRIMARY;
+    }
+
+    private static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated() || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+}
@@ -0,0 +1,100 @@
+package com.cymelle.backend.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JDK Flight Recorder events for the application's own operations, shown under "Cymelle" in JDK Mission
+ * Control next to the JVM's events. While no recording enables them, {@code commit()} is a no-op the JIT
+ * removes, so they stay in the hot paths permanently.
+ */
+public final class FlightEvents {
+
+    public static final String PREFIX = "com.cymelle.";
+
+    private FlightEvents() {
+    }
+
+    @Name(PREFIX + "OrderPlaced")
+    @Label("Order Placed")
+    @Category({"Cymelle", "Orders"})
+    @Description("Placing an order, from the first stock check to saving it")
+    @StackTrace(false)
+    public static final class OrderPlaced extends Event {
+        @Label("Order Id")
+        public long orderId;
+
+        @Label("Items")
+        public int itemCount;
+
+        @Label("Units")
+        public int units;
+    }
+
+    @Name(PREFIX + "StockConflict")
+    @Label("Stock Reservation Conflict")
+    @Category({"Cymelle", "Orders"})
+    @Description("An order asked for more units than were in stock")
+    @StackTrace(false)
+    public static final class StockConflict extends Event {
+        @Label("Product Id")
+        public long productId;
+
+        @Label("Requested")
+        public int requested;
+
+        @Label("Available")
+        public int available;
+    }
+
+    @Name(PREFIX + "RideTransition")
+    @Label("Ride Transition")
+    @Category({"Cymelle", "Rides"})
+    @Description("A ride changed status; the actor is 0 for changes made by the system")
+    @StackTrace(false)
+    public static final class RideTransition extends Event {
+        @Label("Ride Id")
+        public long rideId;
+
+        @Label("From")
+        public String from;
+
+        @Label("To")
+        public String to;
+
+        @Label("Actor Id")
+        public long actorId;
+    }
+
+    @Name(PREFIX + "JwtValidation")
+    @Label("JWT Validation")
+    @Category({"Cymelle", "Security"})
+    @Description("Authenticating a request from its bearer token")
+    @StackTrace(false)
+    public static final class JwtValidation extends Event {
+        @Label("Outcome")
+        public String outcome;
+
+        @Label("User Lookup")
+        @Timespan
+        public long userLookup;
+    }
+
+    @Name(PREFIX + "PasswordHash")
+    @Label("Password Hash")
+    @Category({"Cymelle", "Security"})
+    @Description("Hashing a password or checking one against its hash")
+    @StackTrace(false)
+    public static final class PasswordHash extends Event {
+        @Label("Operation")
+        public String operation;
+
+        @Label("Matched")
+        public boolean matched;
+    }
+}
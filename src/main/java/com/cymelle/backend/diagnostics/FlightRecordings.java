@@ -0,0 +1,87 @@
+package com.cymelle.backend.diagnostics;
+
+import com.cymelle.backend.exception.RecordingInProgressException;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Takes on-demand flight recordings in process, so profiling production needs no agent, restart flag or
+ * shell access. One recording runs at a time and both its length and size are capped.
+ */
+@Slf4j
+@Component
+public class FlightRecordings {
+
+    private final Duration maxDuration;
+    private final DataSize maxSize;
+    private final AtomicBoolean recording = new AtomicBoolean();
+
+    public FlightRecordings(
+            @Value("${diagnostics.recording.max-duration:PT5M}") Duration maxDuration,
+            @Value("${diagnostics.recording.max-size:100MB}") DataSize maxSize) {
+        this.maxDuration = maxDuration;
+        this.maxSize = maxSize;
+    }
+
+    public boolean isRecording() {
+        return recording.get();
+    }
+
+    /**
+     * Records for {@code duration} on the calling thread and returns the finished file, which the caller
+     * deletes.
+     *
+     * @param settings a JDK settings name, {@code default} (about 1% overhead) or {@code profile} (about 2%,
+     *                 adds method sampling and allocation profiling)
+     */
+    public Path record(Duration duration, String settings) throws IOException {
+        if (duration.isNegative() || duration.isZero() || duration.compareTo(maxDuration) > 0) {
+            throw new IllegalArgumentException("Recording duration must be positive and at most " + maxDuration);
+        }
+        Configuration configuration;
+        try {
+            configuration = Configuration.getConfiguration(settings);
+        } catch (ParseException | IOException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown recording settings: " + settings);
+        }
+        if (!recording.compareAndSet(false, true)) {
+            throw new RecordingInProgressException("A flight recording is already in progress.");
+        }
+        Path file = Files.createTempFile("cymelle-", ".jfr");
+        try (Recording jfr = new Recording(configuration)) {
+            jfr.setName("cymelle-on-demand");
+            jfr.setMaxSize(maxSize.toBytes());
+            jfr.setToDisk(true);
+            jfr.setDestination(file);
+            // Custom events are on by default; listed so a settings file that disables unknown events keeps them
+            for (String event : new String[]{"OrderPlaced", "StockConflict", "RideTransition", "JwtValidation", "PasswordHash"}) {
+                jfr.enable(FlightEvents.PREFIX + event);
+            }
+            log.info("Starting a {} flight recording with {} settings", duration, settings);
+            jfr.start();
+            Thread.sleep(duration.toMillis());
+            jfr.stop();
+            return file;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            Files.deleteIfExists(file);
+            throw new IllegalStateException("Flight recording was interrupted.");
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        } finally {
+            recording.set(false);
+        }
+    }
+}
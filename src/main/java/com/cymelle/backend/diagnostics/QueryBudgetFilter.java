@@ -0,0 +1,86 @@
+package com.cymelle.backend.diagnostics;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Counts the SQL statements each request runs, including the security filter's user lookup and lazy loads
+ * during response serialization, and warns when a request exceeds the threshold. The count is left in the
+ * {@link #QUERY_COUNT_ATTRIBUTE} request attribute, and the statements with how often each ran in
+ * {@link #QUERY_STATEMENTS_ATTRIBUTE}.
+ * <p>
+ * With {@code diagnostics.query-budget.header-enabled} the count is also returned in an
+ * {@code X-Query-Count} header. The header has to be set before the body is sent but the count is only
+ * final afterwards, so the body is buffered; that mode is meant for development, and event streams are
+ * left unbuffered and without the header.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class QueryBudgetFilter extends OncePerRequestFilter {
+
+    public static final String QUERY_COUNT_ATTRIBUTE = QueryBudgetFilter.class.getName() + ".count";
+    public static final String QUERY_STATEMENTS_ATTRIBUTE = QueryBudgetFilter.class.getName() + ".statements";
+    public static final String QUERY_COUNT_HEADER = "X-Query-Count";
+
+    private final QueryCounter queryCounter;
+    private final int warnThreshold;
+    private final boolean headerEnabled;
+
+    public QueryBudgetFilter(
+            QueryCounter queryCounter,
+            @Value("${diagnostics.query-budget.warn-threshold:25}") int warnThreshold,
+            @Value("${diagnostics.query-budget.header-enabled:false}") boolean headerEnabled) {
+        this.queryCounter = queryCounter;
+        this.warnThreshold = warnThreshold;
+        this.headerEnabled = headerEnabled;
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        ContentCachingResponseWrapper buffered = headerEnabled && !isEventStream(request)
+                ? new ContentCachingResponseWrapper(response) : null;
+        try (QueryCounter.Tally tally = queryCounter.start()) {
+            try {
+                filterChain.doFilter(request, buffered != null ? buffered : response);
+            } finally {
+                int count = tally.getCount();
+                request.setAttribute(QUERY_COUNT_ATTRIBUTE, count);
+                request.setAttribute(QUERY_STATEMENTS_ATTRIBUTE, tally.getStatements());
+                if (count > warnThreshold) {
+                    Map.Entry<String, Integer> repeated = tally.getMostRepeated();
+                    log.warn("{} {} ran {} SQL statements (threshold {}); most repeated, {} times: {}",
+                            request.getMethod(), request.getRequestURI(), count, warnThreshold,
+                            repeated.getValue(), repeated.getKey());
+                }
+                if (buffered != null) {
+                    buffered.setHeader(QUERY_COUNT_HEADER, Integer.toString(count));
+                    buffered.copyBodyToResponse();
+                }
+            }
+        }
+    }
+
+    private static boolean isEventStream(HttpServletRequest request) {
+        String accept = request.getHeader("Accept");
+        return accept != null && accept.contains(MediaType.TEXT_EVENT_STREAM_VALUE);
+    }
+}
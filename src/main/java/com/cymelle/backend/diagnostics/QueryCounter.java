@@ -0,0 +1,95 @@
+package com.cymelle.backend.diagnostics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread while a {@link Tally} is open, keeping
+ * how often each distinct statement ran so an N+1 shows up as one statement repeated many times. Outside
+ * a tally the only cost per statement is a thread-local read.
+ */
+@Component
+public class QueryCounter implements StatementInspector {
+
+    private final ThreadLocal<List<Tally>> open = new ThreadLocal<>();
+
+    /**
+     * Starts counting on this thread until the returned tally is closed. Tallies nest; a statement counts
+     * towards every tally open at the time.
+     */
+    public Tally start() {
+        List<Tally> tallies = open.get();
+        if (tallies == null) {
+            tallies = new ArrayList<>(2);
+            open.set(tallies);
+        }
+        Tally tally = new Tally(this);
+        tallies.add(tally);
+        return tally;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        List<Tally> tallies = open.get();
+        if (tallies != null) {
+            for (Tally tally : tallies) {
+                tally.record(sql);
+            }
+        }
+        return sql;
+    }
+
+    private void close(Tally tally) {
+        List<Tally> tallies = open.get();
+        if (tallies != null) {
+            tallies.remove(tally);
+            if (tallies.isEmpty()) {
+                open.remove();
+            }
+        }
+    }
+
+    public static final class Tally implements AutoCloseable {
+
+        private final QueryCounter counter;
+        private final Map<String, Integer> statements = new HashMap<>();
+        private int count;
+
+        private Tally(QueryCounter counter) {
+            this.counter = counter;
+        }
+
+        private void record(String sql) {
+            count++;
+            statements.merge(sql, 1, Integer::sum);
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        /**
+         * @return each distinct statement with the number of times it ran
+         */
+        public Map<String, Integer> getStatements() {
+            return statements;
+        }
+
+        /**
+         * @return the statement that ran most often, or {@code null} if none ran
+         */
+        public Map.Entry<String, Integer> getMostRepeated() {
+            return statements.entrySet().stream().max(Map.Entry.comparingByValue()).orElse(null);
+        }
+
+        @Override
+        public void close() {
+            counter.close(this);
+        }
+    }
+}
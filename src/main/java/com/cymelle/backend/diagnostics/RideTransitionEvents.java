@@ -0,0 +1,25 @@
+package com.cymelle.backend.diagnostics;
+
+import com.cymelle.backend.event.RideStatusChangedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Emits a {@link FlightEvents.RideTransition} for every ride status change, whichever path made it
+ * (requests, accepts, batch dispatch, expiry).
+ */
+@Component
+public class RideTransitionEvents {
+
+    @EventListener
+    public void onRideStatusChanged(RideStatusChangedEvent change) {
+        FlightEvents.RideTransition transition = new FlightEvents.RideTransition();
+        if (transition.shouldCommit()) {
+            transition.rideId = change.rideId();
+            transition.from = change.previousStatus() != null ? change.previousStatus().name() : null;
+            transition.to = change.status().name();
+            transition.actorId = change.actorId() != null ? change.actorId() : 0;
+            transition.commit();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.cymelle.backend.diagnostics;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Phase durations of a sampled request, collected on the request thread by the code running each phase.
+ * Unsampled requests have no {@link Timings}, so instrumented code pays a thread-local read and nothing
+ * else.
+ */
+@Component
+public class ServerTiming {
+
+    private final boolean enabled;
+    private final double sampleRate;
+    private final ThreadLocal<Timings> current = new ThreadLocal<>();
+
+    public ServerTiming(
+            @Value("${diagnostics.server-timing.enabled:false}") boolean enabled,
+            @Value("${diagnostics.server-timing.sample-rate:0.01}") double sampleRate) {
+        this.enabled = enabled;
+        this.sampleRate = sampleRate;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Decides whether the request on this thread is sampled and, if it is, starts its timings.
+     *
+     * @return the timings to finish with {@link #end()}, or {@code null} if the request is not sampled
+     */
+    public Timings begin() {
+        if (!enabled || ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return null;
+        }
+        Timings timings = new Timings(System.nanoTime());
+        current.set(timings);
+        return timings;
+    }
+
+    /**
+     * @return the timings of the sampled request on this thread, or {@code null}
+     */
+    public Timings current() {
+        return current.get();
+    }
+
+    public void end() {
+        current.remove();
+    }
+
+    /**
+     * Nanosecond totals per phase. Service and repository time only count the outermost call, so nested
+     * calls are not added twice; repository time is part of service time when one calls the other.
+     */
+    public static final class Timings {
+
+        final long start;
+        long jwt;
+        long user;
+        long service;
+        long repository;
+        int repositoryCalls;
+        long serializationStart;
+        int serviceDepth;
+        int repositoryDepth;
+
+        private Timings(long start) {
+            this.start = start;
+        }
+
+        public void addJwt(long nanos) {
+            jwt += nanos;
+        }
+
+        public void addUserLookup(long nanos) {
+            user += nanos;
+        }
+
+        public void markSerializationStart() {
+            if (serializationStart == 0) {
+                serializationStart = System.nanoTime();
+            }
+        }
+    }
+}
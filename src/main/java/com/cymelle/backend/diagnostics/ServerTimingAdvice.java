@@ -0,0 +1,37 @@
+package com.cymelle.backend.diagnostics;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.lang.NonNull;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Marks where a sampled request's handler ends and writing the response body begins.
+ */
+@ControllerAdvice
+@RequiredArgsConstructor
+public class ServerTimingAdvice implements ResponseBodyAdvice<Object> {
+
+    private final ServerTiming serverTiming;
+
+    @Override
+    public boolean supports(@NonNull MethodParameter returnType, @NonNull Class<? extends HttpMessageConverter<?>> converterType) {
+        return serverTiming.isEnabled();
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, @NonNull MethodParameter returnType, @NonNull MediaType selectedContentType,
+                                  @NonNull Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  @NonNull ServerHttpRequest request, @NonNull ServerHttpResponse response) {
+        ServerTiming.Timings timings = serverTiming.current();
+        if (timings != null) {
+            timings.markSerializationStart();
+        }
+        return body;
+    }
+}
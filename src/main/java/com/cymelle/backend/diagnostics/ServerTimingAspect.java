@@ -0,0 +1,56 @@
+package com.cymelle.backend.diagnostics;
+
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Adds service and repository time to the sampled request's {@link ServerTiming}. Only registered while
+ * Server-Timing is enabled, so service and repository calls are not proxied through it otherwise.
+ */
+@Aspect
+@Component
+@ConditionalOnProperty(name = "diagnostics.server-timing.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class ServerTimingAspect {
+
+    private final ServerTiming serverTiming;
+
+    @Around("within(@org.springframework.stereotype.Service *) && execution(public * *(..))")
+    public Object timeService(ProceedingJoinPoint call) throws Throwable {
+        ServerTiming.Timings timings = serverTiming.current();
+        if (timings == null) {
+            return call.proceed();
+        }
+        long start = System.nanoTime();
+        timings.serviceDepth++;
+        try {
+            return call.proceed();
+        } finally {
+            if (--timings.serviceDepth == 0) {
+                timings.service += System.nanoTime() - start;
+            }
+        }
+    }
+
+    @Around("this(org.springframework.data.repository.Repository)")
+    public Object timeRepository(ProceedingJoinPoint call) throws Throwable {
+        ServerTiming.Timings timings = serverTiming.current();
+        if (timings == null) {
+            return call.proceed();
+        }
+        long start = System.nanoTime();
+        timings.repositoryDepth++;
+        try {
+            return call.proceed();
+        } finally {
+            if (--timings.repositoryDepth == 0) {
+                timings.repository += System.nanoTime() - start;
+                timings.repositoryCalls++;
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.cymelle.backend.diagnostics;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * Reports where a sampled request spent its time: bearer-token parsing, the user lookup, services,
+ * repositories and writing the body, as a {@code Server-Timing} header and one log line per request.
+ * Sampled responses are buffered so the header can include serialization, which finishes after the body
+ * has started; event streams are not buffered and get only the log line.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+    public static final String SERVER_TIMING_HEADER = "Server-Timing";
+
+    private final ServerTiming serverTiming;
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !serverTiming.isEnabled();
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        ServerTiming.Timings timings = serverTiming.begin();
+        if (timings == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        ContentCachingResponseWrapper buffered = isEventStream(request) ? null : new ContentCachingResponseWrapper(response);
+        try {
+            filterChain.doFilter(request, buffered != null ? buffered : response);
+        } finally {
+            long end = System.nanoTime();
+            serverTiming.end();
+            Object statements = request.getAttribute(QueryBudgetFilter.QUERY_COUNT_ATTRIBUTE);
+            long serialization = timings.serializationStart == 0 ? 0 : end - timings.serializationStart;
+            if (buffered != null) {
+                buffered.setHeader(SERVER_TIMING_HEADER, String.format(Locale.ROOT,
+                        "total;dur=%.2f, jwt;dur=%.2f, user;dur=%.2f, service;dur=%.2f, repo;dur=%.2f;desc=\"%d calls\", ser;dur=%.2f",
+                        millis(end - timings.start), millis(timings.jwt), millis(timings.user), millis(timings.service),
+                        millis(timings.repository), timings.repositoryCalls, millis(serialization)));
+                buffered.copyBodyToResponse();
+            }
+            log.info(String.format(Locale.ROOT,
+                    "server_timing method=%s path=%s status=%d total_ms=%.2f jwt_ms=%.2f user_ms=%.2f service_ms=%.2f repository_ms=%.2f repository_calls=%d serialization_ms=%.2f statements=%s",
+                    request.getMethod(), request.getRequestURI(), response.getStatus(), millis(end - timings.start),
+                    millis(timings.jwt), millis(timings.user), millis(timings.service), millis(timings.repository),
+                    timings.repositoryCalls, millis(serialization), statements == null ? "-" : statements));
+        }
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private static boolean isEventStream(HttpServletRequest request) {
+        String accept = request.getHeader("Accept");
+        return accept != null && accept.contains(MediaType.TEXT_EVENT_STREAM_VALUE);
+    }
+}
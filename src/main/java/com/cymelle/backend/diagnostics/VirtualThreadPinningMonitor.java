@@ -0,0 +1,97 @@
+package com.cymelle.backend.diagnostics;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Reports virtual threads that stay pinned to their carrier longer than a threshold, typically by
+ * blocking inside a {@code synchronized} block (Hibernate, JDBC drivers, {@code SseEmitter.send}) or a
+ * native frame. Uses the JDK's own {@code jdk.VirtualThreadPinned} event through an in-process JFR
+ * stream, so no agent or restart flag is needed. Pinnings are counted per site, the first non-JDK frame,
+ * and each new site is logged once with its stack.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "diagnostics.pinning.enabled", havingValue = "true")
+public class VirtualThreadPinningMonitor {
+
+    private static final String EVENT = "jdk.VirtualThreadPinned";
+    private static final int LOGGED_FRAMES = 16;
+
+    private final RecordingStream stream = new RecordingStream();
+    private final Map<String, LongAdder> pinnedBySite = new ConcurrentHashMap<>();
+    private final LongAdder pinned = new LongAdder();
+
+    public VirtualThreadPinningMonitor(@Value("${diagnostics.pinning.threshold:PT0.02S}") Duration threshold) {
+        stream.enable(EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(EVENT, this::onPinned);
+    }
+
+    @PostConstruct
+    public void start() {
+        stream.startAsync();
+    }
+
+    @PreDestroy
+    public void stop() {
+        stream.close();
+    }
+
+    public long getPinnedCount() {
+        return pinned.sum();
+    }
+
+    public Map<String, Long> getPinnedCountsBySite() {
+        return pinnedBySite.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().sum(), Long::sum, TreeMap::new));
+    }
+
+    void onPinned(RecordedEvent event) {
+        List<RecordedFrame> frames = event.getStackTrace() != null ? event.getStackTrace().getFrames() : List.of();
+        String site = site(frames);
+        LongAdder count = new LongAdder();
+        LongAdder existing = pinnedBySite.putIfAbsent(site, count);
+        (existing != null ? existing : count).increment();
+        pinned.increment();
+        if (existing == null) {
+            log.warn("Virtual thread pinned for {} ms at {}{}", event.getDuration().toMillis(), site, format(event.getStackTrace()));
+        }
+    }
+
+    private static String site(List<RecordedFrame> frames) {
+        for (RecordedFrame frame : frames) {
+            String type = frame.getMethod().getType().getName();
+            if (!type.startsWith("java.") && !type.startsWith("jdk.") && !type.startsWith("sun.")) {
+                return type + "." + frame.getMethod().getName();
+            }
+        }
+        return frames.isEmpty() ? "unknown" : frames.get(0).getMethod().getType().getName() + "." + frames.get(0).getMethod().getName();
+    }
+
+    private static String format(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return "";
+        }
+        return stackTrace.getFrames().stream()
+                .limit(LOGGED_FRAMES)
+                .map(frame -> "\n\tat " + frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+                        + (frame.getLineNumber() > 0 ? ":" + frame.getLineNumber() : ""))
+                .collect(Collectors.joining());
+    }
+}
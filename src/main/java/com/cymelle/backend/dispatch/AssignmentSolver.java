@@ -0,0 +1,178 @@
+package com.cymelle.backend.dispatch;
+
+import java.util.Arrays;
+
+/**
+ * Minimum-cost assignment of rows to columns over a sparse set of allowed pairs: the Hungarian method in
+ * its shortest augmenting path form (Jonker-Volgenant), with Dijkstra over reduced costs. Every row may
+ * also stay unassigned at a fixed cost, modelled as a private column, so instances need not be square or
+ * fully connected and each search stops as soon as it reaches a free column. With a handful of candidate
+ * columns per row a search touches only the rows competing for nearby columns, rather than every row as
+ * in the dense cubic formulation.
+ */
+public final class AssignmentSolver {
+
+    private AssignmentSolver() {
+    }
+
+    /**
+     * @param rows           number of rows
+     * @param columns        number of columns
+     * @param rowStart       pairs of row {@code i} are {@code rowStart[i]} (inclusive) to {@code rowStart[i + 1]}
+     * @param pairColumns    column of each pair
+     * @param pairCosts      non-negative cost of each pair
+     * @param unassignedCost cost of leaving a row unassigned; pairs costing this much or more are never used
+     * @return the column assigned to each row, or -1
+     */
+    public static int[] solve(int rows, int columns, int[] rowStart, int[] pairColumns, long[] pairCosts, long unassignedCost) {
+        // Real columns first, then one "unassigned" column per row
+        int nodes = columns + rows;
+        long[] rowPotential = new long[rows];
+        long[] columnPotential = new long[nodes];
+        int[] owner = new int[nodes];
+        int[] assigned = new int[rows];
+        Arrays.fill(owner, -1);
+        Arrays.fill(assigned, -1);
+
+        long[] distance = new long[nodes];
+        int[] predecessor = new int[nodes];
+        int[] reached = new int[nodes];
+        int[] settled = new int[nodes];
+        int[] settledColumns = new int[nodes];
+        Heap heap = new Heap();
+
+        for (int source = 0; source < rows; source++) {
+            int search = source + 1;
+            heap.clear();
+            int settledCount = 0;
+            int row = source;
+            long rowDistance = 0;
+            int target;
+            while (true) {
+                long base = rowDistance - rowPotential[row];
+                for (int p = rowStart[row]; p < rowStart[row + 1]; p++) {
+                    if (pairCosts[p] < unassignedCost) {
+                        int column = pairColumns[p];
+                        relax(column, base + pairCosts[p] - columnPotential[column], row, search, distance, predecessor, reached, settled, heap);
+                    }
+                }
+                int own = columns + row;
+                relax(own, base + unassignedCost - columnPotential[own], row, search, distance, predecessor, reached, settled, heap);
+
+                int column;
+                do {
+                    column = heap.pop();
+                } while (settled[column] == search || heap.poppedKey != distance[column]);
+                settled[column] = search;
+                settledColumns[settledCount++] = column;
+                if (owner[column] < 0) {
+                    target = column;
+                    break;
+                }
+                row = owner[column];
+                rowDistance = distance[column];
+            }
+
+            // Keep reduced costs non-negative and zero along matched pairs
+            long total = distance[target];
+            rowPotential[source] += total;
+            for (int i = 0; i < settledCount - 1; i++) {
+                int column = settledColumns[i];
+                long slack = total - distance[column];
+                columnPotential[column] -= slack;
+                rowPotential[owner[column]] += slack;
+            }
+
+            int column = target;
+            while (true) {
+                int from = predecessor[column];
+                int previous = assigned[from];
+                assigned[from] = column;
+                owner[column] = from;
+                if (from == source) {
+                    break;
+                }
+                column = previous;
+            }
+        }
+
+        for (int i = 0; i < rows; i++) {
+            if (assigned[i] >= columns) {
+                assigned[i] = -1;
+            }
+        }
+        return assigned;
+    }
+
+    private static void relax(int column, long candidate, int row, int search, long[] distance, int[] predecessor,
+                              int[] reached, int[] settled, Heap heap) {
+        if (settled[column] == search) {
+            return;
+        }
+        if (reached[column] != search || candidate < distance[column]) {
+            reached[column] = search;
+            distance[column] = candidate;
+            predecessor[column] = row;
+            heap.push(candidate, column);
+        }
+    }
+
+    /**
+     * Binary min-heap of (distance, column) with lazy deletion; stale entries are skipped on pop.
+     */
+    private static final class Heap {
+        private long[] keys = new long[64];
+        private int[] values = new int[64];
+        private int size;
+        long poppedKey;
+
+        void clear() {
+            size = 0;
+        }
+
+        void push(long key, int value) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (keys[parent] <= key) {
+                    break;
+                }
+                keys[i] = keys[parent];
+                values[i] = values[parent];
+                i = parent;
+            }
+            keys[i] = key;
+            values[i] = value;
+        }
+
+        int pop() {
+            poppedKey = keys[0];
+            int result = values[0];
+            long key = keys[--size];
+            int value = values[size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && keys[child + 1] < keys[child]) {
+                    child++;
+                }
+                if (keys[child] >= key) {
+                    break;
+                }
+                keys[i] = keys[child];
+                values[i] = values[child];
+                i = child;
+            }
+            keys[i] = key;
+            values[i] = value;
+            return result;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.cymelle.backend.dispatch;
+
+import com.cymelle.backend.geo.DriverLocationIndex;
+import com.cymelle.backend.geo.DriverLocationIndex.DriverDistance;
+import com.cymelle.backend.model.Ride;
+import com.cymelle.backend.repository.RideRepository;
+import com.cymelle.backend.service.RideService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In {@link DispatchMode#BATCH} mode, gathers the open rides and the available drivers near them every
+ * tick and assigns them together so the total pickup distance is minimal, instead of letting each ride go
+ * to whichever driver accepts first. Each ride only considers its nearest few drivers within the pickup
+ * limit, which keeps the problem sparse. Assignments are applied as conditional claims, so rides accepted
+ * by hand in the meantime are skipped.
+ */
+@Slf4j
+@Component
+public class BatchDispatcher {
+
+    private final RideRepository rideRepository;
+    private final RideService rideService;
+    private final DriverLocationIndex driverLocationIndex;
+    private final DispatchMode mode;
+    private final int maxRides;
+    private final int candidatesPerRide;
+    private final long maxPickupMeters;
+
+    public BatchDispatcher(
+            RideRepository rideRepository,
+            RideService rideService,
+            DriverLocationIndex driverLocationIndex,
+            @Value("${rides.dispatch.mode:FIRST_COME}") DispatchMode mode,
+            @Value("${rides.dispatch.max-rides-per-batch:2000}") int maxRides,
+            @Value("${rides.dispatch.candidates-per-ride:8}") int candidatesPerRide,
+            @Value("${rides.dispatch.max-pickup-meters:5000}") long maxPickupMeters
+    ) {
+        this.rideRepository = rideRepository;
+        this.rideService = rideService;
+        this.driverLocationIndex = driverLocationIndex;
+        this.mode = mode;
+        this.maxRides = maxRides;
+        this.candidatesPerRide = candidatesPerRide;
+        this.maxPickupMeters = maxPickupMeters;
+    }
+
+    @Scheduled(fixedDelayString = "${rides.dispatch.batch-interval-ms:2000}")
+    public void tick() {
+        if (mode == DispatchMode.BATCH) {
+            dispatch();
+        }
+    }
+
+    /**
+     * Runs one round regardless of mode, oldest rides first.
+     *
+     * @return the rides that were assigned
+     */
+    public List<Ride> dispatch() {
+        List<DispatchableRide> rides = rideRepository.findDispatchableRides(PageRequest.of(0, maxRides));
+        if (rides.isEmpty()) {
+            return List.of();
+        }
+        long started = System.nanoTime();
+        int[] rowStart = new int[rides.size() + 1];
+        int[] pairColumns = new int[rides.size() * candidatesPerRide];
+        long[] pairCosts = new long[pairColumns.length];
+        Map<Long, Integer> columnByDriver = new HashMap<>();
+        List<Long> drivers = new ArrayList<>();
+        int pairs = 0;
+        for (int row = 0; row < rides.size(); row++) {
+            DispatchableRide ride = rides.get(row);
+            long customerId = ride.customerId();
+            for (DriverDistance candidate : driverLocationIndex.nearest(ride.pickupLatitude(), ride.pickupLongitude(),
+                    candidatesPerRide, driverId -> driverId != customerId)) {
+                if (candidate.distanceMeters() >= maxPickupMeters) {
+                    break;
+                }
+                Integer column = columnByDriver.computeIfAbsent(candidate.driverId(), driverId -> {
+                    drivers.add(driverId);
+                    return drivers.size() - 1;
+                });
+                pairColumns[pairs] = column;
+                pairCosts[pairs] = Math.round(candidate.distanceMeters());
+                pairs++;
+            }
+            rowStart[row + 1] = pairs;
+        }
+        if (pairs == 0) {
+            return List.of();
+        }
+
+        int[] assignment = AssignmentSolver.solve(rides.size(), drivers.size(), rowStart,
+                Arrays.copyOf(pairColumns, pairs), Arrays.copyOf(pairCosts, pairs), maxPickupMeters);
+        Map<Long, Long> driverByRide = new LinkedHashMap<>();
+        for (int row = 0; row < assignment.length; row++) {
+            if (assignment[row] >= 0) {
+                driverByRide.put(rides.get(row).id(), drivers.get(assignment[row]));
+            }
+        }
+        long solved = System.nanoTime();
+        List<Ride> assigned = driverByRide.isEmpty() ? List.of() : rideService.assignRides(driverByRide);
+        log.debug("Dispatched {} of {} open rides to {} candidate drivers (solve {} µs, apply {} µs)", assigned.size(),
+                rides.size(), drivers.size(), (solved - started) / 1_000, (System.nanoTime() - solved) / 1_000);
+        return assigned;
+    }
+}
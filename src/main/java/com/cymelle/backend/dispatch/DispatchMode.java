@@ -0,0 +1,12 @@
+package com.cymelle.backend.dispatch;
+
+public enum DispatchMode {
+    /**
+     * Drivers accept open rides themselves; the first accept wins.
+     */
+    FIRST_COME,
+    /**
+     * Open rides with pickup coordinates are also assigned periodically by {@link BatchDispatcher}.
+     */
+    BATCH
+}
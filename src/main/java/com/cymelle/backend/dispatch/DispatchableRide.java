@@ -0,0 +1,7 @@
+package com.cymelle.backend.dispatch;
+
+/**
+ * The columns of an open ride the batch dispatcher needs.
+ */
+public record DispatchableRide(Long id, Long customerId, Double pickupLatitude, Double pickupLongitude) {
+}
@@ -0,0 +1,17 @@
+package com.cymelle.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class DriverCandidateResponse {
+    private Long driverId;
+    private double latitude;
+    private double longitude;
+    private double distanceMeters;
+}
@@ -0,0 +1,31 @@
+package com.cymelle.backend.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class DriverLocationRequest {
+    @NotNull(message = "Latitude is required")
+    @DecimalMin(value = "-90.0", message = "Latitude must be between -90 and 90")
+    @DecimalMax(value = "90.0", message = "Latitude must be between -90 and 90")
+    @Schema(description = "Current latitude in decimal degrees", example = "-1.2864")
+    private Double latitude;
+
+    @NotNull(message = "Longitude is required")
+    @DecimalMin(value = "-180.0", message = "Longitude must be between -180 and 180")
+    @DecimalMax(value = "180.0", message = "Longitude must be between -180 and 180")
+    @Schema(description = "Current longitude in decimal degrees", example = "36.8172")
+    private Double longitude;
+
+    @Schema(description = "Whether the driver is available for new rides. Omit to keep the current availability (available on first report); ignored while the driver is on a trip.", example = "true")
+    private Boolean available;
+}
@@ -0,0 +1,41 @@
+package com.cymelle.backend.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class FareQuoteRequest {
+    @Schema(description = "Pickup place name, used when pickup coordinates are not given", example = "Kenyatta Avenue")
+    private String pickupLocation;
+
+    @Schema(description = "Dropoff place name, used when dropoff coordinates are not given", example = "Westlands")
+    private String dropoffLocation;
+
+    @DecimalMin(value = "-90.0", message = "Latitude must be between -90 and 90")
+    @DecimalMax(value = "90.0", message = "Latitude must be between -90 and 90")
+    @Schema(description = "Pickup latitude in decimal degrees", example = "-1.2921")
+    private Double pickupLatitude;
+
+    @DecimalMin(value = "-180.0", message = "Longitude must be between -180 and 180")
+    @DecimalMax(value = "180.0", message = "Longitude must be between -180 and 180")
+    @Schema(description = "Pickup longitude in decimal degrees", example = "36.8219")
+    private Double pickupLongitude;
+
+    @DecimalMin(value = "-90.0", message = "Latitude must be between -90 and 90")
+    @DecimalMax(value = "90.0", message = "Latitude must be between -90 and 90")
+    @Schema(description = "Dropoff latitude in decimal degrees", example = "-1.2635")
+    private Double dropoffLatitude;
+
+    @DecimalMin(value = "-180.0", message = "Longitude must be between -180 and 180")
+    @DecimalMax(value = "180.0", message = "Longitude must be between -180 and 180")
+    @Schema(description = "Dropoff longitude in decimal degrees", example = "36.8045")
+    private Double dropoffLongitude;
+}
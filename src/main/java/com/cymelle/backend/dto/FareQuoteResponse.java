@@ -0,0 +1,23 @@
+package com.cymelle.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class FareQuoteResponse {
+    private String zone;
+    private double distanceKm;
+    private double durationMinutes;
+    private BigDecimal baseFare;
+    private BigDecimal surgeMultiplier;
+    private BigDecimal fare;
+    private Instant quotedAt;
+}
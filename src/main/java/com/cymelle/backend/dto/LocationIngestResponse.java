@@ -0,0 +1,16 @@
+package com.cymelle.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class LocationIngestResponse {
+    private int received;
+    private int applied;
+    private int rejected;
+}
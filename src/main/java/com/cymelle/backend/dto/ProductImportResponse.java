@@ -0,0 +1,30 @@
+package com.cymelle.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductImportResponse {
+    private long totalRows;
+    private long inserted;
+    private long updated;
+    private long failed;
+    private List<RowError> errors;
+    private boolean errorsTruncated;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class RowError {
+        private long row;
+        private String sku;
+        private String message;
+    }
+}
@@ -0,0 +1,50 @@
+package com.cymelle.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.Set;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductStreamEvent {
+    private Long productId;
+    private Set<ChangeType> changes;
+    private BigDecimal price;
+    private Integer stockQuantity;
+    private StockLevel stockLevel;
+    private Instant occurredAt;
+
+    public enum ChangeType {
+        CREATED,
+        PRICE_CHANGED,
+        STOCK_LEVEL_CHANGED,
+        DELETED
+    }
+
+    public enum StockLevel {
+        IN_STOCK,
+        LOW_STOCK,
+        OUT_OF_STOCK
+    }
+
+    public ProductStreamEvent mergeWith(ProductStreamEvent newer) {
+        Set<ChangeType> merged = EnumSet.copyOf(changes);
+        merged.addAll(newer.getChanges());
+        return ProductStreamEvent.builder()
+                .productId(productId)
+                .changes(merged)
+                .price(newer.getPrice())
+                .stockQuantity(newer.getStockQuantity())
+                .stockLevel(newer.getStockLevel())
+                .occurredAt(newer.getOccurredAt())
+                .build();
+    }
+}
@@ -0,0 +1,32 @@
+package com.cymelle.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class RideFeedEvent {
+    private Long rideId;
+    private Type type;
+    private String zone;
+    private String pickupLocation;
+    private String dropoffLocation;
+    private Double pickupLatitude;
+    private Double pickupLongitude;
+    private BigDecimal fare;
+    private LocalDateTime requestedAt;
+    private Instant occurredAt;
+
+    public enum Type {
+        OPENED,
+        REMOVED
+    }
+}
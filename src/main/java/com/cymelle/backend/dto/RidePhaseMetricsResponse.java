@@ -0,0 +1,21 @@
+package com.cymelle.backend.dto;
+
+import com.cymelle.backend.timeline.RidePhaseMetrics;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class RidePhaseMetricsResponse {
+    private RidePhaseMetrics.Phase phase;
+    private long count;
+    private double meanSeconds;
+    private double p50Seconds;
+    private double p90Seconds;
+    private double p99Seconds;
+    private double maxSeconds;
+}
@@ -1,6 +1,8 @@
 package com.cymelle.backend.dto;
 
 import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -19,4 +21,24 @@ public class RideRequest {
     @NotBlank(message = "Dropoff location is required")
     @Schema(description = "Address or point where the ride ends", example = "Westside Apartments")
     private String dropoffLocation;
+
+    @DecimalMin(value = "-90.0", message = "Latitude must be between -90 and 90")
+    @DecimalMax(value = "90.0", message = "Latitude must be between -90 and 90")
+    @Schema(description = "Pickup latitude in decimal degrees", example = "-1.2921")
+    private Double pickupLatitude;
+
+    @DecimalMin(value = "-180.0", message = "Longitude must be between -180 and 180")
+    @DecimalMax(value = "180.0", message = "Longitude must be between -180 and 180")
+    @Schema(description = "Pickup longitude in decimal degrees", example = "36.8219")
+    private Double pickupLongitude;
+
+    @DecimalMin(value = "-90.0", message = "Latitude must be between -90 and 90")
+    @DecimalMax(value = "90.0", message = "Latitude must be between -90 and 90")
+    @Schema(description = "Dropoff latitude in decimal degrees", example = "-1.2635")
+    private Double dropoffLatitude;
+
+    @DecimalMin(value = "-180.0", message = "Longitude must be between -180 and 180")
+    @DecimalMax(value = "180.0", message = "Longitude must be between -180 and 180")
+    @Schema(description = "Dropoff longitude in decimal degrees", example = "36.8045")
+    private Double dropoffLongitude;
 }
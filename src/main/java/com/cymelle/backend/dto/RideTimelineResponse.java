@@ -0,0 +1,34 @@
+package com.cymelle.backend.dto;
+
+import com.cymelle.backend.model.RideStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class RideTimelineResponse {
+    private Long rideId;
+    private RideStatus status;
+    private Double timeToAcceptSeconds;
+    private Double tripDurationSeconds;
+    private List<Entry> events;
+
+    @Data
+    @Builder
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Entry {
+        private RideStatus fromStatus;
+        private RideStatus toStatus;
+        private Long actorId;
+        private LocalDateTime occurredAt;
+        private Double secondsSincePrevious;
+    }
+}
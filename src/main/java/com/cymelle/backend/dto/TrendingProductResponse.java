@@ -0,0 +1,16 @@
+package com.cymelle.backend.dto;
+
+import com.cymelle.backend.model.Product;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class TrendingProductResponse {
+    private Product product;
+    private double score;
+}
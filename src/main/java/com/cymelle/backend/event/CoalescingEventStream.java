@@ -0,0 +1,249 @@
+package com.cymelle.backend.event;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Fans events out to SSE subscribers. Each subscriber has a bounded buffer keyed by {@code K}: a newer
+ * event for a key already waiting is merged into it, and a subscriber whose buffer fills up with
+ * distinct keys is evicted instead of slowing down publishers or other subscribers.
+ * <p>
+ * Subscribers may register for a set of topics; an event published to a topic is then only offered to
+ * that topic's subscribers and to those without topics, so fan-out cost follows the audience rather
+ * than the total number of connections.
+ */
+@Slf4j
+public class CoalescingEventStream<K, E> implements AutoCloseable {
+
+    private final String eventName;
+    private final Function<E, K> keyFunction;
+    private final BinaryOperator<E> merger;
+    private final int bufferSize;
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+    private final Set<Subscription> untargeted = ConcurrentHashMap.newKeySet();
+    private final Map<Object, Set<Subscription>> byTopic = new ConcurrentHashMap<>();
+    private final ExecutorService sender = Executors.newVirtualThreadPerTaskExecutor();
+    private final LongAdder published = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+
+    public CoalescingEventStream(String eventName, Function<E, K> keyFunction, BinaryOperator<E> merger, int bufferSize) {
+        this.eventName = eventName;
+        this.keyFunction = keyFunction;
+        this.merger = merger;
+        this.bufferSize = bufferSize;
+    }
+
+    public SseEmitter subscribe(long timeoutMillis, Predicate<E> filter) {
+        return subscribe(new SseEmitter(timeoutMillis), filter);
+    }
+
+    public SseEmitter subscribe(SseEmitter emitter, Predicate<E> filter) {
+        return subscribe(emitter, Set.of(), filter);
+    }
+
+    public SseEmitter subscribe(long timeoutMillis, Collection<?> topics, Predicate<E> filter) {
+        return subscribe(new SseEmitter(timeoutMillis), topics, filter);
+    }
+
+    public SseEmitter subscribe(SseEmitter emitter, Collection<?> topics, Predicate<E> filter) {
+        Subscription subscription = new Subscription(emitter, Set.<Object>copyOf(topics), filter);
+        subscriptions.add(subscription);
+        if (subscription.topics.isEmpty()) {
+            untargeted.add(subscription);
+        }
+        for (Object topic : subscription.topics) {
+            byTopic.compute(topic, (key, members) -> {
+                Set<Subscription> audience = members != null ? members : ConcurrentHashMap.newKeySet();
+                audience.add(subscription);
+                return audience;
+            });
+        }
+        emitter.onCompletion(subscription::close);
+        emitter.onTimeout(subscription::close);
+        emitter.onError(error -> subscription.close());
+        return emitter;
+    }
+
+    public void publish(E event) {
+        publish(null, event);
+    }
+
+    /**
+     * Publishes to subscribers of {@code topic} and to subscribers without topics. A {@code null} topic
+     * reaches every subscriber.
+     */
+    public void publish(Object topic, E event) {
+        published.increment();
+        K key = keyFunction.apply(event);
+        if (topic == null) {
+            offerAll(subscriptions, key, event);
+            return;
+        }
+        offerAll(untargeted, key, event);
+        Set<Subscription> audience = byTopic.get(topic);
+        if (audience != null) {
+            offerAll(audience, key, event);
+        }
+    }
+
+    private void offerAll(Set<Subscription> audience, K key, E event) {
+        for (Subscription subscription : audience) {
+            if (subscription.filter.test(event)) {
+                subscription.offer(key, event);
+            }
+        }
+    }
+
+    public void heartbeat() {
+        for (Subscription subscription : subscriptions) {
+            subscription.heartbeat();
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+
+    public long getPublishedCount() {
+        return published.sum();
+    }
+
+    public long getDeliveredCount() {
+        return delivered.sum();
+    }
+
+    public long getEvictedCount() {
+        return evicted.sum();
+    }
+
+    @Override
+    public void close() {
+        subscriptions.forEach(subscription -> subscription.emitter.complete());
+        subscriptions.clear();
+        untargeted.clear();
+        byTopic.clear();
+        sender.shutdownNow();
+    }
+
+    private final class Subscription {
+        private final SseEmitter emitter;
+        private final Set<Object> topics;
+        private final Predicate<E> filter;
+        private LinkedHashMap<K, E> pending = new LinkedHashMap<>();
+        private boolean draining;
+        private volatile boolean closed;
+
+        private Subscription(SseEmitter emitter, Set<Object> topics, Predicate<E> filter) {
+            this.emitter = emitter;
+            this.topics = topics;
+            this.filter = filter;
+        }
+
+        void offer(K key, E event) {
+            boolean startDrain;
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                E previous = pending.get(key);
+                if (previous != null) {
+                    pending.put(key, merger.apply(previous, event));
+                } else if (pending.size() >= bufferSize) {
+                    evict();
+                    return;
+                } else {
+                    pending.put(key, event);
+                }
+                startDrain = !draining;
+                draining = true;
+            }
+            if (startDrain) {
+                sender.execute(this::drain);
+            }
+        }
+
+        void heartbeat() {
+            synchronized (this) {
+                if (closed || draining) {
+                    return;
+                }
+                draining = true;
+            }
+            sender.execute(() -> {
+                try {
+                    emitter.send(SseEmitter.event().comment("keep-alive"));
+                } catch (IOException | IllegalStateException e) {
+                    close();
+                }
+                drain();
+            });
+        }
+
+        private void drain() {
+            while (true) {
+                List<E> batch;
+                synchronized (this) {
+                    if (closed || pending.isEmpty()) {
+                        draining = false;
+                        return;
+                    }
+                    batch = new ArrayList<>(pending.values());
+                    pending = new LinkedHashMap<>();
+                }
+                try {
+                    for (E event : batch) {
+                        emitter.send(SseEmitter.event().name(eventName).data(event));
+                        delivered.increment();
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    close();
+                    emitter.completeWithError(e);
+                }
+            }
+        }
+
+        private void evict() {
+            closed = true;
+            pending.clear();
+            unregister();
+            evicted.increment();
+            log.debug("Evicting slow {} subscriber with {} buffered events", eventName, bufferSize);
+            sender.execute(emitter::complete);
+        }
+
+        void close() {
+            synchronized (this) {
+                closed = true;
+                pending.clear();
+            }
+            unregister();
+        }
+
+        private void unregister() {
+            subscriptions.remove(this);
+            untargeted.remove(this);
+            for (Object topic : topics) {
+                byTopic.computeIfPresent(topic, (key, members) -> {
+                    members.remove(this);
+                    return members.isEmpty() ? null : members;
+                });
+            }
+        }
+    }
+}
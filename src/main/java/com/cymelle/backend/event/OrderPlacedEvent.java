@@ -0,0 +1,9 @@
+package com.cymelle.backend.event;
+
+import java.util.List;
+
+public record OrderPlacedEvent(Long orderId, List<Item> items) {
+
+    public record Item(Long productId, int quantity) {
+    }
+}
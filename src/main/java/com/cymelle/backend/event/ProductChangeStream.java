@@ -0,0 +1,96 @@
+package com.cymelle.backend.event;
+
+import com.cymelle.backend.dto.ProductStreamEvent;
+import com.cymelle.backend.dto.ProductStreamEvent.ChangeType;
+import com.cymelle.backend.dto.ProductStreamEvent.StockLevel;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.Set;
+
+@Component
+public class ProductChangeStream {
+
+    private final CoalescingEventStream<Long, ProductStreamEvent> stream;
+    private final int lowStockThreshold;
+    private final long timeoutMillis;
+
+    public ProductChangeStream(
+            @Value("${catalog.events.buffer-size:256}") int bufferSize,
+            @Value("${catalog.events.low-stock-threshold:5}") int lowStockThreshold,
+            @Value("${catalog.events.timeout-ms:1800000}") long timeoutMillis
+    ) {
+        this.stream = new CoalescingEventStream<>("product", ProductStreamEvent::getProductId, ProductStreamEvent::mergeWith, bufferSize);
+        this.lowStockThreshold = lowStockThreshold;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public SseEmitter subscribe(Collection<Long> productIds) {
+        if (productIds == null || productIds.isEmpty()) {
+            return stream.subscribe(timeoutMillis, event -> true);
+        }
+        Set<Long> ids = Set.copyOf(productIds);
+        return stream.subscribe(timeoutMillis, event -> ids.contains(event.getProductId()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent change) {
+        Set<ChangeType> changes = EnumSet.noneOf(ChangeType.class);
+        StockLevel level = null;
+        if (change.deleted()) {
+            changes.add(ChangeType.DELETED);
+        } else {
+            level = stockLevel(change.stockQuantity());
+            if (change.previousPrice() == null && change.previousStockQuantity() == null) {
+                changes.add(ChangeType.CREATED);
+            }
+            if (change.previousPrice() != null && change.price() != null && change.previousPrice().compareTo(change.price()) != 0) {
+                changes.add(ChangeType.PRICE_CHANGED);
+            }
+            if (change.previousStockQuantity() != null && level != stockLevel(change.previousStockQuantity())) {
+                changes.add(ChangeType.STOCK_LEVEL_CHANGED);
+            }
+        }
+        if (changes.isEmpty()) {
+            return;
+        }
+        stream.publish(ProductStreamEvent.builder()
+                .productId(change.productId())
+                .changes(changes)
+                .price(change.price())
+                .stockQuantity(change.stockQuantity())
+                .stockLevel(level)
+                .occurredAt(Instant.now())
+                .build());
+    }
+
+    @Scheduled(fixedRateString = "${catalog.events.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        stream.heartbeat();
+    }
+
+    public CoalescingEventStream<Long, ProductStreamEvent> getStream() {
+        return stream;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        stream.close();
+    }
+
+    private StockLevel stockLevel(Integer quantity) {
+        int value = Objects.requireNonNullElse(quantity, 0);
+        if (value <= 0) {
+            return StockLevel.OUT_OF_STOCK;
+        }
+        return value <= lowStockThreshold ? StockLevel.LOW_STOCK : StockLevel.IN_STOCK;
+    }
+}
@@ -0,0 +1,19 @@
+package com.cymelle.backend.event;
+
+import java.math.BigDecimal;
+
+/**
+ * Published whenever a product row changes. Previous values are {@code null} for newly created products.
+ */
+public record ProductChangedEvent(
+        Long productId,
+        BigDecimal previousPrice,
+        BigDecimal price,
+        Integer previousStockQuantity,
+        Integer stockQuantity,
+        boolean deleted
+) {
+    public static ProductChangedEvent deleted(Long productId) {
+        return new ProductChangedEvent(productId, null, null, null, null, true);
+    }
+}
@@ -0,0 +1,80 @@
+package com.cymelle.backend.event;
+
+import com.cymelle.backend.dto.RideFeedEvent;
+import com.cymelle.backend.model.RideStatus;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Instant;
+import java.util.Collection;
+
+/**
+ * Pushes open rides to drivers by pickup zone. A ride is announced when it is requested and withdrawn
+ * once it leaves {@code REQUESTED}; if both are still queued for a subscriber only the withdrawal is sent.
+ */
+@Component
+public class RideFeed {
+
+    private final CoalescingEventStream<Long, RideFeedEvent> stream;
+    private final long timeoutMillis;
+
+    public RideFeed(
+            @Value("${rides.feed.buffer-size:128}") int bufferSize,
+            @Value("${rides.feed.timeout-ms:1800000}") long timeoutMillis
+    ) {
+        this.stream = new CoalescingEventStream<>("ride", RideFeedEvent::getRideId, (older, newer) -> newer, bufferSize);
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * @param zones geohash zones to follow; empty follows every zone
+     */
+    public SseEmitter subscribe(Collection<String> zones) {
+        return stream.subscribe(timeoutMillis, zones, event -> true);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRideStatusChanged(RideStatusChangedEvent change) {
+        RideFeedEvent.Type type;
+        if (change.status() == RideStatus.REQUESTED && change.previousStatus() == null) {
+            type = RideFeedEvent.Type.OPENED;
+        } else if (change.previousStatus() == RideStatus.REQUESTED && change.status() != RideStatus.REQUESTED) {
+            type = RideFeedEvent.Type.REMOVED;
+        } else {
+            return;
+        }
+        RideFeedEvent.RideFeedEventBuilder event = RideFeedEvent.builder()
+                .rideId(change.rideId())
+                .type(type)
+                .zone(change.pickupZone())
+                .occurredAt(Instant.now());
+        if (type == RideFeedEvent.Type.OPENED) {
+            event.pickupLocation(change.pickupLocation())
+                    .dropoffLocation(change.dropoffLocation())
+                    .pickupLatitude(change.pickupLatitude())
+                    .pickupLongitude(change.pickupLongitude())
+                    .fare(change.fare())
+                    .requestedAt(change.requestedAt());
+        }
+        // Rides without coordinates have no zone and go to every subscriber
+        stream.publish(change.pickupZone(), event.build());
+    }
+
+    @Scheduled(fixedRateString = "${rides.feed.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        stream.heartbeat();
+    }
+
+    public CoalescingEventStream<Long, RideFeedEvent> getStream() {
+        return stream;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        stream.close();
+    }
+}
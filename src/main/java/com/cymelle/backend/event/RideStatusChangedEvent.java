@@ -0,0 +1,33 @@
+package com.cymelle.backend.event;
+
+import com.cymelle.backend.model.Ride;
+import com.cymelle.backend.model.RideStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Published whenever a ride changes status. {@code previousStatus} is {@code null} for a new request, and
+ * {@code actorId} is {@code null} for changes made by the system (batch dispatch, expiry).
+ */
+public record RideStatusChangedEvent(
+        Long rideId,
+        RideStatus previousStatus,
+        RideStatus status,
+        String pickupZone,
+        String pickupLocation,
+        String dropoffLocation,
+        Double pickupLatitude,
+        Double pickupLongitude,
+        BigDecimal fare,
+        LocalDateTime requestedAt,
+        LocalDateTime acceptedAt,
+        Long actorId,
+        LocalDateTime occurredAt
+) {
+    public static RideStatusChangedEvent of(Ride ride, RideStatus previousStatus, Long actorId) {
+        return new RideStatusChangedEvent(ride.getId(), previousStatus, ride.getStatus(), ride.getPickupZone(),
+                ride.getPickupLocation(), ride.getDropoffLocation(), ride.getPickupLatitude(), ride.getPickupLongitude(),
+                ride.getFare(), ride.getRequestedAt(), ride.getAcceptedAt(), actorId, LocalDateTime.now());
+    }
+}
@@ -0,0 +1,7 @@
+package com.cymelle.backend.exception;
+
+public class RideAlreadyClaimedException extends RuntimeException {
+    public RideAlreadyClaimedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,12 @@
+package com.cymelle.backend.expiry;
+
+import com.cymelle.backend.model.RideStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * The columns of an open ride needed to schedule or apply its expiry.
+ */
+public record ExpiryCandidate(Long id, RideStatus status, String pickupZone, LocalDateTime requestedAt,
+                              LocalDateTime acceptedAt) {
+}
@@ -0,0 +1,137 @@
+package com.cymelle.backend.expiry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hashed hierarchical timing wheel. Level 0 has {@code wheelSize} buckets of {@code tickMillis}; each
+ * further level's buckets span a whole turn of the level below, so a deadline days away costs the same
+ * O(1) insert as one a second away. As time advances, the bucket a level has just reached is emptied
+ * and its entries re-inserted, dropping them to a finer level until they expire from level 0.
+ * <p>
+ * Entries fire at tick resolution: never before their deadline, at most one tick after it. There is no
+ * cancellation; callers are expected to re-check state when an entry fires. Not thread-safe; callers
+ * synchronize.
+ */
+public class HierarchicalTimingWheel<T> {
+
+    private final long tickMillis;
+    private final int wheelSize;
+    private final List<Level> levels = new ArrayList<>();
+    private int size;
+
+    public HierarchicalTimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        if (tickMillis <= 0 || wheelSize < 2) {
+            throw new IllegalArgumentException("Tick must be positive and the wheel needs at least two buckets");
+        }
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        levels.add(new Level(tickMillis, startMillis));
+    }
+
+    /**
+     * @return {@code false} if the deadline is already due, in which case nothing is scheduled
+     */
+    public boolean schedule(long deadlineMillis, T item) {
+        // Rounded up to the next tick boundary so an entry is never handed out early
+        if (!insert(new Entry<>(deadlineMillis + tickMillis - 1, item))) {
+            return false;
+        }
+        size++;
+        return true;
+    }
+
+    /**
+     * Moves the wheel to {@code nowMillis} and hands every entry due by then to {@code expired}.
+     */
+    public void advance(long nowMillis, Consumer<T> expired) {
+        if (nowMillis < levels.get(0).currentTime + tickMillis) {
+            return;
+        }
+        long[] previous = new long[levels.size()];
+        for (int i = 0; i < levels.size(); i++) {
+            Level level = levels.get(i);
+            previous[i] = level.currentTime;
+            level.currentTime = nowMillis - Math.floorMod(nowMillis, level.tick);
+        }
+        List<Entry<T>> reinsert = new ArrayList<>();
+        for (int i = previous.length - 1; i >= 0; i--) {
+            Level level = levels.get(i);
+            level.drainReached(previous[i], reinsert);
+            for (Entry<T> entry : reinsert) {
+                if (!insert(entry)) {
+                    size--;
+                    expired.accept(entry.item);
+                }
+            }
+            reinsert.clear();
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private boolean insert(Entry<T> entry) {
+        Level level0 = levels.get(0);
+        if (entry.deadline < level0.currentTime + level0.tick) {
+            return false;
+        }
+        for (int i = 0; ; i++) {
+            if (i == levels.size()) {
+                Level below = levels.get(i - 1);
+                levels.add(new Level(below.interval, level0.currentTime));
+            }
+            Level level = levels.get(i);
+            if (entry.deadline < level.currentTime + level.interval) {
+                level.bucket(entry.deadline).add(entry);
+                return true;
+            }
+        }
+    }
+
+    private record Entry<T>(long deadline, T item) {
+    }
+
+    private final class Level {
+        final long tick;
+        final long interval;
+        final List<Entry<T>>[] buckets;
+        long currentTime;
+
+        @SuppressWarnings("unchecked")
+        Level(long tick, long startMillis) {
+            this.tick = tick;
+            this.interval = tick * wheelSize;
+            this.buckets = new List[wheelSize];
+            this.currentTime = startMillis - Math.floorMod(startMillis, tick);
+        }
+
+        List<Entry<T>> bucket(long deadline) {
+            int index = (int) Math.floorMod(Math.floorDiv(deadline, tick), (long) wheelSize);
+            List<Entry<T>> bucket = buckets[index];
+            if (bucket == null) {
+                bucket = buckets[index] = new ArrayList<>();
+            }
+            return bucket;
+        }
+
+        /**
+         * Empties every bucket whose span starts in {@code (previousTime, currentTime]}; their entries no
+         * longer belong at this level.
+         */
+        void drainReached(long previousTime, List<Entry<T>> into) {
+            long steps = Math.min(wheelSize, (currentTime - previousTime) / tick);
+            for (long step = 0; step < steps; step++) {
+                long start = currentTime - step * tick;
+                int index = (int) Math.floorMod(Math.floorDiv(start, tick), (long) wheelSize);
+                List<Entry<T>> bucket = buckets[index];
+                if (bucket != null && !bucket.isEmpty()) {
+                    into.addAll(bucket);
+                    bucket.clear();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.cymelle.backend.expiry;
+
+import com.cymelle.backend.event.RideStatusChangedEvent;
+import com.cymelle.backend.model.RideStatus;
+import com.cymelle.backend.repository.RideRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cancels rides nobody claims within the request timeout and flags accepted rides that have not finished
+ * within the stall timeout. Deadlines live in a timing wheel fed by ride events and rebuilt from the open
+ * rides on startup, so no table is ever scanned for due rides. Due rides are applied in batched
+ * conditional updates; a ride that moved on in the meantime simply does not match.
+ */
+@Slf4j
+@Component
+public class RideExpiryScheduler {
+
+    enum Kind {REQUEST_TIMEOUT, ACCEPTED_STALL}
+
+    record Expiry(long rideId, Kind kind) {
+    }
+
+    private final RideRepository rideRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final Clock clock;
+    private final boolean enabled;
+    private final Duration requestTimeout;
+    private final Duration stallTimeout;
+    private final int batchSize;
+    private final HierarchicalTimingWheel<Expiry> wheel;
+
+    @Autowired
+    public RideExpiryScheduler(
+            RideRepository rideRepository,
+            ApplicationEventPublisher eventPublisher,
+            PlatformTransactionManager transactionManager,
+            @Value("${rides.expiry.enabled:true}") boolean enabled,
+            @Value("${rides.expiry.requested-timeout:PT15M}") Duration requestTimeout,
+            @Value("${rides.expiry.accepted-stall-timeout:PT2H}") Duration stallTimeout,
+            @Value("${rides.expiry.tick-ms:1000}") long tickMillis,
+            @Value("${rides.expiry.wheel-size:64}") int wheelSize,
+            @Value("${rides.expiry.batch-size:500}") int batchSize
+    ) {
+        this(rideRepository, eventPublisher, transactionManager, Clock.systemDefaultZone(), enabled, requestTimeout,
+                stallTimeout, tickMillis, wheelSize, batchSize);
+    }
+
+    RideExpiryScheduler(RideRepository rideRepository, ApplicationEventPublisher eventPublisher,
+                        PlatformTransactionManager transactionManager, Clock clock, boolean enabled,
+                        Duration requestTimeout, Duration stallTimeout, long tickMillis, int wheelSize, int batchSize) {
+        this.rideRepository = rideRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.clock = clock;
+        this.enabled = enabled;
+        this.requestTimeout = requestTimeout;
+        this.stallTimeout = stallTimeout;
+        this.batchSize = batchSize;
+        this.wheel = new HierarchicalTimingWheel<>(tickMillis, wheelSize, clock.millis());
+    }
+
+    /**
+     * Loads every open ride's deadline. Rides that fell due while the application was down are applied
+     * straight away.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        List<Expiry> due = new ArrayList<>();
+        List<ExpiryCandidate> candidates = rideRepository.findExpiryCandidates();
+        synchronized (wheel) {
+            for (ExpiryCandidate ride : candidates) {
+                Expiry expiry = ride.status() == RideStatus.REQUESTED
+                        ? new Expiry(ride.id(), Kind.REQUEST_TIMEOUT)
+                        : new Expiry(ride.id(), Kind.ACCEPTED_STALL);
+                LocalDateTime start = ride.status() == RideStatus.REQUESTED ? ride.requestedAt() : ride.acceptedAt();
+                if (start != null && !wheel.schedule(deadline(start, expiry.kind()), expiry)) {
+                    due.add(expiry);
+                }
+            }
+        }
+        log.info("Scheduled expiry for {} open rides, {} already due", candidates.size() - due.size(), due.size());
+        apply(due);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRideStatusChanged(RideStatusChangedEvent change) {
+        if (!enabled) {
+            return;
+        }
+        Expiry expiry;
+        LocalDateTime start;
+        if (change.previousStatus() == null && change.status() == RideStatus.REQUESTED) {
+            expiry = new Expiry(change.rideId(), Kind.REQUEST_TIMEOUT);
+            start = change.requestedAt() != null ? change.requestedAt() : LocalDateTime.now(clock);
+        } else if (change.status() == RideStatus.ACCEPTED && change.previousStatus() == RideStatus.REQUESTED) {
+            expiry = new Expiry(change.rideId(), Kind.ACCEPTED_STALL);
+            start = LocalDateTime.now(clock);
+        } else {
+            return;
+        }
+        boolean scheduled;
+        synchronized (wheel) {
+            scheduled = wheel.schedule(deadline(start, expiry.kind()), expiry);
+        }
+        if (!scheduled) {
+            apply(List.of(expiry));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${rides.expiry.tick-ms:1000}")
+    public void tick() {
+        if (!enabled) {
+            return;
+        }
+        List<Expiry> due = new ArrayList<>();
+        synchronized (wheel) {
+            wheel.advance(clock.millis(), due::add);
+        }
+        apply(due);
+    }
+
+    public int getScheduledCount() {
+        synchronized (wheel) {
+            return wheel.size();
+        }
+    }
+
+    private void apply(List<Expiry> due) {
+        if (due.isEmpty()) {
+            return;
+        }
+        List<Long> requests = new ArrayList<>();
+        List<Long> stalls = new ArrayList<>();
+        for (Expiry expiry : due) {
+            (expiry.kind() == Kind.REQUEST_TIMEOUT ? requests : stalls).add(expiry.rideId());
+        }
+        LocalDateTime now = LocalDateTime.now(clock);
+        int cancelled = 0;
+        int stalled = 0;
+        for (int from = 0; from < requests.size(); from += batchSize) {
+            cancelled += cancelExpired(requests.subList(from, Math.min(requests.size(), from + batchSize)), now.minus(requestTimeout));
+        }
+        for (int from = 0; from < stalls.size(); from += batchSize) {
+            List<Long> batch = stalls.subList(from, Math.min(stalls.size(), from + batchSize));
+            LocalDateTime cutoff = now.minus(stallTimeout);
+            stalled += transactionTemplate.execute(status -> rideRepository.flagStalled(batch, cutoff));
+        }
+        if (cancelled > 0 || stalled > 0) {
+            log.info("Expired {} unclaimed rides and flagged {} stalled rides", cancelled, stalled);
+        }
+    }
+
+    /**
+     * Publishes a cancellation for each due ride so the ride feed withdraws it; events are delivered after
+     * commit.
+     */
+    private int cancelExpired(List<Long> ids, LocalDateTime cutoff) {
+        return transactionTemplate.execute(status -> {
+            List<ExpiryCandidate> expired = rideRepository.findExpiredRequests(ids, cutoff);
+            if (expired.isEmpty()) {
+                return 0;
+            }
+            int updated = rideRepository.cancelExpired(expired.stream().map(ExpiryCandidate::id).toList(), cutoff);
+            for (ExpiryCandidate ride : expired) {
+                eventPublisher.publishEvent(new RideStatusChangedEvent(ride.id(), RideStatus.REQUESTED,
+                        RideStatus.CANCELLED, ride.pickupZone(), null, null, null, null, null, ride.requestedAt(), null,
+                        null, LocalDateTime.now(clock)));
+            }
+            return updated;
+        });
+    }
+
+    private long deadline(LocalDateTime start, Kind kind) {
+        Duration timeout = kind == Kind.REQUEST_TIMEOUT ? requestTimeout : stallTimeout;
+        // Plus a millisecond, as the timestamps carry sub-millisecond precision the conditional update compares
+        return start.plus(timeout).atZone(clock.getZone()).toInstant().toEpochMilli() + 1;
+    }
+}
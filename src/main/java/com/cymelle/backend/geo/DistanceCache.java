@@ -0,0 +1,58 @@
+package com.cymelle.backend.geo;
+
+import com.cymelle.backend.cache.BoundedLruCache;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Memoized trip distances. Origin and destination are snapped to cells of {@code cell-degrees} (0.001°
+ * is about 110 m) and the distance between the cell centres is cached per cell pair, so repeat trips
+ * between the same places cost one hash lookup. The answer is within about one cell size of the exact
+ * figure.
+ */
+@Component
+public class DistanceCache {
+
+    private final DistanceProvider provider;
+    private final double cellDegrees;
+    private final BoundedLruCache<CellPair, Double> cache;
+
+    @Autowired
+    public DistanceCache(
+            ObjectProvider<DistanceProvider> provider,
+            @Value("${geo.distance-cache.cell-degrees:0.001}") double cellDegrees,
+            @Value("${geo.distance-cache.max-entries:50000}") int maxEntries
+    ) {
+        this(provider.getIfAvailable(() -> GeoPoint::distanceMeters), cellDegrees, maxEntries);
+    }
+
+    public DistanceCache(DistanceProvider provider, double cellDegrees, int maxEntries) {
+        this.provider = provider;
+        this.cellDegrees = cellDegrees;
+        this.cache = new BoundedLruCache<>(maxEntries);
+    }
+
+    public double distanceMeters(double fromLatitude, double fromLongitude, double toLatitude, double toLongitude) {
+        CellPair key = new CellPair(cell(fromLatitude), cell(fromLongitude), cell(toLatitude), cell(toLongitude));
+        return cache.computeIfAbsent(key, pair -> provider.distanceMeters(
+                new GeoPoint(center(pair.fromLat()), center(pair.fromLon())),
+                new GeoPoint(center(pair.toLat()), center(pair.toLon()))));
+    }
+
+    public BoundedLruCache<CellPair, Double> getCache() {
+        return cache;
+    }
+
+    private int cell(double degrees) {
+        return (int) Math.floor(degrees / cellDegrees);
+    }
+
+    private double center(int cell) {
+        return (cell + 0.5) * cellDegrees;
+    }
+
+    public record CellPair(int fromLat, int fromLon, int toLat, int toLon) {
+    }
+}
@@ -0,0 +1,11 @@
+package com.cymelle.backend.geo;
+
+/**
+ * Point-to-point trip distance, e.g. from a routing service. Without one, {@link DistanceCache} uses the
+ * great-circle distance.
+ */
+@FunctionalInterface
+public interface DistanceProvider {
+
+    double distanceMeters(GeoPoint from, GeoPoint to);
+}
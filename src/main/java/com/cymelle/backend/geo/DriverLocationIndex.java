@@ -0,0 +1,342 @@
+package com.cymelle.backend.geo;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongPredicate;
+
+/**
+ * Uniform lat/lon grid of available drivers. Nearest-K searches walk rings of cells outwards from the
+ * pickup and stop once no unvisited cell can hold anything closer than the current K-th candidate, so
+ * the cost depends on local driver density rather than on how many drivers are online.
+ * <p>
+ * Latest positions live in parallel primitive arrays indexed by a per-driver slot, and cells hold slots
+ * rather than driver ids. A position update that stays within its cell is a few array stores; only
+ * cell changes touch the grid. Writes are serialised on one lock, taken once per batch, while searches
+ * read the arrays without locking and may see a position that is a moment old.
+ * <p>
+ * The index also keeps a count of available drivers per geohash zone, which is the supply side of
+ * surge pricing.
+ * <p>
+ * A driver on a trip is busy until the trip ends ({@link #setAvailable}); location updates never make them
+ * available again, whatever they report.
+ */
+@Component
+public class DriverLocationIndex {
+
+    private static final double METERS_PER_DEGREE = Math.PI * GeoPoint.EARTH_RADIUS_METERS / 180.0;
+    private static final byte OFFLINE = 0;
+    private static final byte UNAVAILABLE = 1;
+    private static final byte BUSY = 2;
+    private static final byte AVAILABLE = 3;
+
+    private final double cellDegrees;
+    private final int maxRings;
+    private final Map<Long, Set<Integer>> cells = new ConcurrentHashMap<>();
+    private final Map<Long, AtomicInteger> availableByZone = new ConcurrentHashMap<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final LongIntHashMap slotsByDriver = new LongIntHashMap(1024);
+    private final Set<Long> driversOnTrip = new HashSet<>();
+    private volatile Slots slots = new Slots(1024);
+    private int slotCount;
+    private int onlineCount;
+
+    public DriverLocationIndex(
+            @Value("${dispatch.index.cell-degrees:0.01}") double cellDegrees,
+            @Value("${dispatch.index.max-search-radius-meters:20000}") double maxSearchRadiusMeters
+    ) {
+        this.cellDegrees = cellDegrees;
+        this.maxRings = (int) Math.ceil(maxSearchRadiusMeters / (cellDegrees * METERS_PER_DEGREE)) + 1;
+    }
+
+    /**
+     * @param available what the driver reports, or {@code null} to keep their current availability
+     */
+    public void update(long driverId, double latitude, double longitude, Boolean available, long timestampMillis) {
+        writeLock.lock();
+        try {
+            apply(driverId, latitude, longitude, available, timestampMillis);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Applies every sample in the batch under a single lock acquisition. Samples older than the position
+     * already held for a driver are ignored so that out-of-order batches cannot move a driver backwards.
+     *
+     * @return the number of samples that changed a position
+     */
+    public int updateAll(LocationBatch batch) {
+        int applied = 0;
+        writeLock.lock();
+        try {
+            for (int i = 0; i < batch.size(); i++) {
+                if (apply(batch.driverId(i), batch.latitude(i), batch.longitude(i), batch.available(i), batch.timestamp(i))) {
+                    applied++;
+                }
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        return applied;
+    }
+
+    /**
+     * Marks a driver busy when a ride is claimed for them ({@code false}) and available again when it
+     * completes or is cancelled ({@code true}). This holds while the driver is offline too.
+     */
+    public void setAvailable(long driverId, boolean available) {
+        writeLock.lock();
+        try {
+            if (available) {
+                driversOnTrip.remove(driverId);
+            } else {
+                driversOnTrip.add(driverId);
+            }
+            int slot = slotsByDriver.get(driverId);
+            if (slot >= 0 && slots.states[slot] != OFFLINE) {
+                move(slot, slots.cells[slot], slots.zones[slot], available ? AVAILABLE : BUSY);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public void remove(long driverId) {
+        writeLock.lock();
+        try {
+            int slot = slotsByDriver.get(driverId);
+            if (slot >= 0 && slots.states[slot] != OFFLINE) {
+                move(slot, slots.cells[slot], slots.zones[slot], OFFLINE);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public DriverPosition get(long driverId) {
+        writeLock.lock();
+        try {
+            int slot = slotsByDriver.get(driverId);
+            if (slot < 0 || slots.states[slot] == OFFLINE) {
+                return null;
+            }
+            Slots current = slots;
+            return new DriverPosition(driverId, current.latitudes[slot], current.longitudes[slot], current.cells[slot],
+                    current.states[slot] == AVAILABLE, current.timestamps[slot]);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public int size() {
+        return onlineCount;
+    }
+
+    /**
+     * Available drivers currently in the given zones (see {@link Geohash#zoneBits}).
+     */
+    public int availableIn(long... zones) {
+        int total = 0;
+        for (long zone : zones) {
+            AtomicInteger count = availableByZone.get(zone);
+            if (count != null) {
+                total += count.get();
+            }
+        }
+        return total;
+    }
+
+    public List<DriverDistance> nearest(double latitude, double longitude, int k, LongPredicate eligible) {
+        if (k <= 0) {
+            return List.of();
+        }
+        PriorityQueue<DriverDistance> best = new PriorityQueue<>(k, Comparator.comparingDouble(DriverDistance::distanceMeters).reversed());
+        Slots snapshot = slots;
+        int latIndex = index(latitude);
+        int lonIndex = index(longitude);
+        double lonScale = Math.max(0.01, Math.cos(Math.toRadians(Math.min(89.0, Math.abs(latitude) + cellDegrees))));
+        double cellMeters = cellDegrees * METERS_PER_DEGREE * Math.min(1.0, lonScale);
+
+        for (int ring = 0; ring <= maxRings; ring++) {
+            for (int dLat = -ring; dLat <= ring; dLat++) {
+                boolean edgeRow = Math.abs(dLat) == ring;
+                for (int dLon = -ring; dLon <= ring; dLon += edgeRow ? 1 : 2 * ring) {
+                    scanCell(snapshot, pack(latIndex + dLat, lonIndex + dLon), latitude, longitude, k, eligible, best);
+                    if (ring == 0) {
+                        break;
+                    }
+                }
+            }
+            // Anything in ring + 1 is at least ring full cells away from the query point
+            if (best.size() == k && best.peek().distanceMeters() <= ring * cellMeters) {
+                break;
+            }
+        }
+        List<DriverDistance> result = new ArrayList<>(best);
+        result.sort(Comparator.comparingDouble(DriverDistance::distanceMeters));
+        return result;
+    }
+
+    private boolean apply(long driverId, double latitude, double longitude, Boolean available, long timestampMillis) {
+        int slot = slotsByDriver.get(driverId);
+        if (slot < 0) {
+            slot = allocateSlot(driverId);
+        } else if (slots.states[slot] != OFFLINE && timestampMillis < slots.timestamps[slot]) {
+            return false;
+        }
+        Slots current = slots;
+        current.latitudes[slot] = latitude;
+        current.longitudes[slot] = longitude;
+        current.timestamps[slot] = timestampMillis;
+        move(slot, cellKey(latitude, longitude), Geohash.zoneBits(latitude, longitude), nextState(driverId, current.states[slot], available));
+        return true;
+    }
+
+    private byte nextState(long driverId, byte current, Boolean available) {
+        if (driversOnTrip.contains(driverId)) {
+            return BUSY;
+        }
+        if (available != null) {
+            return available ? AVAILABLE : UNAVAILABLE;
+        }
+        return current == OFFLINE || current == BUSY ? AVAILABLE : current;
+    }
+
+    /**
+     * Moves a slot to a new cell, zone and state, keeping grid membership and zone counts in step. Only
+     * available drivers are members of a cell or counted in a zone.
+     */
+    private void move(int slot, long newCell, long newZone, byte newState) {
+        Slots current = slots;
+        byte oldState = current.states[slot];
+        long oldCell = current.cells[slot];
+        long oldZone = current.zones[slot];
+        boolean wasIndexed = oldState == AVAILABLE;
+        boolean indexed = newState == AVAILABLE;
+        if (wasIndexed && (!indexed || oldCell != newCell)) {
+            removeFromCell(oldCell, slot);
+        }
+        if (wasIndexed && (!indexed || oldZone != newZone)) {
+            availableByZone.get(oldZone).decrementAndGet();
+        }
+        current.cells[slot] = newCell;
+        current.zones[slot] = newZone;
+        current.states[slot] = newState;
+        if (indexed && (!wasIndexed || oldCell != newCell)) {
+            cells.computeIfAbsent(newCell, key -> ConcurrentHashMap.newKeySet()).add(slot);
+        }
+        if (indexed && (!wasIndexed || oldZone != newZone)) {
+            availableByZone.computeIfAbsent(newZone, key -> new AtomicInteger()).incrementAndGet();
+        }
+        if (oldState == OFFLINE && newState != OFFLINE) {
+            onlineCount++;
+        } else if (oldState != OFFLINE && newState == OFFLINE) {
+            onlineCount--;
+        }
+    }
+
+    private int allocateSlot(long driverId) {
+        if (slotCount == slots.driverIds.length) {
+            slots = slots.grow(slotCount << 1);
+        }
+        int slot = slotCount++;
+        slots.driverIds[slot] = driverId;
+        slotsByDriver.put(driverId, slot);
+        return slot;
+    }
+
+    private void scanCell(Slots snapshot, long cell, double latitude, double longitude, int k, LongPredicate eligible,
+                          PriorityQueue<DriverDistance> best) {
+        Set<Integer> members = cells.get(cell);
+        if (members == null) {
+            return;
+        }
+        for (int slot : members) {
+            // A slot allocated after the snapshot was taken is only visible in the newer arrays
+            Slots view = slot < snapshot.driverIds.length ? snapshot : slots;
+            long driverId = view.driverIds[slot];
+            if (view.states[slot] != AVAILABLE || !eligible.test(driverId)) {
+                continue;
+            }
+            double driverLatitude = view.latitudes[slot];
+            double driverLongitude = view.longitudes[slot];
+            double distance = GeoPoint.distanceMeters(latitude, longitude, driverLatitude, driverLongitude);
+            if (best.size() < k) {
+                best.add(new DriverDistance(driverId, driverLatitude, driverLongitude, distance));
+            } else if (distance < best.peek().distanceMeters()) {
+                best.poll();
+                best.add(new DriverDistance(driverId, driverLatitude, driverLongitude, distance));
+            }
+        }
+    }
+
+    private void removeFromCell(long cell, int slot) {
+        cells.computeIfPresent(cell, (key, members) -> {
+            members.remove(slot);
+            return members.isEmpty() ? null : members;
+        });
+    }
+
+    private long cellKey(double latitude, double longitude) {
+        return pack(index(latitude), index(longitude));
+    }
+
+    private int index(double degrees) {
+        return (int) Math.floor(degrees / cellDegrees);
+    }
+
+    private static long pack(int latIndex, int lonIndex) {
+        return ((long) latIndex << 32) | (lonIndex & 0xFFFFFFFFL);
+    }
+
+    private static final class Slots {
+        final long[] driverIds;
+        final double[] latitudes;
+        final double[] longitudes;
+        final long[] timestamps;
+        final long[] cells;
+        final long[] zones;
+        final byte[] states;
+
+        Slots(int capacity) {
+            this(new long[capacity], new double[capacity], new double[capacity], new long[capacity], new long[capacity],
+                    new long[capacity], new byte[capacity]);
+        }
+
+        private Slots(long[] driverIds, double[] latitudes, double[] longitudes, long[] timestamps, long[] cells, long[] zones,
+                      byte[] states) {
+            this.driverIds = driverIds;
+            this.latitudes = latitudes;
+            this.longitudes = longitudes;
+            this.timestamps = timestamps;
+            this.cells = cells;
+            this.zones = zones;
+            this.states = states;
+        }
+
+        Slots grow(int capacity) {
+            return new Slots(Arrays.copyOf(driverIds, capacity), Arrays.copyOf(latitudes, capacity), Arrays.copyOf(longitudes, capacity),
+                    Arrays.copyOf(timestamps, capacity), Arrays.copyOf(cells, capacity), Arrays.copyOf(zones, capacity),
+                    Arrays.copyOf(states, capacity));
+        }
+    }
+
+    public record DriverPosition(long driverId, double latitude, double longitude, long cell, boolean available, long timestampMillis) {
+    }
+
+    public record DriverDistance(long driverId, double latitude, double longitude, double distanceMeters) {
+    }
+}
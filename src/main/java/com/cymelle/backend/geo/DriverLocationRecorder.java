@@ -0,0 +1,185 @@
+package com.cymelle.backend.geo;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Buffers driver position samples and writes them to {@code driver_location_samples} in periodic JDBC
+ * batches. At most one sample per driver is kept per {@code dispatch.locations.sample-interval-ms}, and
+ * when the buffer is full new samples are dropped rather than blocking ingestion. Each chunk of
+ * {@code dispatch.locations.flush-batch-size} samples is written in its own transaction, so a failed write
+ * drops that chunk alone.
+ */
+@Slf4j
+@Component
+public class DriverLocationRecorder {
+
+    private static final String INSERT =
+            "INSERT INTO driver_location_samples (driver_id, latitude, longitude, recorded_at) VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final long sampleIntervalMillis;
+    private final int flushBatchSize;
+    private final ReentrantLock bufferLock = new ReentrantLock();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final LongIntHashMap slotsByDriver = new LongIntHashMap(1024);
+    private long[] lastRecordedAt = new long[1024];
+    private SampleBuffer active;
+    private SampleBuffer flushing;
+    private final LongAdder recorded = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder written = new LongAdder();
+
+    public DriverLocationRecorder(
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            @Value("${dispatch.locations.sample-interval-ms:30000}") long sampleIntervalMillis,
+            @Value("${dispatch.locations.buffer-size:65536}") int bufferSize,
+            @Value("${dispatch.locations.flush-batch-size:1000}") int flushBatchSize
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.sampleIntervalMillis = sampleIntervalMillis;
+        this.flushBatchSize = flushBatchSize;
+        this.active = new SampleBuffer(bufferSize);
+        this.flushing = new SampleBuffer(bufferSize);
+    }
+
+    public void record(LocationBatch batch) {
+        bufferLock.lock();
+        try {
+            for (int i = 0; i < batch.size(); i++) {
+                long driverId = batch.driverId(i);
+                long timestamp = batch.timestamp(i);
+                int slot = slotsByDriver.get(driverId);
+                if (slot < 0) {
+                    slot = slotsByDriver.size();
+                    slotsByDriver.put(driverId, slot);
+                    if (slot == lastRecordedAt.length) {
+                        lastRecordedAt = Arrays.copyOf(lastRecordedAt, slot << 1);
+                    }
+                    lastRecordedAt[slot] = Long.MIN_VALUE;
+                } else if (lastRecordedAt[slot] != Long.MIN_VALUE && timestamp - lastRecordedAt[slot] < sampleIntervalMillis) {
+                    continue;
+                }
+                if (!active.add(driverId, batch.latitude(i), batch.longitude(i), timestamp)) {
+                    dropped.increment();
+                    continue;
+                }
+                lastRecordedAt[slot] = timestamp;
+                recorded.increment();
+            }
+        } finally {
+            bufferLock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${dispatch.locations.flush-interval-ms:5000}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            bufferLock.lock();
+            try {
+                SampleBuffer full = active;
+                active = flushing;
+                flushing = full;
+            } finally {
+                bufferLock.unlock();
+            }
+            SampleBuffer buffer = flushing;
+            try {
+                for (int offset = 0; offset < buffer.size; offset += flushBatchSize) {
+                    int count = Math.min(flushBatchSize, buffer.size - offset);
+                    try {
+                        int chunk = offset;
+                        transactionTemplate.executeWithoutResult(status -> write(buffer, chunk, count));
+                        written.add(count);
+                    } catch (RuntimeException e) {
+                        log.warn("Dropping {} driver location samples after a failed write", count, e);
+                        dropped.add(count);
+                    }
+                }
+            } finally {
+                buffer.size = 0;
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private void write(SampleBuffer buffer, int offset, int count) {
+        jdbcTemplate.batchUpdate(INSERT, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                int index = offset + i;
+                ps.setLong(1, buffer.driverIds[index]);
+                ps.setDouble(2, buffer.latitudes[index]);
+                ps.setDouble(3, buffer.longitudes[index]);
+                ps.setTimestamp(4, new Timestamp(buffer.timestamps[index]));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return count;
+            }
+        });
+    }
+
+    public long getRecordedCount() {
+        return recorded.sum();
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public long getWrittenCount() {
+        return written.sum();
+    }
+
+    private static final class SampleBuffer {
+        final long[] driverIds;
+        final double[] latitudes;
+        final double[] longitudes;
+        final long[] timestamps;
+        int size;
+
+        SampleBuffer(int capacity) {
+            driverIds = new long[capacity];
+            latitudes = new double[capacity];
+            longitudes = new double[capacity];
+            timestamps = new long[capacity];
+        }
+
+        boolean add(long driverId, double latitude, double longitude, long timestamp) {
+            if (size == driverIds.length) {
+                return false;
+            }
+            driverIds[size] = driverId;
+            latitudes[size] = latitude;
+            longitudes[size] = longitude;
+            timestamps[size] = timestamp;
+            size++;
+            return true;
+        }
+    }
+}
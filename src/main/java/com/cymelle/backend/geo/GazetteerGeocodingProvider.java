@@ -0,0 +1,65 @@
+package com.cymelle.backend.geo;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Local place-name lookup from a gazetteer file of {@code latitude,longitude,name} lines; the name is
+ * everything after the second comma, so it may contain commas itself. Lines starting with {@code #} are
+ * comments. Stands in for an external geocoder.
+ */
+@Slf4j
+@Component
+public class GazetteerGeocodingProvider implements GeocodingProvider {
+
+    private final Map<String, GeoPoint> places;
+
+    public GazetteerGeocodingProvider(@Value("${geo.gazetteer.location:classpath:geo/gazetteer.csv}") Resource gazetteer) {
+        this.places = load(gazetteer);
+        log.info("Loaded {} gazetteer entries from {}", places.size(), gazetteer.getDescription());
+    }
+
+    @Override
+    public Optional<GeoPoint> geocode(String normalizedLocation) {
+        return Optional.ofNullable(places.get(normalizedLocation));
+    }
+
+    private static Map<String, GeoPoint> load(Resource gazetteer) {
+        Map<String, GeoPoint> places = new HashMap<>();
+        if (!gazetteer.exists()) {
+            return places;
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(gazetteer.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                int first = line.indexOf(',');
+                int second = first < 0 ? -1 : line.indexOf(',', first + 1);
+                if (second < 0) {
+                    throw new IllegalStateException("Malformed gazetteer line " + lineNumber + ": " + line);
+                }
+                GeoPoint point = new GeoPoint(Double.parseDouble(line.substring(0, first).trim()),
+                        Double.parseDouble(line.substring(first + 1, second).trim()));
+                places.put(LocationResolver.normalize(line.substring(second + 1)), point);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read gazetteer " + gazetteer.getDescription(), e);
+        }
+        return places;
+    }
+}
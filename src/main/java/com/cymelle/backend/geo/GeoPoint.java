@@ -0,0 +1,25 @@
+package com.cymelle.backend.geo;
+
+public record GeoPoint(double latitude, double longitude) {
+
+    public static final double EARTH_RADIUS_METERS = 6_371_008.8;
+
+    public double distanceMeters(GeoPoint other) {
+        return distanceMeters(latitude, longitude, other.latitude, other.longitude);
+    }
+
+    public static double distanceMeters(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+
+    public static GeoPoint ofNullable(Double latitude, Double longitude) {
+        if (latitude == null || longitude == null) {
+            return null;
+        }
+        return new GeoPoint(latitude, longitude);
+    }
+}
@@ -0,0 +1,12 @@
+package com.cymelle.backend.geo;
+
+import java.util.Optional;
+
+/**
+ * Turns a normalized place name into coordinates. Implementations may be slow or remote;
+ * {@link LocationResolver} caches their answers, including misses.
+ */
+public interface GeocodingProvider {
+
+    Optional<GeoPoint> geocode(String normalizedLocation);
+}
@@ -0,0 +1,179 @@
+package com.cymelle.backend.geo;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Base-32 geohash encoding. Rides and drivers are bucketed into zones by the geohash of their position
+ * at {@link #ZONE_PRECISION} characters, roughly 4.9 km by 4.9 km at the equator. Hot paths use the
+ * interleaved bits of a zone ({@link #zoneBits}) rather than its string form.
+ */
+public final class Geohash {
+
+    public static final int ZONE_PRECISION = 5;
+
+    private static final int ZONE_BITS = ZONE_PRECISION * 5;
+    private static final char[] BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+    private static final int[] DECODE = new int[128];
+
+    static {
+        Arrays.fill(DECODE, -1);
+        for (int i = 0; i < BASE32.length; i++) {
+            DECODE[BASE32[i]] = i;
+        }
+    }
+
+    private Geohash() {
+    }
+
+    public static String zoneOf(double latitude, double longitude) {
+        return encode(latitude, longitude, ZONE_PRECISION);
+    }
+
+    public static long zoneBits(double latitude, double longitude) {
+        return encodeBits(latitude, longitude, ZONE_BITS);
+    }
+
+    public static long zoneBits(String zone) {
+        long bits = 0;
+        for (int i = 0; i < zone.length(); i++) {
+            bits = (bits << 5) | DECODE[zone.charAt(i)];
+        }
+        return bits;
+    }
+
+    public static String zoneName(long zoneBits) {
+        return toBase32(zoneBits, ZONE_PRECISION);
+    }
+
+    public static String encode(double latitude, double longitude, int precision) {
+        return toBase32(encodeBits(latitude, longitude, precision * 5), precision);
+    }
+
+    /**
+     * The cell itself plus its eight neighbours, so a subscriber near a cell edge still sees pickups just
+     * across it.
+     */
+    public static Set<String> withNeighbours(String geohash) {
+        int precision = geohash.length();
+        long[] cells = withNeighbours(zoneBits(geohash), precision * 5);
+        Set<String> names = new LinkedHashSet<>();
+        for (long cell : cells) {
+            names.add(toBase32(cell, precision));
+        }
+        return names;
+    }
+
+    /**
+     * Zone bits of the zone and its neighbours, the zone first. Near the poles fewer than nine are
+     * returned.
+     */
+    public static long[] zoneWithNeighbours(long zoneBits) {
+        return withNeighbours(zoneBits, ZONE_BITS);
+    }
+
+    public static boolean isValid(String geohash) {
+        if (geohash == null || geohash.isEmpty() || geohash.length() > 12) {
+            return false;
+        }
+        for (int i = 0; i < geohash.length(); i++) {
+            char c = geohash.charAt(i);
+            if (c >= DECODE.length || DECODE[c] < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long[] withNeighbours(long bits, int bitCount) {
+        double[] box = bounds(bits, bitCount);
+        double height = box[1] - box[0];
+        double width = box[3] - box[2];
+        double centerLat = (box[0] + box[1]) / 2;
+        double centerLon = (box[2] + box[3]) / 2;
+        long[] cells = new long[9];
+        int count = 0;
+        cells[count++] = bits;
+        for (int dLat = -1; dLat <= 1; dLat++) {
+            double latitude = centerLat + dLat * height;
+            if (latitude < -90 || latitude > 90) {
+                continue;
+            }
+            for (int dLon = -1; dLon <= 1; dLon++) {
+                if (dLat == 0 && dLon == 0) {
+                    continue;
+                }
+                double longitude = centerLon + dLon * width;
+                if (longitude >= 180) {
+                    longitude -= 360;
+                } else if (longitude < -180) {
+                    longitude += 360;
+                }
+                cells[count++] = encodeBits(latitude, longitude, bitCount);
+            }
+        }
+        return count == cells.length ? cells : Arrays.copyOf(cells, count);
+    }
+
+    private static long encodeBits(double latitude, double longitude, int bitCount) {
+        double minLat = -90, maxLat = 90, minLon = -180, maxLon = 180;
+        long bits = 0;
+        for (int i = 0; i < bitCount; i++) {
+            bits <<= 1;
+            if ((i & 1) == 0) {
+                double mid = (minLon + maxLon) / 2;
+                if (longitude >= mid) {
+                    bits |= 1;
+                    minLon = mid;
+                } else {
+                    maxLon = mid;
+                }
+            } else {
+                double mid = (minLat + maxLat) / 2;
+                if (latitude >= mid) {
+                    bits |= 1;
+                    minLat = mid;
+                } else {
+                    maxLat = mid;
+                }
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * @return {@code {minLat, maxLat, minLon, maxLon}}
+     */
+    private static double[] bounds(long bits, int bitCount) {
+        double minLat = -90, maxLat = 90, minLon = -180, maxLon = 180;
+        for (int i = 0; i < bitCount; i++) {
+            boolean set = ((bits >>> (bitCount - 1 - i)) & 1) == 1;
+            if ((i & 1) == 0) {
+                double mid = (minLon + maxLon) / 2;
+                if (set) {
+                    minLon = mid;
+                } else {
+                    maxLon = mid;
+                }
+            } else {
+                double mid = (minLat + maxLat) / 2;
+                if (set) {
+                    minLat = mid;
+                } else {
+                    maxLat = mid;
+                }
+            }
+        }
+        return new double[]{minLat, maxLat, minLon, maxLon};
+    }
+
+    private static String toBase32(long bits, int precision) {
+        char[] hash = new char[precision];
+        for (int i = precision - 1; i >= 0; i--) {
+            hash[i] = BASE32[(int) (bits & 31)];
+            bits >>>= 5;
+        }
+        return new String(hash);
+    }
+}
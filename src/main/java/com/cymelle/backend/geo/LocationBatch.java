@@ -0,0 +1,79 @@
+package com.cymelle.backend.geo;
+
+import java.util.Arrays;
+
+/**
+ * Column-oriented batch of driver position samples, so a batch of N updates is a handful of arrays
+ * rather than N objects. A sample's availability is optional: {@code null} leaves it unchanged.
+ */
+public final class LocationBatch {
+
+    private static final byte UNCHANGED = 0;
+    private static final byte UNAVAILABLE = 1;
+    private static final byte AVAILABLE = 2;
+
+    private long[] driverIds;
+    private double[] latitudes;
+    private double[] longitudes;
+    private long[] timestamps;
+    private byte[] available;
+    private int size;
+
+    public LocationBatch(int initialCapacity) {
+        int capacity = Math.max(1, initialCapacity);
+        driverIds = new long[capacity];
+        latitudes = new double[capacity];
+        longitudes = new double[capacity];
+        timestamps = new long[capacity];
+        available = new byte[capacity];
+    }
+
+    public void add(long driverId, double latitude, double longitude, long timestampMillis, Boolean isAvailable) {
+        if (size == driverIds.length) {
+            int capacity = size << 1;
+            driverIds = Arrays.copyOf(driverIds, capacity);
+            latitudes = Arrays.copyOf(latitudes, capacity);
+            longitudes = Arrays.copyOf(longitudes, capacity);
+            timestamps = Arrays.copyOf(timestamps, capacity);
+            available = Arrays.copyOf(available, capacity);
+        }
+        driverIds[size] = driverId;
+        latitudes[size] = latitude;
+        longitudes[size] = longitude;
+        timestamps[size] = timestampMillis;
+        available[size] = isAvailable == null ? UNCHANGED : isAvailable ? AVAILABLE : UNAVAILABLE;
+        size++;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long driverId(int i) {
+        return driverIds[i];
+    }
+
+    public double latitude(int i) {
+        return latitudes[i];
+    }
+
+    public double longitude(int i) {
+        return longitudes[i];
+    }
+
+    public long timestamp(int i) {
+        return timestamps[i];
+    }
+
+    public Boolean available(int i) {
+        return switch (available[i]) {
+            case AVAILABLE -> Boolean.TRUE;
+            case UNAVAILABLE -> Boolean.FALSE;
+            default -> null;
+        };
+    }
+}
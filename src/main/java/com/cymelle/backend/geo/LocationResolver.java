@@ -0,0 +1,62 @@
+package com.cymelle.backend.geo;
+
+import com.cymelle.backend.cache.BoundedLruCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Resolves free-text ride locations to coordinates. Input is normalized first (case, accents,
+ * punctuation and whitespace) so that spelling variants of the same place share one cache entry, and
+ * {@code "lat, lon"} strings are parsed directly. Misses are cached too, so an unknown place is not sent
+ * to the provider again until it is evicted.
+ */
+@Component
+public class LocationResolver {
+
+    private static final Pattern COORDINATES = Pattern.compile("^\\s*(-?\\d{1,2}(?:\\.\\d+)?)\\s*,\\s*(-?\\d{1,3}(?:\\.\\d+)?)\\s*$");
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final GeocodingProvider provider;
+    private final BoundedLruCache<String, Optional<GeoPoint>> cache;
+
+    public LocationResolver(GeocodingProvider provider, @Value("${geo.resolver.max-entries:10000}") int maxEntries) {
+        this.provider = provider;
+        this.cache = new BoundedLruCache<>(maxEntries);
+    }
+
+    public Optional<GeoPoint> resolve(String location) {
+        if (location == null || location.isBlank()) {
+            return Optional.empty();
+        }
+        Matcher coordinates = COORDINATES.matcher(location);
+        if (coordinates.matches()) {
+            double latitude = Double.parseDouble(coordinates.group(1));
+            double longitude = Double.parseDouble(coordinates.group(2));
+            if (Math.abs(latitude) <= 90 && Math.abs(longitude) <= 180) {
+                return Optional.of(new GeoPoint(latitude, longitude));
+            }
+        }
+        String normalized = normalize(location);
+        if (normalized.isEmpty()) {
+            return Optional.empty();
+        }
+        return cache.computeIfAbsent(normalized, provider::geocode);
+    }
+
+    public BoundedLruCache<String, Optional<GeoPoint>> getCache() {
+        return cache;
+    }
+
+    static String normalize(String location) {
+        String decomposed = Normalizer.normalize(location, Normalizer.Form.NFKD);
+        String stripped = DIACRITICS.matcher(decomposed).replaceAll("");
+        return SEPARATORS.matcher(stripped.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+}
@@ -0,0 +1,88 @@
+package com.cymelle.backend.geo;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing {@code long -> int} map with linear probing, so hot lookups by driver id neither
+ * box keys nor allocate entries. Not thread-safe; callers guard it.
+ */
+final class LongIntHashMap {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+
+    LongIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedSize * 2 - 1) << 1);
+        allocate(capacity);
+    }
+
+    int get(long key) {
+        int index = mix(key) & mask;
+        while (true) {
+            long existing = keys[index];
+            if (existing == key) {
+                return values[index];
+            }
+            if (existing == EMPTY) {
+                return -1;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    void put(long key, int value) {
+        if (key == EMPTY) {
+            throw new IllegalArgumentException("Unsupported key: " + key);
+        }
+        if ((size + 1) * 2 > keys.length) {
+            rehash(keys.length << 1);
+        }
+        int index = mix(key) & mask;
+        while (true) {
+            long existing = keys[index];
+            if (existing == EMPTY) {
+                keys[index] = key;
+                values[index] = value;
+                size++;
+                return;
+            }
+            if (existing == key) {
+                values[index] = value;
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        values = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,38 @@
+package com.cymelle.backend.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Historical driver position. Rows are written in batches by {@code DriverLocationRecorder} over plain
+ * JDBC; the entity exists so the schema is managed alongside the rest of the model.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "driver_location_samples", indexes = @Index(name = "idx_driver_location_samples_driver_time", columnList = "driver_id, recorded_at"))
+public class DriverLocationSample {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "driver_id", nullable = false)
+    private Long driverId;
+
+    @Column(nullable = false)
+    private Double latitude;
+
+    @Column(nullable = false)
+    private Double longitude;
+
+    @Column(name = "recorded_at", nullable = false)
+    private LocalDateTime recordedAt;
+}
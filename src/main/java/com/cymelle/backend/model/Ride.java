@@ -14,7 +14,10 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "rides")
+@Table(name = "rides", indexes = {
+        @Index(name = "idx_rides_status_zone_requested", columnList = "status, pickup_zone, requested_at"),
+        @Index(name = "idx_rides_driver_status", columnList = "driver_id, status")
+})
 public class Ride {
 
     @Id
@@ -37,14 +40,28 @@ public class Ride {
     @Column(nullable = false)
     private String dropoffLocation;
 
+    private Double pickupLatitude;
+    private Double pickupLongitude;
+    private Double dropoffLatitude;
+    private Double dropoffLongitude;
+
+    @Column(length = 12)
+    private String pickupZone;
+
     private BigDecimal fare;
 
     @Enumerated(EnumType.STRING)
     private RideStatus status;
 
     private LocalDateTime requestedAt;
+    private LocalDateTime acceptedAt;
     private LocalDateTime completedAt;
 
+    /**
+     * Set once an accepted ride has gone longer than the stall timeout without completing or cancelling.
+     */
+    private Boolean stalled;
+
     @PrePersist
     protected void onCreate() {
         requestedAt = LocalDateTime.now();
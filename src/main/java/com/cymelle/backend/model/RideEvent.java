@@ -0,0 +1,45 @@
+package com.cymelle.backend.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDateTime;
+
+/**
+ * One ride status transition. The log is append-only: rows are inserted in order and never updated, and
+ * carry plain ids rather than associations so writing one costs a single narrow insert.
+ */
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Immutable
+@Table(name = "ride_events", indexes = @Index(name = "idx_ride_events_ride", columnList = "ride_id, id"))
+public class RideEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "ride_id", nullable = false)
+    private Long rideId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "from_status", length = 16)
+    private RideStatus fromStatus;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "to_status", length = 16, nullable = false)
+    private RideStatus toStatus;
+
+    @Column(name = "actor_id")
+    private Long actorId;
+
+    @Column(name = "occurred_at", nullable = false)
+    private LocalDateTime occurredAt;
+}
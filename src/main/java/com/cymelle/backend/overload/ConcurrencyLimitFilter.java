@@ -0,0 +1,127 @@
+package com.cymelle.backend.overload;
+
+import com.cymelle.backend.dto.ErrorResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Set;
+
+/**
+ * Sheds load at the edge, before authentication touches the database. API requests are grouped by their
+ * first path segment ({@code orders}, {@code rides}, {@code products}, {@code auth}, {@code drivers}, and
+ * {@code other} for anything else, so unknown paths cannot create groups) and each group is held to its
+ * adaptive limit; requests over it get an immediate 503 with {@code Retry-After} instead of queueing
+ * behind a slow database until every endpoint times out. Order placement and ride status changes
+ * (accepting, completing, cancelling) are critical and keep the reserved top of their group's limit.
+ * Streams, diagnostics and actuator endpoints are not limited.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private static final String API_PREFIX = "/api/v1/";
+    private static final Set<String> GROUPS = Set.of("orders", "rides", "products", "auth", "drivers");
+    private static final String OTHER_GROUP = "other";
+
+    private final ConcurrencyLimiter limiter;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final long retryAfterSeconds;
+
+    public ConcurrencyLimitFilter(
+            ConcurrencyLimiter limiter,
+            ObjectMapper objectMapper,
+            @Value("${overload.limiter.enabled:true}") boolean enabled,
+            @Value("${overload.limiter.retry-after:PT1S}") Duration retryAfter) {
+        this.limiter = limiter;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.retryAfterSeconds = Math.max(1, retryAfter.toSeconds());
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !enabled || group(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        ConcurrencyLimiter.Permit permit = limiter.tryAcquire(group(request), priority(request));
+        if (permit == null) {
+            shed(request, response);
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            permit.release();
+        }
+    }
+
+    /**
+     * @return the route group, or {@code null} for requests that are not limited
+     */
+    static String group(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (!path.startsWith(API_PREFIX)) {
+            return null;
+        }
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        if (path.endsWith("/feed") || path.endsWith("/stream")
+                || (accept != null && accept.contains(MediaType.TEXT_EVENT_STREAM_VALUE))) {
+            return null;
+        }
+        int end = path.indexOf('/', API_PREFIX.length());
+        String group = end < 0 ? path.substring(API_PREFIX.length()) : path.substring(API_PREFIX.length(), end);
+        if (group.equals("diagnostics")) {
+            return null;
+        }
+        return GROUPS.contains(group) ? group : OTHER_GROUP;
+    }
+
+    static ConcurrencyLimiter.Priority priority(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        String method = request.getMethod();
+        if (method.equals("POST") && path.equals(API_PREFIX + "orders")) {
+            return ConcurrencyLimiter.Priority.CRITICAL;
+        }
+        // The status is in the body, so completions and cancellations share the accepts' priority
+        if (method.equals("PATCH") && path.startsWith(API_PREFIX + "rides/") && path.endsWith("/status")) {
+            return ConcurrencyLimiter.Priority.CRITICAL;
+        }
+        return ConcurrencyLimiter.Priority.NORMAL;
+    }
+
+    private void shed(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        ErrorResponse error = ErrorResponse.builder()
+                .timestamp(LocalDateTime.now())
+                .status(HttpStatus.SERVICE_UNAVAILABLE.value())
+                .error("Service Unavailable")
+                .message("The server is at capacity. Retry after " + retryAfterSeconds + " s.")
+                .path(request.getRequestURI())
+                .build();
+        objectMapper.writeValue(response.getOutputStream(), error);
+    }
+}
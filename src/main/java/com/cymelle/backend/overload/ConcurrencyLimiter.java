@@ -0,0 +1,150 @@
+package com.cymelle.backend.overload;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Adaptive concurrency limits per route group. Each group's limit follows its own latency
+ * ({@link GradientLimit}), so a slow group sheds load without starving the others. The top of each limit is
+ * reserved for {@link Priority#CRITICAL} requests: normal ones are turned away first, while critical ones
+ * still get in.
+ */
+@Component
+public class ConcurrencyLimiter {
+
+    public enum Priority { CRITICAL, NORMAL }
+
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final int windowSize;
+    private final double criticalReserve;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Group> groups = new ConcurrentHashMap<>();
+
+    public ConcurrencyLimiter(
+            @Value("${overload.limiter.initial-limit:20}") int initialLimit,
+            @Value("${overload.limiter.min-limit:4}") int minLimit,
+            @Value("${overload.limiter.max-limit:200}") int maxLimit,
+            @Value("${overload.limiter.window-size:20}") int windowSize,
+            @Value("${overload.limiter.critical-reserve:0.25}") double criticalReserve,
+            MeterRegistry meterRegistry) {
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.windowSize = windowSize;
+        this.criticalReserve = criticalReserve;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * @return a permit to release when the request completes, or {@code null} if the request should be shed
+     */
+    public Permit tryAcquire(String group, Priority priority) {
+        return groups.computeIfAbsent(group, this::newGroup).tryAcquire(priority);
+    }
+
+    public int getLimit(String group) {
+        Group state = groups.get(group);
+        return state != null ? state.limit() : initialLimit;
+    }
+
+    public int getInFlight(String group) {
+        Group state = groups.get(group);
+        return state != null ? state.inFlight.get() : 0;
+    }
+
+    private Group newGroup(String name) {
+        Group group = new Group(name);
+        Gauge.builder("http.concurrency.limit", group, Group::limit)
+                .description("Adaptive concurrency limit of the route group")
+                .tag("group", name)
+                .register(meterRegistry);
+        Gauge.builder("http.concurrency.in_flight", group.inFlight, AtomicInteger::get)
+                .description("Requests of the route group being served")
+                .tag("group", name)
+                .register(meterRegistry);
+        return group;
+    }
+
+    private final class Group {
+
+        private final GradientLimit gradient = new GradientLimit(initialLimit, minLimit, maxLimit, windowSize);
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final Counter criticalRejected;
+        private final Counter normalRejected;
+        private volatile int limit = initialLimit;
+
+        private Group(String name) {
+            this.criticalRejected = rejectedCounter(name, Priority.CRITICAL);
+            this.normalRejected = rejectedCounter(name, Priority.NORMAL);
+        }
+
+        private int limit() {
+            return limit;
+        }
+
+        private Permit tryAcquire(Priority priority) {
+            int current = limit;
+            int bound = priority == Priority.CRITICAL ? current : Math.max(1, (int) (current * (1 - criticalReserve)));
+            while (true) {
+                int count = inFlight.get();
+                if (count >= bound) {
+                    (priority == Priority.CRITICAL ? criticalRejected : normalRejected).increment();
+                    return null;
+                }
+                if (inFlight.compareAndSet(count, count + 1)) {
+                    return new Permit(this, count + 1, System.nanoTime());
+                }
+            }
+        }
+
+        private void release(Permit permit) {
+            long latency = System.nanoTime() - permit.start;
+            inFlight.decrementAndGet();
+            synchronized (gradient) {
+                gradient.onSample(latency, permit.inFlight);
+                limit = gradient.getLimit();
+            }
+        }
+
+        private Counter rejectedCounter(String name, Priority priority) {
+            return Counter.builder("http.concurrency.rejected")
+                    .description("Requests shed because the route group was at its concurrency limit")
+                    .tag("group", name)
+                    .tag("priority", priority.name().toLowerCase())
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * A place within a group's limit, held for the duration of one request.
+     */
+    public static final class Permit {
+
+        private final Group group;
+        private final int inFlight;
+        private final long start;
+
+        private Permit(Group group, int inFlight, long start) {
+            this.group = group;
+            this.inFlight = inFlight;
+            this.start = start;
+        }
+
+        /**
+         * Releases the place and feeds the request's latency into the group's limit. Failed requests count
+         * too: under overload they are the slow ones, timing out on a connection or a lock.
+         */
+        public void release() {
+            group.release(this);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.cymelle.backend.overload;
+
+/**
+ * A concurrency limit that follows latency, after Netflix's gradient limiter. Each window of completed
+ * requests compares their average latency with a slow-moving baseline: while they match, the limit grows by
+ * a small queue allowance; once latency rises above the baseline (requests queueing on the database or
+ * connection pool) the limit shrinks in proportion, to at most half per window.
+ * <p>
+ * Not thread-safe; {@link ConcurrencyLimiter} serializes updates.
+ */
+class GradientLimit {
+
+    /** Latency may rise this much over the baseline before the limit shrinks. */
+    private static final double TOLERANCE = 1.5;
+    /** Weight of a window's proposal in the new limit, so one noisy window moves it only part way. */
+    private static final double SMOOTHING = 0.2;
+    /** The baseline is an average over this many windows, long enough to span a sustained slowdown. */
+    private static final int BASELINE_WINDOWS = 600;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final int windowSize;
+
+    private double limit;
+    private double baseline = Double.NaN;
+    private int baselineSamples;
+    private long windowNanos;
+    private int windowCount;
+    private int windowMaxInFlight;
+
+    GradientLimit(int initialLimit, int minLimit, int maxLimit, int windowSize) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.windowSize = windowSize;
+    }
+
+    int getLimit() {
+        return (int) limit;
+    }
+
+    /**
+     * Adds one completed request and, at the end of a window, moves the limit.
+     *
+     * @param inFlight requests in flight when this one started, including itself
+     */
+    void onSample(long latencyNanos, int inFlight) {
+        windowNanos += latencyNanos;
+        windowCount++;
+        windowMaxInFlight = Math.max(windowMaxInFlight, inFlight);
+        if (windowCount < windowSize) {
+            return;
+        }
+        double shortRtt = (double) windowNanos / windowCount;
+        int maxInFlight = windowMaxInFlight;
+        windowNanos = 0;
+        windowCount = 0;
+        windowMaxInFlight = 0;
+
+        if (baselineSamples < BASELINE_WINDOWS) {
+            baselineSamples++;
+        }
+        baseline = Double.isNaN(baseline) ? shortRtt : baseline + (shortRtt - baseline) / baselineSamples;
+        // After a long slowdown the baseline has caught up with it; let it fall back quickly once it ends
+        if (baseline / shortRtt > 2) {
+            baseline *= 0.95;
+        }
+        // Fast because the limit is barely used says nothing about a higher limit
+        if (maxInFlight < limit / 2) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * baseline / shortRtt));
+        double proposed = limit * gradient + Math.sqrt(limit);
+        limit = Math.max(minLimit, Math.min(maxLimit, limit * (1 - SMOOTHING) + proposed * SMOOTHING));
+    }
+}
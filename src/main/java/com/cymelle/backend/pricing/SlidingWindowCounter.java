@@ -0,0 +1,66 @@
+package com.cymelle.backend.pricing;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Event count over a sliding time window, split into a ring of buckets. Each bucket packs the epoch it
+ * belongs to and its count into one long, so recording is a single CAS loop with no locks: a writer
+ * that lands on a bucket left over from an earlier lap resets it in the same CAS that counts the event.
+ */
+public final class SlidingWindowCounter {
+
+    private static final int COUNT_BITS = 24;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+    private final AtomicLongArray buckets;
+    private final long bucketMillis;
+
+    public SlidingWindowCounter(long windowMillis, int bucketCount) {
+        if (bucketCount < 1 || windowMillis < bucketCount) {
+            throw new IllegalArgumentException("Window must span at least one millisecond per bucket");
+        }
+        this.buckets = new AtomicLongArray(bucketCount);
+        this.bucketMillis = windowMillis / bucketCount;
+    }
+
+    public void record(long nowMillis) {
+        long epoch = nowMillis / bucketMillis;
+        int index = (int) (epoch % buckets.length());
+        while (true) {
+            long current = buckets.get(index);
+            long currentEpoch = current >>> COUNT_BITS;
+            long next;
+            if (currentEpoch == epoch) {
+                if ((current & COUNT_MASK) == COUNT_MASK) {
+                    return;
+                }
+                next = current + 1;
+            } else if (currentEpoch < epoch) {
+                next = (epoch << COUNT_BITS) | 1;
+            } else {
+                // A newer lap already owns this bucket; the event is older than the window
+                return;
+            }
+            if (buckets.compareAndSet(index, current, next)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Events recorded in the window ending at {@code nowMillis}.
+     */
+    public long sum(long nowMillis) {
+        long epoch = nowMillis / bucketMillis;
+        long oldest = epoch - buckets.length() + 1;
+        long total = 0;
+        for (int i = 0; i < buckets.length(); i++) {
+            long value = buckets.get(i);
+            long bucketEpoch = value >>> COUNT_BITS;
+            if (bucketEpoch >= oldest && bucketEpoch <= epoch) {
+                total += value & COUNT_MASK;
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,93 @@
+package com.cymelle.backend.pricing;
+
+import com.cymelle.backend.event.RideStatusChangedEvent;
+import com.cymelle.backend.geo.DriverLocationIndex;
+import com.cymelle.backend.geo.Geohash;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-zone surge multipliers from recent ride requests (demand) against currently available drivers
+ * (supply), both taken over a zone and its neighbours. Demand is counted in lock-free sliding windows
+ * and supply comes from the driver index, so computing a multiplier never touches the database.
+ */
+@Component
+public class SurgeTracker {
+
+    private final DriverLocationIndex driverLocationIndex;
+    private final Clock clock;
+    private final long windowMillis;
+    private final int buckets;
+    private final double targetRatio;
+    private final double sensitivity;
+    private final double maxMultiplier;
+    private final double step;
+    private final Map<Long, SlidingWindowCounter> demandByZone = new ConcurrentHashMap<>();
+
+    @Autowired
+    public SurgeTracker(
+            DriverLocationIndex driverLocationIndex,
+            @Value("${pricing.surge.window:PT10M}") Duration window,
+            @Value("${pricing.surge.buckets:20}") int buckets,
+            @Value("${pricing.surge.target-ratio:1.0}") double targetRatio,
+            @Value("${pricing.surge.sensitivity:0.5}") double sensitivity,
+            @Value("${pricing.surge.max-multiplier:3.0}") double maxMultiplier,
+            @Value("${pricing.surge.step:0.1}") double step
+    ) {
+        this(driverLocationIndex, Clock.systemUTC(), window, buckets, targetRatio, sensitivity, maxMultiplier, step);
+    }
+
+    SurgeTracker(DriverLocationIndex driverLocationIndex, Clock clock, Duration window, int buckets, double targetRatio,
+                 double sensitivity, double maxMultiplier, double step) {
+        this.driverLocationIndex = driverLocationIndex;
+        this.clock = clock;
+        this.windowMillis = window.toMillis();
+        this.buckets = buckets;
+        this.targetRatio = targetRatio;
+        this.sensitivity = sensitivity;
+        this.maxMultiplier = maxMultiplier;
+        this.step = step;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRideStatusChanged(RideStatusChangedEvent change) {
+        if (change.previousStatus() == null && change.pickupZone() != null) {
+            recordRequest(Geohash.zoneBits(change.pickupZone()));
+        }
+    }
+
+    public void recordRequest(long zone) {
+        demandByZone.computeIfAbsent(zone, key -> new SlidingWindowCounter(windowMillis, buckets)).record(clock.millis());
+    }
+
+    /**
+     * Surge multiplier for a zone: 1 while requests per available driver stay at or below the target
+     * ratio, rising linearly with the excess up to the configured cap, in fixed steps so quotes do not
+     * jitter.
+     */
+    public BigDecimal multiplier(long zone) {
+        long[] area = Geohash.zoneWithNeighbours(zone);
+        long now = clock.millis();
+        long demand = 0;
+        for (long cell : area) {
+            SlidingWindowCounter counter = demandByZone.get(cell);
+            if (counter != null) {
+                demand += counter.sum(now);
+            }
+        }
+        int supply = Math.max(1, driverLocationIndex.availableIn(area));
+        double excess = (double) demand / supply - targetRatio;
+        double raw = Math.min(maxMultiplier, 1.0 + Math.max(0.0, excess) * sensitivity);
+        double stepped = Math.floor(raw / step + 1e-9) * step;
+        return BigDecimal.valueOf(Math.max(1.0, stepped)).setScale(2, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,10 @@
+package com.cymelle.backend.repository;
+
+import com.cymelle.backend.model.RideEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface RideEventRepository extends JpaRepository<RideEvent, Long> {
+    List<RideEvent> findByRideIdOrderByIdAsc(Long rideId);
+}
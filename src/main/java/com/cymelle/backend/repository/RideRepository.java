@@ -1,10 +1,21 @@
 package com.cymelle.backend.repository;
 
+import com.cymelle.backend.dispatch.DispatchableRide;
+import com.cymelle.backend.expiry.ExpiryCandidate;
 import com.cymelle.backend.model.Ride;
 import com.cymelle.backend.model.RideStatus;
+import com.cymelle.backend.model.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 
 public interface RideRepository extends JpaRepository<Ride, Long> {
     Page<Ride> findByCustomerId(Long customerId, Pageable pageable);
@@ -12,4 +23,79 @@ public interface RideRepository extends JpaRepository<Ride, Long> {
     Page<Ride> findByCustomerIdAndStatus(Long customerId, RideStatus status, Pageable pageable);
     Page<Ride> findByCustomerEmail(String email, Pageable pageable);
     Page<Ride> findByCustomerEmailAndStatus(String email, RideStatus status, Pageable pageable);
+    Page<Ride> findByDriverIdAndStatus(Long driverId, RideStatus status, Pageable pageable);
+
+    /**
+     * Open rides picked up in any of {@code zones}, plus open rides without coordinates, which have no zone
+     * and are offered everywhere. Served by the (status, pickup_zone, requested_at) index.
+     */
+    @Query("SELECT r FROM Ride r WHERE r.status = com.cymelle.backend.model.RideStatus.REQUESTED " +
+            "AND (r.pickupZone IN :zones OR r.pickupZone IS NULL)")
+    Page<Ride> findOpenRidesInZones(@Param("zones") Collection<String> zones, Pageable pageable);
+
+    /**
+     * Everything a driver can act on: the open rides of {@link #findOpenRidesInZones} and the rides
+     * assigned to them.
+     */
+    @Query("SELECT r FROM Ride r WHERE (r.status = com.cymelle.backend.model.RideStatus.REQUESTED " +
+            "AND (r.pickupZone IN :zones OR r.pickupZone IS NULL)) OR r.driver.id = :driverId")
+    Page<Ride> findRidesForDriver(@Param("driverId") Long driverId, @Param("zones") Collection<String> zones, Pageable pageable);
+
+    /**
+     * Assigns the driver only if the ride is still {@code REQUESTED} and was not requested by that driver.
+     * The check and the write are one statement, so concurrent claims cannot both succeed. A fare quoted at
+     * request time is kept; otherwise {@code fallbackFare} is applied.
+     *
+     * @return 1 if the claim won, 0 otherwise
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Ride r SET r.driver = :driver, r.status = com.cymelle.backend.model.RideStatus.ACCEPTED, r.acceptedAt = :acceptedAt, " +
+            "r.fare = CASE WHEN r.fare > 0 THEN r.fare ELSE :fallbackFare END " +
+            "WHERE r.id = :id AND r.status = com.cymelle.backend.model.RideStatus.REQUESTED AND r.customer.id <> :#{#driver.id}")
+    int claim(@Param("id") Long id, @Param("driver") User driver, @Param("fallbackFare") BigDecimal fallbackFare,
+              @Param("acceptedAt") LocalDateTime acceptedAt);
+
+    /**
+     * Moves a ride to {@code status} only if it is still in the {@code expected} status it was read in, so a
+     * cancel or completion cannot overwrite a claim or another transition that committed in between.
+     *
+     * @return 1 if the transition applied, 0 if the ride's status had changed
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Ride r SET r.status = :status, r.completedAt = :completedAt WHERE r.id = :id AND r.status = :expected")
+    int transition(@Param("id") Long id, @Param("expected") RideStatus expected, @Param("status") RideStatus status,
+                   @Param("completedAt") LocalDateTime completedAt);
+
+    /**
+     * Open rides that can still expire: every {@code REQUESTED} ride and accepted rides not yet flagged.
+     */
+    @Query("SELECT new com.cymelle.backend.expiry.ExpiryCandidate(r.id, r.status, r.pickupZone, r.requestedAt, r.acceptedAt) " +
+            "FROM Ride r WHERE r.status = com.cymelle.backend.model.RideStatus.REQUESTED " +
+            "OR (r.status = com.cymelle.backend.model.RideStatus.ACCEPTED AND (r.stalled IS NULL OR r.stalled = false))")
+    List<ExpiryCandidate> findExpiryCandidates();
+
+    @Query("SELECT new com.cymelle.backend.expiry.ExpiryCandidate(r.id, r.status, r.pickupZone, r.requestedAt, r.acceptedAt) " +
+            "FROM Ride r WHERE r.id IN :ids AND r.status = com.cymelle.backend.model.RideStatus.REQUESTED AND r.requestedAt <= :cutoff")
+    List<ExpiryCandidate> findExpiredRequests(@Param("ids") Collection<Long> ids, @Param("cutoff") LocalDateTime cutoff);
+
+    /**
+     * Cancels the given rides if they are still unclaimed and were requested before {@code cutoff}.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Ride r SET r.status = com.cymelle.backend.model.RideStatus.CANCELLED " +
+            "WHERE r.id IN :ids AND r.status = com.cymelle.backend.model.RideStatus.REQUESTED AND r.requestedAt <= :cutoff")
+    int cancelExpired(@Param("ids") Collection<Long> ids, @Param("cutoff") LocalDateTime cutoff);
+
+    /**
+     * Flags the given rides as stalled if they are still accepted and were accepted before {@code cutoff}.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Ride r SET r.stalled = true " +
+            "WHERE r.id IN :ids AND r.status = com.cymelle.backend.model.RideStatus.ACCEPTED AND r.acceptedAt <= :cutoff")
+    int flagStalled(@Param("ids") Collection<Long> ids, @Param("cutoff") LocalDateTime cutoff);
+
+    @Query("SELECT new com.cymelle.backend.dispatch.DispatchableRide(r.id, r.customer.id, r.pickupLatitude, r.pickupLongitude) " +
+            "FROM Ride r WHERE r.status = com.cymelle.backend.model.RideStatus.REQUESTED " +
+            "AND r.pickupLatitude IS NOT NULL AND r.pickupLongitude IS NOT NULL ORDER BY r.requestedAt")
+    List<DispatchableRide> findDispatchableRides(Pageable pageable);
 }
@@ -4,7 +4,10 @@ import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.RequiredArgsConstructor;
+import com.cymelle.backend.diagnostics.FlightEvents;
+import com.cymelle.backend.diagnostics.ServerTiming;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -15,13 +18,30 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
 @Component
-@RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
+    private final ServerTiming serverTiming;
+    private final Timer validTokens;
+    private final Timer invalidTokens;
+    private final Timer rejectedTokens;
+    private final Timer skippedTokens;
+
+    public JwtAuthenticationFilter(JwtService jwtService, UserDetailsService userDetailsService, ServerTiming serverTiming,
+                                   MeterRegistry meterRegistry) {
+        this.jwtService = jwtService;
+        this.userDetailsService = userDetailsService;
+        this.serverTiming = serverTiming;
+        this.validTokens = validationTimer(meterRegistry, "valid");
+        this.invalidTokens = validationTimer(meterRegistry, "invalid");
+        this.rejectedTokens = validationTimer(meterRegistry, "error");
+        // Parsed, but not checked against a user: no subject, or the request was already authenticated
+        this.skippedTokens = validationTimer(meterRegistry, "skipped");
+    }
 
     @Override
     protected void doFilterInternal(
@@ -37,21 +57,56 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             return;
         }
         jwt = authHeader.substring(7);
-        userEmail = jwtService.extractUsername(jwt);
-        if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
-            if (jwtService.isTokenValid(jwt, userDetails)) {
-                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                        userDetails,
-                        null,
-                        userDetails.getAuthorities()
-                );
-                authToken.setDetails(
-                        new WebAuthenticationDetailsSource().buildDetails(request)
-                );
-                SecurityContextHolder.getContext().setAuthentication(authToken);
+        FlightEvents.JwtValidation validation = new FlightEvents.JwtValidation();
+        validation.begin();
+        long start = System.nanoTime();
+        long lookup = 0;
+        Timer outcome = rejectedTokens;
+        try {
+            userEmail = jwtService.extractUsername(jwt);
+            outcome = skippedTokens;
+            if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+                long lookupStart = System.nanoTime();
+                UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
+                lookup = System.nanoTime() - lookupStart;
+                if (jwtService.isTokenValid(jwt, userDetails)) {
+                    outcome = validTokens;
+                    UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                            userDetails,
+                            null,
+                            userDetails.getAuthorities()
+                    );
+                    authToken.setDetails(
+                            new WebAuthenticationDetailsSource().buildDetails(request)
+                    );
+                    SecurityContextHolder.getContext().setAuthentication(authToken);
+                } else {
+                    outcome = invalidTokens;
+                }
+            }
+        } finally {
+            // Covers parsing, the user lookup and validation, not the rest of the chain
+            long elapsed = System.nanoTime() - start;
+            outcome.record(elapsed, TimeUnit.NANOSECONDS);
+            ServerTiming.Timings timings = serverTiming.current();
+            if (timings != null) {
+                timings.addUserLookup(lookup);
+                timings.addJwt(elapsed - lookup);
+            }
+            if (validation.shouldCommit()) {
+                validation.outcome = outcome.getId().getTag("outcome");
+                validation.userLookup = lookup;
+                validation.commit();
             }
         }
         filterChain.doFilter(request, response);
     }
+
+    private static Timer validationTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("auth.jwt.validation")
+                .description("Time to authenticate a request from its bearer token")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
 }
@@ -0,0 +1,47 @@
+package com.cymelle.backend.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authorization.AuthorityAuthorizationManager;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.function.Supplier;
+
+import static com.cymelle.backend.model.Role.ADMIN;
+
+/**
+ * Access to the Prometheus scrape: admins, or a scraper presenting HTTP Basic credentials
+ * {@code prometheus:<metrics.scrape-password>}. Basic rather than a bearer token, so the scrape credential
+ * never reaches JWT parsing. Without a configured password only admins can scrape.
+ */
+@Component
+public class MetricsScrapeAuthorizationManager implements AuthorizationManager<RequestAuthorizationContext> {
+
+    private static final String USERNAME = "prometheus";
+
+    private final AuthorizationManager<RequestAuthorizationContext> admin = AuthorityAuthorizationManager.hasRole(ADMIN.name());
+    private final byte[] expectedHeader;
+
+    public MetricsScrapeAuthorizationManager(@Value("${metrics.scrape-password:}") String password) {
+        this.expectedHeader = password.isEmpty() ? null : ("Basic " + Base64.getEncoder()
+                .encodeToString((USERNAME + ":" + password).getBytes(StandardCharsets.UTF_8)))
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public AuthorizationDecision check(Supplier<Authentication> authentication, RequestAuthorizationContext context) {
+        String header = context.getRequest().getHeader(HttpHeaders.AUTHORIZATION);
+        if (expectedHeader != null && header != null
+                && MessageDigest.isEqual(expectedHeader, header.getBytes(StandardCharsets.UTF_8))) {
+            return new AuthorizationDecision(true);
+        }
+        return admin.check(authentication, context);
+    }
+}
@@ -0,0 +1,47 @@
+package com.cymelle.backend.security;
+
+import com.cymelle.backend.diagnostics.FlightEvents;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Emits a {@link FlightEvents.PasswordHash} around each hash and check, the deliberately slow part of
+ * registering and signing in.
+ */
+public class RecordedPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+
+    public RecordedPasswordEncoder(PasswordEncoder delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        FlightEvents.PasswordHash hash = new FlightEvents.PasswordHash();
+        hash.begin();
+        String encoded = delegate.encode(rawPassword);
+        if (hash.shouldCommit()) {
+            hash.operation = "encode";
+            hash.commit();
+        }
+        return encoded;
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        FlightEvents.PasswordHash hash = new FlightEvents.PasswordHash();
+        hash.begin();
+        boolean matched = delegate.matches(rawPassword, encodedPassword);
+        if (hash.shouldCommit()) {
+            hash.operation = "matches";
+            hash.matched = matched;
+            hash.commit();
+        }
+        return matched;
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+}
@@ -7,6 +7,7 @@ import com.cymelle.backend.model.Role;
 import com.cymelle.backend.model.User;
 import com.cymelle.backend.repository.UserRepository;
 import com.cymelle.backend.security.JwtService;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -39,6 +40,7 @@ public class AuthenticationService {
                 .build();
     }
 
+    @Timed(value = "auth.authenticate", histogram = true)
     public AuthenticationResponse authenticate(AuthenticationRequest request) {
         authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(
@@ -0,0 +1,81 @@
+package com.cymelle.backend.service;
+
+import com.cymelle.backend.dto.DriverCandidateResponse;
+import com.cymelle.backend.dto.DriverLocationRequest;
+import com.cymelle.backend.event.RideFeed;
+import com.cymelle.backend.geo.DriverLocationIndex;
+import com.cymelle.backend.geo.DriverLocationIndex.DriverPosition;
+import com.cymelle.backend.geo.Geohash;
+import com.cymelle.backend.model.Ride;
+import com.cymelle.backend.model.Role;
+import com.cymelle.backend.model.User;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+@Service
+@RequiredArgsConstructor
+public class DriverMatchingService {
+    private final DriverLocationIndex driverLocationIndex;
+    private final RideFeed rideFeed;
+
+    public void updateLocation(User driver, DriverLocationRequest request) {
+        driverLocationIndex.update(
+                driver.getId(),
+                request.getLatitude(),
+                request.getLongitude(),
+                request.getAvailable(),
+                System.currentTimeMillis()
+        );
+    }
+
+    public void goOffline(User driver) {
+        driverLocationIndex.remove(driver.getId());
+    }
+
+    public List<DriverCandidateResponse> findNearestDrivers(Ride ride, int limit) {
+        if (ride.getPickupLatitude() == null || ride.getPickupLongitude() == null) {
+            throw new IllegalStateException("Ride " + ride.getId() + " has no pickup coordinates.");
+        }
+        long customerId = ride.getCustomer().getId();
+        return driverLocationIndex.nearest(ride.getPickupLatitude(), ride.getPickupLongitude(), limit, driverId -> driverId != customerId)
+                .stream()
+                .map(candidate -> DriverCandidateResponse.builder()
+                        .driverId(candidate.driverId())
+                        .latitude(candidate.latitude())
+                        .longitude(candidate.longitude())
+                        .distanceMeters(candidate.distanceMeters())
+                        .build())
+                .toList();
+    }
+
+    /**
+     * Opens the open-ride feed for the given zones. Drivers who pass none follow the zone they last
+     * reported a location in and its neighbours; admins who pass none follow every zone.
+     */
+    public SseEmitter openRideFeed(User user, List<String> zones) {
+        Set<String> topics = new LinkedHashSet<>();
+        if (zones != null) {
+            for (String zone : zones) {
+                String normalized = zone.trim().toLowerCase(Locale.ROOT);
+                if (normalized.length() != Geohash.ZONE_PRECISION || !Geohash.isValid(normalized)) {
+                    throw new IllegalArgumentException("Zones must be " + Geohash.ZONE_PRECISION + "-character geohashes: " + zone);
+                }
+                topics.add(normalized);
+            }
+        }
+        if (topics.isEmpty() && user.getRole() != Role.ADMIN) {
+            DriverPosition position = driverLocationIndex.get(user.getId());
+            if (position == null) {
+                throw new IllegalStateException("Report a location or pass zones to follow the ride feed.");
+            }
+            topics.addAll(Geohash.withNeighbours(Geohash.zoneOf(position.latitude(), position.longitude())));
+        }
+        return rideFeed.subscribe(topics);
+    }
+}
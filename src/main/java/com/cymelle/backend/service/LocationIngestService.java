@@ -0,0 +1,94 @@
+package com.cymelle.backend.service;
+
+import com.cymelle.backend.dto.LocationIngestResponse;
+import com.cymelle.backend.geo.DriverLocationIndex;
+import com.cymelle.backend.geo.DriverLocationRecorder;
+import com.cymelle.backend.geo.LocationBatch;
+import com.cymelle.backend.model.Role;
+import com.cymelle.backend.model.User;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Accepts batches of driver positions as a JSON array of
+ * {@code {"driverId", "latitude", "longitude", "timestamp", "available"}} objects. The body is read with
+ * the streaming parser straight into a {@link LocationBatch}, so no per-sample objects are created on
+ * the way to the index. A sample without {@code available} leaves the driver's availability unchanged.
+ */
+@Service
+@RequiredArgsConstructor
+public class LocationIngestService {
+
+    private final ObjectMapper objectMapper;
+    private final DriverLocationIndex driverLocationIndex;
+    private final DriverLocationRecorder driverLocationRecorder;
+
+    @Value("${dispatch.locations.max-batch-size:1000}")
+    private int maxBatchSize;
+
+    public LocationIngestResponse ingest(User sender, InputStream body) throws IOException {
+        long now = System.currentTimeMillis();
+        LocationBatch batch = new LocationBatch(64);
+        int received = 0;
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("Location batch must be a JSON array");
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                if (++received > maxBatchSize) {
+                    throw new IllegalArgumentException("Location batch exceeds the maximum of " + maxBatchSize + " samples");
+                }
+                readSample(parser, sender, now, batch);
+            }
+        } catch (JsonParseException e) {
+            throw new IllegalArgumentException("Malformed location batch: " + e.getOriginalMessage());
+        }
+        int applied = driverLocationIndex.updateAll(batch);
+        driverLocationRecorder.record(batch);
+        return LocationIngestResponse.builder()
+                .received(received)
+                .applied(applied)
+                .rejected(received - batch.size())
+                .build();
+    }
+
+    private void readSample(JsonParser parser, User sender, long now, LocationBatch batch) throws IOException {
+        long driverId = sender.getId();
+        double latitude = Double.NaN;
+        double longitude = Double.NaN;
+        long timestamp = now;
+        Boolean available = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (value == JsonToken.VALUE_NULL) {
+                continue;
+            }
+            switch (field) {
+                case "driverId" -> driverId = parser.getLongValue();
+                case "latitude" -> latitude = parser.getDoubleValue();
+                case "longitude" -> longitude = parser.getDoubleValue();
+                case "timestamp" -> timestamp = parser.getLongValue();
+                case "available" -> available = parser.getBooleanValue();
+                default -> parser.skipChildren();
+            }
+        }
+        if (driverId != sender.getId() && sender.getRole() != Role.ADMIN) {
+            throw new AccessDeniedException("Drivers can only report their own location.");
+        }
+        if (!(latitude >= -90.0 && latitude <= 90.0) || !(longitude >= -180.0 && longitude <= 180.0)) {
+            return;
+        }
+        // Device clocks drift; never let a sample claim to be from the future
+        batch.add(driverId, latitude, longitude, Math.min(timestamp, now), available);
+    }
+}
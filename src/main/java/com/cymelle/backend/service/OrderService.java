@@ -1,13 +1,19 @@
 package com.cymelle.backend.service;
 
+import com.cymelle.backend.cache.CatalogResponseCache;
+import com.cymelle.backend.diagnostics.FlightEvents;
 import com.cymelle.backend.dto.OrderItemRequest;
 import com.cymelle.backend.dto.OrderRequest;
+import com.cymelle.backend.event.OrderPlacedEvent;
+import com.cymelle.backend.event.ProductChangedEvent;
 import com.cymelle.backend.exception.InsufficientStockException;
 import com.cymelle.backend.exception.ResourceNotFoundException;
 import com.cymelle.backend.model.*;
 import com.cymelle.backend.repository.OrderRepository;
 import com.cymelle.backend.repository.ProductRepository;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -22,9 +28,14 @@ import java.util.List;
 public class OrderService {
     private final OrderRepository orderRepository;
     private final ProductRepository productRepository;
+    private final CatalogResponseCache catalogResponseCache;
+    private final ApplicationEventPublisher eventPublisher;
 
+    @Timed(value = "orders.place", histogram = true)
     @Transactional
     public Order placeOrder(User user, OrderRequest request) {
+        FlightEvents.OrderPlaced placed = new FlightEvents.OrderPlaced();
+        placed.begin();
         Order order = new Order();
         order.setUser(user);
         order.setPaymentStatus("PAID"); 
@@ -37,12 +48,21 @@ public class OrderService {
                     .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + itemRequest.getProductId()));
             
             if (product.getStockQuantity() < itemRequest.getQuantity()) {
+                FlightEvents.StockConflict conflict = new FlightEvents.StockConflict();
+                if (conflict.shouldCommit()) {
+                    conflict.productId = product.getId();
+                    conflict.requested = itemRequest.getQuantity();
+                    conflict.available = product.getStockQuantity();
+                    conflict.commit();
+                }
                 throw new InsufficientStockException("Insufficient stock for product: " + product.getName() + " (Requested: " + itemRequest.getQuantity() + ", Available: " + product.getStockQuantity() + ")");
             }
             
             // Deduct stock
-            product.setStockQuantity(product.getStockQuantity() - itemRequest.getQuantity());
+            int previousStock = product.getStockQuantity();
+            product.setStockQuantity(previousStock - itemRequest.getQuantity());
             productRepository.save(product);
+            eventPublisher.publishEvent(new ProductChangedEvent(product.getId(), product.getPrice(), product.getPrice(), previousStock, product.getStockQuantity(), false));
 
             OrderItem orderItem = new OrderItem();
             orderItem.setOrder(order);
@@ -56,7 +76,19 @@ public class OrderService {
 
         order.setOrderItems(orderItems);
         order.setTotalCost(totalCost);
-        return orderRepository.save(order);
+        // Stock levels are part of the rendered catalog
+        catalogResponseCache.invalidate();
+        Order saved = orderRepository.save(order);
+        eventPublisher.publishEvent(new OrderPlacedEvent(saved.getId(), orderItems.stream()
+                .map(item -> new OrderPlacedEvent.Item(item.getProduct().getId(), item.getQuantity()))
+                .toList()));
+        if (placed.shouldCommit()) {
+            placed.orderId = saved.getId();
+            placed.itemCount = orderItems.size();
+            placed.units = orderItems.stream().mapToInt(OrderItem::getQuantity).sum();
+            placed.commit();
+        }
+        return saved;
     }
 
     public Page<Order> getOrdersByUserId(Long userId, Pageable pageable) {
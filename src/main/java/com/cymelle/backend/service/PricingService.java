@@ -0,0 +1,96 @@
+package com.cymelle.backend.service;
+
+import com.cymelle.backend.dto.FareQuoteRequest;
+import com.cymelle.backend.dto.FareQuoteResponse;
+import com.cymelle.backend.geo.DistanceCache;
+import com.cymelle.backend.geo.GeoPoint;
+import com.cymelle.backend.geo.Geohash;
+import com.cymelle.backend.geo.LocationResolver;
+import com.cymelle.backend.pricing.SurgeTracker;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+
+/**
+ * Fares are {@code base + perKm * km + perMinute * minutes}, floored at the minimum fare and multiplied
+ * by the pickup zone's surge. Distance comes from the memoized distance cache scaled by a road factor and
+ * duration assumes an average speed, so a quote needs nothing beyond the coordinates and in-memory state.
+ */
+@Service
+@RequiredArgsConstructor
+public class PricingService {
+
+    private final SurgeTracker surgeTracker;
+    private final DistanceCache distanceCache;
+    private final LocationResolver locationResolver;
+
+    @Value("${pricing.base-fare:2.50}")
+    private BigDecimal baseFare;
+
+    @Value("${pricing.per-km:1.20}")
+    private BigDecimal perKm;
+
+    @Value("${pricing.per-minute:0.25}")
+    private BigDecimal perMinute;
+
+    @Value("${pricing.minimum-fare:5.00}")
+    private BigDecimal minimumFare;
+
+    @Value("${pricing.road-factor:1.3}")
+    private double roadFactor;
+
+    @Value("${pricing.average-speed-kmh:25}")
+    private double averageSpeedKmh;
+
+    @Value("${pricing.fallback-fare:25.00}")
+    private BigDecimal fallbackFare;
+
+    public FareQuoteResponse quote(FareQuoteRequest request) {
+        GeoPoint pickup = locate(request.getPickupLatitude(), request.getPickupLongitude(), request.getPickupLocation(), "pickup");
+        GeoPoint dropoff = locate(request.getDropoffLatitude(), request.getDropoffLongitude(), request.getDropoffLocation(), "dropoff");
+        return quote(pickup.latitude(), pickup.longitude(), dropoff.latitude(), dropoff.longitude());
+    }
+
+    public FareQuoteResponse quote(double pickupLatitude, double pickupLongitude, double dropoffLatitude, double dropoffLongitude) {
+        double distanceKm = distanceCache.distanceMeters(pickupLatitude, pickupLongitude, dropoffLatitude, dropoffLongitude) / 1000.0 * roadFactor;
+        double durationMinutes = distanceKm / averageSpeedKmh * 60.0;
+        BigDecimal base = baseFare
+                .add(perKm.multiply(BigDecimal.valueOf(distanceKm)))
+                .add(perMinute.multiply(BigDecimal.valueOf(durationMinutes)))
+                .max(minimumFare)
+                .setScale(2, RoundingMode.HALF_UP);
+        long zone = Geohash.zoneBits(pickupLatitude, pickupLongitude);
+        BigDecimal surge = surgeTracker.multiplier(zone);
+        return FareQuoteResponse.builder()
+                .zone(Geohash.zoneName(zone))
+                .distanceKm(Math.round(distanceKm * 100) / 100.0)
+                .durationMinutes(Math.round(durationMinutes * 10) / 10.0)
+                .baseFare(base)
+                .surgeMultiplier(surge)
+                .fare(base.multiply(surge).setScale(2, RoundingMode.HALF_UP))
+                .quotedAt(Instant.now())
+                .build();
+    }
+
+    private GeoPoint locate(Double latitude, Double longitude, String location, String label) {
+        GeoPoint explicit = GeoPoint.ofNullable(latitude, longitude);
+        if (explicit != null) {
+            return explicit;
+        }
+        return locationResolver.resolve(location)
+                .orElseThrow(() -> new IllegalArgumentException(location == null
+                        ? "Provide " + label + " coordinates or a " + label + " location."
+                        : "Unknown " + label + " location: " + location));
+    }
+
+    /**
+     * Flat fare for rides requested without coordinates, which cannot be priced by distance.
+     */
+    public BigDecimal getFallbackFare() {
+        return fallbackFare;
+    }
+}
@@ -0,0 +1,291 @@
+package com.cymelle.backend.service;
+
+import com.cymelle.backend.cache.CatalogResponseCache;
+import com.cymelle.backend.dto.ProductImportResponse;
+import com.cymelle.backend.dto.ProductImportResponse.RowError;
+import com.cymelle.backend.event.ProductChangedEvent;
+import com.cymelle.backend.model.Product;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+public class ProductImportService {
+
+    private static final String SELECT_BY_SKU = "SELECT id, sku, price, stock_quantity FROM products WHERE sku IN (:skus)";
+    private static final String UPDATE_BY_ID = "UPDATE products SET name = ?, description = ?, price = ?, stock_quantity = ?, category = ? WHERE id = ?";
+    private static final String INSERT = "INSERT INTO products (sku, name, description, price, stock_quantity, category) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final CatalogResponseCache responseCache;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${catalog.import.batch-size:500}")
+    private int batchSize;
+
+    @Value("${catalog.import.max-reported-errors:1000}")
+    private int maxReportedErrors;
+
+    public ProductImportResponse importCsv(InputStream body) throws IOException {
+        ImportRun run = new ImportRun();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            CsvRecordReader csv = new CsvRecordReader(reader);
+            List<String> header = csv.next();
+            if (header == null) {
+                throw new IllegalArgumentException("CSV import requires a header row");
+            }
+            Map<String, Integer> columns = new HashMap<>();
+            for (int i = 0; i < header.size(); i++) {
+                columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+            }
+            long rowNumber = 1;
+            List<String> record;
+            while ((record = csv.next()) != null) {
+                rowNumber++;
+                if (record.size() == 1 && record.get(0).isBlank()) {
+                    continue;
+                }
+                String sku = column(record, columns, "sku");
+                try {
+                    Product product = Product.builder()
+                            .sku(sku)
+                            .name(column(record, columns, "name"))
+                            .description(column(record, columns, "description"))
+                            .price(decimal(column(record, columns, "price")))
+                            .stockQuantity(integer(column(record, columns, "stockquantity")))
+                            .category(column(record, columns, "category"))
+                            .build();
+                    run.accept(rowNumber, product);
+                } catch (NumberFormatException e) {
+                    run.reject(rowNumber, sku, "Invalid number: " + e.getMessage());
+                }
+            }
+        }
+        return run.finish();
+    }
+
+    public ProductImportResponse importNdjson(InputStream body) throws IOException {
+        ImportRun run = new ImportRun();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            long rowNumber = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                rowNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    Product product = objectMapper.readValue(line, Product.class);
+                    product.setId(null);
+                    run.accept(rowNumber, product);
+                } catch (JsonProcessingException e) {
+                    run.reject(rowNumber, null, "Malformed JSON: " + e.getOriginalMessage());
+                }
+            }
+        }
+        return run.finish();
+    }
+
+    private static String column(List<String> record, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= record.size()) {
+            return null;
+        }
+        String value = record.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static BigDecimal decimal(String value) {
+        return value == null ? null : new BigDecimal(value);
+    }
+
+    private static Integer integer(String value) {
+        return value == null ? null : Integer.valueOf(value);
+    }
+
+    private class ImportRun {
+        private final Map<String, Row> batch = new LinkedHashMap<>();
+        private final List<RowError> errors = new ArrayList<>();
+        private long totalRows;
+        private long inserted;
+        private long updated;
+        private long failed;
+
+        void accept(long rowNumber, Product product) {
+            totalRows++;
+            if (!StringUtils.hasText(product.getSku())) {
+                recordError(rowNumber, null, "SKU is required for import");
+                return;
+            }
+            Set<ConstraintViolation<Product>> violations = validator.validate(product);
+            if (!violations.isEmpty()) {
+                recordError(rowNumber, product.getSku(), violations.stream()
+                        .map(ConstraintViolation::getMessage)
+                        .sorted()
+                        .collect(Collectors.joining("; ")));
+                return;
+            }
+            // A SKU repeated within one batch keeps its last row; the rows it replaces share the batch's outcome
+            List<Long> superseded = new ArrayList<>();
+            Row previous = batch.get(product.getSku());
+            if (previous != null) {
+                superseded.addAll(previous.superseded());
+                superseded.add(previous.number());
+            }
+            batch.put(product.getSku(), new Row(rowNumber, product, superseded));
+            if (batch.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void reject(long rowNumber, String sku, String message) {
+            totalRows++;
+            recordError(rowNumber, sku, message);
+        }
+
+        private void recordError(long rowNumber, String sku, String message) {
+            failed++;
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new RowError(rowNumber, sku, message));
+            }
+        }
+
+        ProductImportResponse finish() {
+            flush();
+            return ProductImportResponse.builder()
+                    .totalRows(totalRows)
+                    .inserted(inserted)
+                    .updated(updated)
+                    .failed(failed)
+                    .errors(errors)
+                    .errorsTruncated(failed > errors.size())
+                    .build();
+        }
+
+        private void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            List<Row> rows = new ArrayList<>(batch.values());
+            batch.clear();
+            try {
+                int[] counts = transactionTemplate.execute(status -> upsert(rows));
+                inserted += counts[0];
+                updated += counts[1];
+                for (Row row : rows) {
+                    updated += row.superseded().size();
+                }
+            } catch (RuntimeException e) {
+                for (Row row : rows) {
+                    for (long number : row.superseded()) {
+                        recordError(number, row.product().getSku(), "Batch write failed: " + e.getMessage());
+                    }
+                    recordError(row.number(), row.product().getSku(), "Batch write failed: " + e.getMessage());
+                }
+            }
+        }
+
+        /**
+         * Writes one batch. The catalog cache and change subscribers hear about it when this batch commits,
+         * so rows already imported are visible even if a later batch fails or the upload breaks off.
+         */
+        private int[] upsert(List<Row> rows) {
+            Map<String, Existing> existing = new HashMap<>();
+            jdbcTemplate.query(SELECT_BY_SKU,
+                    new MapSqlParameterSource("skus", rows.stream().map(row -> row.product().getSku()).toList()),
+                    rs -> {
+                        existing.put(rs.getString("sku"), new Existing(rs.getLong("id"), rs.getBigDecimal("price"),
+                                rs.getObject("stock_quantity", Integer.class)));
+                    });
+
+            List<Object[]> updates = new ArrayList<>();
+            List<Object[]> inserts = new ArrayList<>();
+            List<Product> insertedProducts = new ArrayList<>();
+            for (Row row : rows) {
+                Product p = row.product();
+                Existing current = existing.get(p.getSku());
+                if (current != null) {
+                    updates.add(new Object[]{p.getName(), p.getDescription(), p.getPrice(), p.getStockQuantity(), p.getCategory(), current.id()});
+                } else {
+                    inserts.add(new Object[]{p.getSku(), p.getName(), p.getDescription(), p.getPrice(), p.getStockQuantity(), p.getCategory()});
+                    insertedProducts.add(p);
+                }
+            }
+            if (!updates.isEmpty()) {
+                jdbcTemplate.getJdbcTemplate().batchUpdate(UPDATE_BY_ID, updates);
+                for (Row row : rows) {
+                    Product p = row.product();
+                    Existing current = existing.get(p.getSku());
+                    if (current != null) {
+                        eventPublisher.publishEvent(new ProductChangedEvent(current.id(), current.price(), p.getPrice(),
+                                current.stockQuantity(), p.getStockQuantity(), false));
+                    }
+                }
+            }
+            if (!inserts.isEmpty()) {
+                GeneratedKeyHolder keys = new GeneratedKeyHolder();
+                jdbcTemplate.getJdbcTemplate().batchUpdate(
+                        connection -> connection.prepareStatement(INSERT, new String[]{"id"}),
+                        new BatchPreparedStatementSetter() {
+                            @Override
+                            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                                new ArgumentPreparedStatementSetter(inserts.get(i)).setValues(ps);
+                            }
+
+                            @Override
+                            public int getBatchSize() {
+                                return inserts.size();
+                            }
+                        },
+                        keys);
+                List<Map<String, Object>> ids = keys.getKeyList();
+                for (int i = 0; i < insertedProducts.size(); i++) {
+                    Product p = insertedProducts.get(i);
+                    long id = ((Number) ids.get(i).values().iterator().next()).longValue();
+                    eventPublisher.publishEvent(new ProductChangedEvent(id, null, p.getPrice(), null, p.getStockQuantity(), false));
+                }
+            }
+            responseCache.invalidate();
+            return new int[]{inserts.size(), updates.size()};
+        }
+    }
+
+    private record Row(long number, Product product, List<Long> superseded) {
+    }
+
+    private record Existing(long id, BigDecimal price, Integer stockQuantity) {
+    }
+}
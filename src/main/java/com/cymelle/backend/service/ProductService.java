@@ -1,30 +1,51 @@
 package com.cymelle.backend.service;
 
+import com.cymelle.backend.cache.CatalogResponseCache;
+import com.cymelle.backend.cache.SingleFlight;
+import com.cymelle.backend.dto.TrendingProductResponse;
+import com.cymelle.backend.event.ProductChangedEvent;
 import com.cymelle.backend.exception.ResourceNotFoundException;
 import com.cymelle.backend.model.Product;
 import com.cymelle.backend.repository.ProductRepository;
+import com.cymelle.backend.trending.TrendingTracker;
+import com.cymelle.backend.trending.TrendingTracker.TrendingScore;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class ProductService {
     private final ProductRepository repository;
+    private final CatalogResponseCache responseCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SingleFlight productReadFlight;
+    private final TrendingTracker trendingTracker;
 
     public Product saveProduct(Product product) {
-        return repository.save(product);
+        Product saved = repository.save(product);
+        responseCache.invalidate();
+        eventPublisher.publishEvent(new ProductChangedEvent(saved.getId(), null, saved.getPrice(), null, saved.getStockQuantity(), false));
+        return saved;
     }
 
     public Page<Product> getAllProducts(Pageable pageable) {
-        return repository.findAll(pageable);
+        return productReadFlight.execute("list:" + pageable, () -> repository.findAll(pageable));
     }
 
     public Optional<Product> getProductById(Long id) {
-        return repository.findById(id);
+        return productReadFlight.execute("id:" + id, () -> repository.findById(id));
     }
 
     public void deleteProduct(Long id) {
@@ -32,20 +53,63 @@ public class ProductService {
             throw new ResourceNotFoundException("Product not found with id: " + id);
         }
         repository.deleteById(id);
+        responseCache.invalidate();
+        eventPublisher.publishEvent(ProductChangedEvent.deleted(id));
     }
 
     public Product updateProduct(Long id, Product productDetails) {
         Product product = repository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + id));
+        BigDecimal previousPrice = product.getPrice();
+        Integer previousStock = product.getStockQuantity();
+        if (productDetails.getSku() != null) {
+            product.setSku(productDetails.getSku());
+        }
         product.setName(productDetails.getName());
         product.setDescription(productDetails.getDescription());
         product.setPrice(productDetails.getPrice());
         product.setStockQuantity(productDetails.getStockQuantity());
         product.setCategory(productDetails.getCategory());
-        return repository.save(product);
+        Product saved = repository.save(product);
+        responseCache.invalidate();
+        eventPublisher.publishEvent(new ProductChangedEvent(id, previousPrice, saved.getPrice(), previousStock, saved.getStockQuantity(), false));
+        return saved;
     }
 
     public Page<Product> searchProducts(String query, Pageable pageable) {
-        return repository.findByNameContainingIgnoreCaseOrCategoryContainingIgnoreCase(query, query, pageable);
+        return productReadFlight.execute("search:" + query + ":" + pageable,
+                () -> repository.findByNameContainingIgnoreCaseOrCategoryContainingIgnoreCase(query, query, pageable));
+    }
+
+    public List<TrendingProductResponse> getTrendingProducts(int limit) {
+        return toTrendingResponses(trendingTracker.top(limit));
+    }
+
+    public Page<Product> getTrendingProductsPage(Pageable pageable) {
+        List<TrendingScore> ranked = trendingTracker.top((int) Math.min(Integer.MAX_VALUE, pageable.getOffset() + pageable.getPageSize()));
+        List<TrendingScore> slice = pageable.getOffset() >= ranked.size()
+                ? List.of()
+                : ranked.subList((int) pageable.getOffset(), ranked.size());
+        List<Product> content = toTrendingResponses(slice).stream()
+                .map(TrendingProductResponse::getProduct)
+                .toList();
+        return new PageImpl<>(content, pageable, trendingTracker.size());
+    }
+
+    private List<TrendingProductResponse> toTrendingResponses(List<TrendingScore> scores) {
+        if (scores.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Product> products = repository.findAllById(scores.stream().map(TrendingScore::productId).toList())
+                .stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        List<TrendingProductResponse> responses = new ArrayList<>(scores.size());
+        for (TrendingScore score : scores) {
+            Product product = products.get(score.productId());
+            if (product != null) {
+                responses.add(new TrendingProductResponse(product, score.score()));
+            }
+        }
+        return responses;
     }
 }
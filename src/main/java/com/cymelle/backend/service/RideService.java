@@ -2,32 +2,67 @@ package com.cymelle.backend.service;
 
 import com.cymelle.backend.dto.RideRequest;
 import com.cymelle.backend.exception.ResourceNotFoundException;
+import com.cymelle.backend.exception.RideAlreadyClaimedException;
+import com.cymelle.backend.event.RideStatusChangedEvent;
+import com.cymelle.backend.geo.DriverLocationIndex;
+import com.cymelle.backend.geo.GeoPoint;
+import com.cymelle.backend.geo.Geohash;
+import com.cymelle.backend.geo.LocationResolver;
 import com.cymelle.backend.model.Ride;
 import com.cymelle.backend.model.RideStatus;
 import com.cymelle.backend.model.User;
 import com.cymelle.backend.repository.RideRepository;
+import com.cymelle.backend.repository.UserRepository;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
 public class RideService {
     private final RideRepository rideRepository;
+    private final DriverLocationIndex driverLocationIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PricingService pricingService;
+    private final LocationResolver locationResolver;
+    private final UserRepository userRepository;
 
+    /**
+     * Transactional so the ride and its first timeline entry commit together.
+     */
+    @Transactional
     public Ride requestRide(User customer, RideRequest request) {
+        requireBoth(request.getPickupLatitude(), request.getPickupLongitude(), "Pickup");
+        requireBoth(request.getDropoffLatitude(), request.getDropoffLongitude(), "Dropoff");
+        GeoPoint pickup = locate(request.getPickupLatitude(), request.getPickupLongitude(), request.getPickupLocation());
+        GeoPoint dropoff = locate(request.getDropoffLatitude(), request.getDropoffLongitude(), request.getDropoffLocation());
         Ride ride = Ride.builder()
                 .customer(customer)
                 .pickupLocation(request.getPickupLocation())
                 .dropoffLocation(request.getDropoffLocation())
+                .pickupLatitude(pickup != null ? pickup.latitude() : null)
+                .pickupLongitude(pickup != null ? pickup.longitude() : null)
+                .dropoffLatitude(dropoff != null ? dropoff.latitude() : null)
+                .dropoffLongitude(dropoff != null ? dropoff.longitude() : null)
+                .pickupZone(pickup != null ? Geohash.zoneOf(pickup.latitude(), pickup.longitude()) : null)
                 .status(RideStatus.REQUESTED)
-                .fare(BigDecimal.ZERO) 
+                .fare(upfrontFare(pickup, dropoff))
                 .build();
-        return rideRepository.save(ride);
+        Ride saved = rideRepository.save(ride);
+        eventPublisher.publishEvent(RideStatusChangedEvent.of(saved, null, customer.getId()));
+        return saved;
     }
 
     public Page<Ride> getRidesByCustomerId(Long customerId, Pageable pageable) {
@@ -38,31 +73,100 @@ public class RideService {
         return rideRepository.findById(id).orElseThrow(() -> new ResourceNotFoundException("Ride not found with id: " + id));
     }
 
+    @Timed(value = "rides.status.update", histogram = true)
+    @Transactional
     public Ride updateRideStatus(Long id, RideStatus status, User user) {
-        Ride ride = getRideById(id);
-        
         if (status == RideStatus.ACCEPTED) {
-            if (ride.getStatus() != RideStatus.REQUESTED) {
-                throw new IllegalStateException("Ride can only be accepted if it is in REQUESTED status.");
-            }
-            if (ride.getCustomer().getId().equals(user.getId())) {
-                throw new IllegalStateException("Drivers cannot accept a ride they requested as a customer.");
-            }
-            ride.setDriver(user);
-            ride.setFare(BigDecimal.valueOf(25.0)); // Dummy fare assignment
-        } else if (status == RideStatus.COMPLETED) {
-            if (ride.getStatus() != RideStatus.ACCEPTED) {
+            return claimRide(id, user);
+        }
+        Ride ride = getRideById(id);
+        RideStatus previousStatus = ride.getStatus();
+        LocalDateTime completedAt = ride.getCompletedAt();
+
+        if (status == RideStatus.COMPLETED) {
+            if (previousStatus != RideStatus.ACCEPTED) {
                 throw new IllegalStateException("Ride can only be completed after it has been accepted.");
             }
-            ride.setCompletedAt(LocalDateTime.now());
+            completedAt = LocalDateTime.now();
         } else if (status == RideStatus.CANCELLED) {
-            if (ride.getStatus() == RideStatus.COMPLETED) {
+            if (previousStatus == RideStatus.COMPLETED) {
                  throw new IllegalStateException("Cannot cancel a completed ride.");
             }
         }
-        
+
+        Long driverId = ride.getDriver() != null ? ride.getDriver().getId() : null;
+        // Conditional on the status read above, like a claim, so a racing transition is never overwritten
+        if (rideRepository.transition(id, previousStatus, status, completedAt) == 0) {
+            throw new ConcurrencyFailureException("Ride " + id + " changed status while it was being updated to " + status + "; reload and retry.");
+        }
+        if (driverId != null && (status == RideStatus.COMPLETED || status == RideStatus.CANCELLED)) {
+            driverLocationIndex.setAvailable(driverId, true);
+        }
+        // The update matched the status read above, so the ride as read plus this transition is what was written
         ride.setStatus(status);
-        return rideRepository.save(ride);
+        ride.setCompletedAt(completedAt);
+        eventPublisher.publishEvent(RideStatusChangedEvent.of(ride, previousStatus, user.getId()));
+        return ride;
+    }
+
+    /**
+     * Claims a ride with a single conditional update rather than read-check-write, so exactly one of any
+     * number of concurrent accepts succeeds. Losers are told why without waiting on the winner.
+     */
+    private Ride claimRide(Long id, User driver) {
+        if (rideRepository.claim(id, driver, pricingService.getFallbackFare(), LocalDateTime.now()) == 0) {
+            Ride ride = getRideById(id);
+            if (ride.getCustomer().getId().equals(driver.getId())) {
+                throw new IllegalStateException("Drivers cannot accept a ride they requested as a customer.");
+            }
+            if (ride.getStatus() == RideStatus.ACCEPTED || ride.getStatus() == RideStatus.COMPLETED) {
+                throw new RideAlreadyClaimedException("Ride " + id + " has already been claimed by another driver.");
+            }
+            throw new RideAlreadyClaimedException("Ride " + id + " is no longer open for acceptance (status " + ride.getStatus() + ").");
+        }
+        driverLocationIndex.setAvailable(driver.getId(), false);
+        Ride claimed = getRideById(id);
+        eventPublisher.publishEvent(RideStatusChangedEvent.of(claimed, RideStatus.REQUESTED, driver.getId()));
+        return claimed;
+    }
+
+    /**
+     * Applies a batch of dispatcher assignments in one transaction. Each is still a conditional claim, so
+     * a ride accepted by hand since the batch was planned is skipped rather than reassigned.
+     *
+     * @return the rides that were assigned
+     */
+    @Transactional
+    public List<Ride> assignRides(Map<Long, Long> driverByRide) {
+        BigDecimal fallbackFare = pricingService.getFallbackFare();
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> claimed = new ArrayList<>();
+        driverByRide.forEach((rideId, driverId) -> {
+            if (rideRepository.claim(rideId, userRepository.getReferenceById(driverId), fallbackFare, now) == 1) {
+                driverLocationIndex.setAvailable(driverId, false);
+                claimed.add(rideId);
+            }
+        });
+        List<Ride> rides = rideRepository.findAllById(claimed);
+        for (Ride ride : rides) {
+            eventPublisher.publishEvent(RideStatusChangedEvent.of(ride, RideStatus.REQUESTED, null));
+        }
+        return rides;
+    }
+
+    /**
+     * Rides a driver can act on: open rides around their last reported location and rides assigned to
+     * them. A driver who has not reported a location only sees open rides without a zone.
+     */
+    public Page<Ride> getRidesForDriver(User driver, Pageable pageable) {
+        return rideRepository.findRidesForDriver(driver.getId(), driverZones(driver), pageable);
+    }
+
+    public Page<Ride> searchRidesForDriver(User driver, RideStatus status, Pageable pageable) {
+        if (status == RideStatus.REQUESTED) {
+            return rideRepository.findOpenRidesInZones(driverZones(driver), pageable);
+        }
+        return rideRepository.findByDriverIdAndStatus(driver.getId(), status, pageable);
     }
 
     public Page<Ride> searchRidesByStatus(RideStatus status, Pageable pageable) {
@@ -84,4 +188,41 @@ public class RideService {
     public Page<Ride> searchRidesByCustomerEmailAndStatus(String email, RideStatus status, Pageable pageable) {
         return rideRepository.findByCustomerEmailAndStatus(email, status, pageable);
     }
+
+    /**
+     * Rides with both ends known are priced when requested, at the current surge; others are priced on
+     * acceptance.
+     */
+    private BigDecimal upfrontFare(GeoPoint pickup, GeoPoint dropoff) {
+        if (pickup == null || dropoff == null) {
+            return BigDecimal.ZERO;
+        }
+        return pricingService.quote(pickup.latitude(), pickup.longitude(), dropoff.latitude(), dropoff.longitude()).getFare();
+    }
+
+    /**
+     * Explicit coordinates win; otherwise the location text is resolved, and stays unlocated if unknown.
+     */
+    private GeoPoint locate(Double latitude, Double longitude, String location) {
+        GeoPoint explicit = GeoPoint.ofNullable(latitude, longitude);
+        return explicit != null ? explicit : locationResolver.resolve(location).orElse(null);
+    }
+
+    /**
+     * The zone of the driver's last reported location and its neighbours. Never empty, as the query needs
+     * at least one value; the placeholder matches no geohash.
+     */
+    private Collection<String> driverZones(User driver) {
+        DriverLocationIndex.DriverPosition position = driverLocationIndex.get(driver.getId());
+        if (position == null) {
+            return List.of("");
+        }
+        return Geohash.withNeighbours(Geohash.zoneOf(position.latitude(), position.longitude()));
+    }
+
+    private static void requireBoth(Double latitude, Double longitude, String label) {
+        if ((latitude == null) != (longitude == null)) {
+            throw new IllegalArgumentException(label + " latitude and longitude must be provided together.");
+        }
+    }
 }
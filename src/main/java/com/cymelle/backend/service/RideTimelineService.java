@@ -0,0 +1,78 @@
+package com.cymelle.backend.service;
+
+import com.cymelle.backend.dto.RidePhaseMetricsResponse;
+import com.cymelle.backend.dto.RideTimelineResponse;
+import com.cymelle.backend.model.Ride;
+import com.cymelle.backend.model.RideEvent;
+import com.cymelle.backend.model.RideStatus;
+import com.cymelle.backend.repository.RideEventRepository;
+import com.cymelle.backend.timeline.DurationHistogram;
+import com.cymelle.backend.timeline.RidePhaseMetrics;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class RideTimelineService {
+    private final RideEventRepository rideEventRepository;
+    private final RidePhaseMetrics ridePhaseMetrics;
+
+    public RideTimelineResponse getTimeline(Ride ride) {
+        List<RideTimelineResponse.Entry> entries = new ArrayList<>();
+        LocalDateTime previous = null;
+        LocalDateTime requestedAt = null;
+        LocalDateTime acceptedAt = null;
+        LocalDateTime completedAt = null;
+        for (RideEvent event : rideEventRepository.findByRideIdOrderByIdAsc(ride.getId())) {
+            entries.add(RideTimelineResponse.Entry.builder()
+                    .fromStatus(event.getFromStatus())
+                    .toStatus(event.getToStatus())
+                    .actorId(event.getActorId())
+                    .occurredAt(event.getOccurredAt())
+                    .secondsSincePrevious(previous != null ? seconds(previous, event.getOccurredAt()) : null)
+                    .build());
+            previous = event.getOccurredAt();
+            if (event.getFromStatus() == null) {
+                requestedAt = event.getOccurredAt();
+            } else if (event.getToStatus() == RideStatus.ACCEPTED) {
+                acceptedAt = event.getOccurredAt();
+            } else if (event.getToStatus() == RideStatus.COMPLETED) {
+                completedAt = event.getOccurredAt();
+            }
+        }
+        return RideTimelineResponse.builder()
+                .rideId(ride.getId())
+                .status(ride.getStatus())
+                .timeToAcceptSeconds(requestedAt != null && acceptedAt != null ? seconds(requestedAt, acceptedAt) : null)
+                .tripDurationSeconds(acceptedAt != null && completedAt != null ? seconds(acceptedAt, completedAt) : null)
+                .events(entries)
+                .build();
+    }
+
+    public List<RidePhaseMetricsResponse> getPhaseMetrics() {
+        return Arrays.stream(RidePhaseMetrics.Phase.values())
+                .map(phase -> {
+                    DurationHistogram histogram = ridePhaseMetrics.get(phase);
+                    return RidePhaseMetricsResponse.builder()
+                            .phase(phase)
+                            .count(histogram.count())
+                            .meanSeconds(histogram.mean() / 1000.0)
+                            .p50Seconds(histogram.quantile(0.50) / 1000.0)
+                            .p90Seconds(histogram.quantile(0.90) / 1000.0)
+                            .p99Seconds(histogram.quantile(0.99) / 1000.0)
+                            .maxSeconds(histogram.max() / 1000.0)
+                            .build();
+                })
+                .toList();
+    }
+
+    private static double seconds(LocalDateTime from, LocalDateTime to) {
+        return Duration.between(from, to).toMillis() / 1000.0;
+    }
+}
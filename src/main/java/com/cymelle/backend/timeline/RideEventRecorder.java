@@ -0,0 +1,30 @@
+package com.cymelle.backend.timeline;
+
+import com.cymelle.backend.event.RideStatusChangedEvent;
+import com.cymelle.backend.model.RideEvent;
+import com.cymelle.backend.repository.RideEventRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Appends every ride transition to the event log. Listens synchronously, so the entry is written in the
+ * same transaction as the transition and the two commit or roll back together.
+ */
+@Component
+@RequiredArgsConstructor
+public class RideEventRecorder {
+
+    private final RideEventRepository rideEventRepository;
+
+    @EventListener
+    public void onRideStatusChanged(RideStatusChangedEvent change) {
+        rideEventRepository.save(RideEvent.builder()
+                .rideId(change.rideId())
+                .fromStatus(change.previousStatus())
+                .toStatus(change.status())
+                .actorId(change.actorId())
+                .occurredAt(change.occurredAt())
+                .build());
+    }
+}
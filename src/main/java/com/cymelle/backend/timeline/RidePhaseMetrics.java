@@ -0,0 +1,57 @@
+package com.cymelle.backend.timeline;
+
+import com.cymelle.backend.event.RideStatusChangedEvent;
+import com.cymelle.backend.model.RideStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Phase durations across all rides, folded in from committed transitions as they happen so reading them
+ * never queries the event log. Covers transitions since the application started.
+ */
+@Component
+public class RidePhaseMetrics {
+
+    public enum Phase {
+        /** Requested until a driver accepted. */
+        TIME_TO_ACCEPT,
+        /** Requested until cancelled, unclaimed. */
+        TIME_TO_CANCEL,
+        /** Accepted until completed. */
+        TRIP_DURATION
+    }
+
+    private final Map<Phase, DurationHistogram> histograms = new EnumMap<>(Phase.class);
+
+    public RidePhaseMetrics() {
+        for (Phase phase : Phase.values()) {
+            histograms.put(phase, new DurationHistogram());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRideStatusChanged(RideStatusChangedEvent change) {
+        if (change.previousStatus() == RideStatus.REQUESTED && change.status() == RideStatus.ACCEPTED) {
+            record(Phase.TIME_TO_ACCEPT, change.requestedAt(), change.occurredAt());
+        } else if (change.previousStatus() == RideStatus.REQUESTED && change.status() == RideStatus.CANCELLED) {
+            record(Phase.TIME_TO_CANCEL, change.requestedAt(), change.occurredAt());
+        } else if (change.previousStatus() == RideStatus.ACCEPTED && change.status() == RideStatus.COMPLETED) {
+            record(Phase.TRIP_DURATION, change.acceptedAt(), change.occurredAt());
+        }
+    }
+
+    public DurationHistogram get(Phase phase) {
+        return histograms.get(phase);
+    }
+
+    private void record(Phase phase, LocalDateTime from, LocalDateTime to) {
+        if (from != null && to != null) {
+            histograms.get(phase).record(Duration.between(from, to).toMillis());
+        }
+    }
+}
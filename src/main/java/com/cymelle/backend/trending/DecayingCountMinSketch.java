@@ -0,0 +1,70 @@
+package com.cymelle.backend.trending;
+
+/**
+ * Count-min sketch over weighted long keys using conservative update. Counters are doubles so the
+ * owner can apply forward-decay weights and rescale everything in place. Not thread-safe.
+ */
+class DecayingCountMinSketch {
+
+    private static final long[] SEEDS = {
+            0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L,
+            0xFF51AFD7ED558CCDL, 0xC4CEB9FE1A85EC53L, 0x27D4EB2F165667C5L, 0x94D049BB133111EBL
+    };
+
+    private final int depth;
+    private final int mask;
+    private final double[][] counters;
+
+    DecayingCountMinSketch(int depth, int width) {
+        if (depth < 1 || depth > SEEDS.length) {
+            throw new IllegalArgumentException("Sketch depth must be between 1 and " + SEEDS.length);
+        }
+        int roundedWidth = Integer.highestOneBit(Math.max(16, width));
+        if (roundedWidth < width) {
+            roundedWidth <<= 1;
+        }
+        this.depth = depth;
+        this.mask = roundedWidth - 1;
+        this.counters = new double[depth][roundedWidth];
+    }
+
+    double add(long key, double weight) {
+        int[] slots = new int[depth];
+        double estimate = Double.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            slots[row] = slot(key, row);
+            estimate = Math.min(estimate, counters[row][slots[row]]);
+        }
+        double updated = estimate + weight;
+        for (int row = 0; row < depth; row++) {
+            if (counters[row][slots[row]] < updated) {
+                counters[row][slots[row]] = updated;
+            }
+        }
+        return updated;
+    }
+
+    double estimate(long key) {
+        double estimate = Double.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters[row][slot(key, row)]);
+        }
+        return estimate;
+    }
+
+    void scale(double factor) {
+        for (double[] row : counters) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] *= factor;
+            }
+        }
+    }
+
+    private int slot(long key, int row) {
+        long h = (key ^ SEEDS[row]) * 0xBF58476D1CE4E5B9L;
+        h ^= h >>> 31;
+        h *= 0x94D049BB133111EBL;
+        h ^= h >>> 29;
+        return (int) h & mask;
+    }
+}
@@ -0,0 +1,120 @@
+package com.cymelle.backend.trending;
+
+import com.cymelle.backend.event.OrderPlacedEvent;
+import com.cymelle.backend.event.ProductChangedEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Exponentially decayed sales counts per product. Uses forward decay: each sale is added with weight
+ * {@code e^(λ(t - landmark))} so stored counts never need to be aged, and reading divides by the
+ * weight of "now". A count-min sketch holds every product; a small candidate set tracks the current
+ * heavy hitters so top-N is answered without scanning anything.
+ */
+@Component
+public class TrendingTracker {
+
+    private static final double RESCALE_THRESHOLD = 1e12;
+
+    private final Clock clock;
+    private final double lambdaPerMilli;
+    private final int capacity;
+    private final DecayingCountMinSketch sketch;
+    private final Map<Long, Double> candidates = new HashMap<>();
+    private long landmarkMillis;
+
+    @Autowired
+    public TrendingTracker(
+            @Value("${catalog.trending.half-life:PT6H}") Duration halfLife,
+            @Value("${catalog.trending.capacity:200}") int capacity,
+            @Value("${catalog.trending.sketch-depth:4}") int sketchDepth,
+            @Value("${catalog.trending.sketch-width:4096}") int sketchWidth
+    ) {
+        this(Clock.systemUTC(), halfLife, capacity, sketchDepth, sketchWidth);
+    }
+
+    TrendingTracker(Clock clock, Duration halfLife, int capacity, int sketchDepth, int sketchWidth) {
+        this.clock = clock;
+        this.lambdaPerMilli = Math.log(2) / halfLife.toMillis();
+        this.capacity = capacity;
+        this.sketch = new DecayingCountMinSketch(sketchDepth, sketchWidth);
+        this.landmarkMillis = clock.millis();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderPlaced(OrderPlacedEvent event) {
+        for (OrderPlacedEvent.Item item : event.items()) {
+            recordSale(item.productId(), item.quantity());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.deleted()) {
+            synchronized (this) {
+                candidates.remove(event.productId());
+            }
+        }
+    }
+
+    public synchronized void recordSale(long productId, int quantity) {
+        long now = clock.millis();
+        double weight = Math.exp(lambdaPerMilli * (now - landmarkMillis));
+        if (weight > RESCALE_THRESHOLD) {
+            rescale(weight, now);
+            weight = 1.0;
+        }
+        double estimate = sketch.add(productId, quantity * weight);
+        if (candidates.containsKey(productId) || candidates.size() < capacity) {
+            candidates.put(productId, estimate);
+            return;
+        }
+        Map.Entry<Long, Double> weakest = null;
+        for (Map.Entry<Long, Double> entry : candidates.entrySet()) {
+            if (weakest == null || entry.getValue() < weakest.getValue()) {
+                weakest = entry;
+            }
+        }
+        if (weakest != null && estimate > weakest.getValue()) {
+            candidates.remove(weakest.getKey());
+            candidates.put(productId, estimate);
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} products ordered by decayed sales, highest first.
+     */
+    public synchronized List<TrendingScore> top(int limit) {
+        double decay = Math.exp(-lambdaPerMilli * (clock.millis() - landmarkMillis));
+        List<TrendingScore> scores = new ArrayList<>(candidates.size());
+        for (Long productId : candidates.keySet()) {
+            scores.add(new TrendingScore(productId, sketch.estimate(productId) * decay));
+        }
+        scores.sort(Comparator.comparingDouble(TrendingScore::score).reversed());
+        return scores.size() > limit ? new ArrayList<>(scores.subList(0, limit)) : scores;
+    }
+
+    public synchronized int size() {
+        return candidates.size();
+    }
+
+    private void rescale(double weight, long now) {
+        double factor = 1.0 / weight;
+        sketch.scale(factor);
+        candidates.replaceAll((id, value) -> value * factor);
+        landmarkMillis = now;
+    }
+
+    public record TrendingScore(long productId, double score) {
+    }
+}
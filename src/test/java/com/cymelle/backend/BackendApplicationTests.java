@@ -1,32 +1,61 @@
 package com.cymelle.backend;
 
+import com.cymelle.backend.dispatch.BatchDispatcher;
 import com.cymelle.backend.dto.*;
+import com.cymelle.backend.event.ProductChangedEvent;
+import com.cymelle.backend.event.RideFeed;
+import com.cymelle.backend.geo.DriverLocationRecorder;
+import com.cymelle.backend.geo.Geohash;
 import com.cymelle.backend.model.OrderStatus;
 import com.cymelle.backend.model.Product;
 import com.cymelle.backend.model.RideStatus;
 import com.cymelle.backend.model.Role;
+import com.cymelle.backend.model.User;
+import com.cymelle.backend.repository.UserRepository;
+import com.cymelle.backend.service.OrderService;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.annotation.Propagation;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
 
 @SpringBootTest
 @AutoConfigureMockMvc
+@AutoConfigureObservability
+@Import(QueryBudgets.class)
 @Transactional
+@RecordApplicationEvents
 class BackendApplicationTests {
 
     @Autowired
@@ -35,6 +64,33 @@ class BackendApplicationTests {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private ApplicationEvents applicationEvents;
+
+    @Autowired
+    private DriverLocationRecorder driverLocationRecorder;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private RideFeed rideFeed;
+
+    @Autowired
+    private BatchDispatcher batchDispatcher;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private UserRepository userRepository;
+
     // Helpers
     private String authenticateAndGetToken(String email, String password) throws Exception {
         AuthenticationRequest request = AuthenticationRequest.builder()
@@ -242,6 +298,212 @@ class BackendApplicationTests {
                 .andExpect(jsonPath("$.content", hasSize(greaterThanOrEqualTo(2))));
     }
 
+    @Test
+    void shouldServeCachedProductAndInvalidateOnUpdate() throws Exception {
+        String adminToken = registerAndGetToken("admin_cache@example.com", Role.ADMIN);
+        Product product = Product.builder().name("Cached Lamp").price(BigDecimal.valueOf(40)).stockQuantity(3).category("Home").build();
+        MvcResult prodResult = mockMvc.perform(post("/api/v1/products").header("Authorization", "Bearer " + adminToken).contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(product))).andReturn();
+        Long prodId = objectMapper.readTree(prodResult.getResponse().getContentAsString()).get("id").asLong();
+
+        MvcResult first = mockMvc.perform(get("/api/v1/products/" + prodId))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.price").value(40.0))
+                .andExpect(header().exists("ETag"))
+                .andReturn();
+        String etag = first.getResponse().getHeader("ETag");
+
+        // Unchanged representation is revalidated without a body
+        mockMvc.perform(get("/api/v1/products/" + prodId).header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        // A write drops the rendered entry
+        product.setPrice(BigDecimal.valueOf(45));
+        mockMvc.perform(put("/api/v1/products/" + prodId)
+                        .header("Authorization", "Bearer " + adminToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(product)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/v1/products/" + prodId).header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.price").value(45.0));
+    }
+
+    @Test
+    void shouldBulkUpsertProductsBySku() throws Exception {
+        String adminToken = registerAndGetToken("admin_import@example.com", Role.ADMIN);
+
+        String csv = """
+                sku,name,description,price,stockQuantity,category
+                SKU-100,Desk Fan,"Quiet, 3 speeds",35.50,12,Home
+                SKU-101,Kettle,,20,5,Kitchen
+                SKU-102,Broken Row,,-1,5,Kitchen
+                """;
+        mockMvc.perform(post("/api/v1/products/import")
+                        .header("Authorization", "Bearer " + adminToken)
+                        .contentType("text/csv")
+                        .content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalRows").value(3))
+                .andExpect(jsonPath("$.inserted").value(2))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.errors[0].row").value(4))
+                .andExpect(jsonPath("$.errors[0].sku").value("SKU-102"));
+
+        String ndjson = """
+                {"sku":"SKU-100","name":"Desk Fan","price":30,"stockQuantity":7,"category":"Home"}
+                {"sku":"SKU-103","name":"Toaster","price":25,"stockQuantity":4,"category":"Kitchen"}
+                """;
+        mockMvc.perform(post("/api/v1/products/import")
+                        .header("Authorization", "Bearer " + adminToken)
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(ndjson))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.inserted").value(1))
+                .andExpect(jsonPath("$.updated").value(1))
+                .andExpect(jsonPath("$.failed").value(0));
+
+        mockMvc.perform(get("/api/v1/products?search=Desk Fan"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.content[0].price").value(30.0))
+                .andExpect(jsonPath("$.content[0].stockQuantity").value(7));
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void shouldCountRepeatedSkusWithTheirBatchOutcome() throws Exception {
+        // Batches of two SKUs, committed for real so the failing batch rolls back on its own
+        String adminToken = registerAndGetToken("admin_import_repeat@example.com", Role.ADMIN);
+        try {
+            String csv = """
+                    sku,name,description,price,stockQuantity,category
+                    SKU-300,Rake,,10,1,ImportRepeatTest
+                    SKU-300,Rake,,12,1,ImportRepeatTest
+                    SKU-301,Spade,%s,10,1,ImportRepeatTest
+                    SKU-302,Hoe,,5,1,ImportRepeatTest
+                    SKU-302,Hoe,,6,1,ImportRepeatTest
+                    """.formatted("x".repeat(300));
+            mockMvc.perform(post("/api/v1/products/import")
+                            .header("Authorization", "Bearer " + adminToken)
+                            .contentType("text/csv")
+                            .content(csv))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.totalRows").value(5))
+                    .andExpect(jsonPath("$.inserted").value(1))
+                    .andExpect(jsonPath("$.updated").value(1))
+                    .andExpect(jsonPath("$.failed").value(3))
+                    .andExpect(jsonPath("$.errors[*].row", containsInAnyOrder(2, 3, 4)))
+                    .andExpect(jsonPath("$.errorsTruncated").value(false));
+
+            assertThat(jdbcTemplate.queryForObject("SELECT price FROM products WHERE sku = ?", BigDecimal.class, "SKU-302"),
+                    comparesEqualTo(BigDecimal.valueOf(6)));
+        } finally {
+            jdbcTemplate.update("DELETE FROM products WHERE category = ?", "ImportRepeatTest");
+            jdbcTemplate.update("DELETE FROM users WHERE email = ?", "admin_import_repeat@example.com");
+        }
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void shouldKeepCommittedImportBatchesVisibleWhenTheUploadFails() throws Exception {
+        // Each batch commits on its own, so this test commits and cleans up after itself
+        String adminToken = registerAndGetToken("admin_import_fail@example.com", Role.ADMIN);
+        try {
+            mockMvc.perform(get("/api/v1/products?search=Garden Hose"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.content", hasSize(0)));
+
+            // The first two rows commit as a batch before the unterminated quote fails the upload
+            String csv = """
+                    sku,name,description,price,stockQuantity,category
+                    SKU-200,Garden Hose,,15,9,Garden
+                    SKU-201,Garden Hose Reel,,40,3,Garden
+                    SKU-202,"Broken,,1,1,Garden
+                    """;
+            mockMvc.perform(post("/api/v1/products/import")
+                            .header("Authorization", "Bearer " + adminToken)
+                            .contentType("text/csv")
+                            .content(csv))
+                    .andExpect(status().isBadRequest());
+
+            assertThat(jdbcTemplate.queryForList("SELECT sku FROM products WHERE sku LIKE 'SKU-20%' ORDER BY sku", String.class),
+                    contains("SKU-200", "SKU-201"));
+            mockMvc.perform(get("/api/v1/products?search=Garden Hose"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.content", hasSize(2)));
+            List<ProductChangedEvent> changes = applicationEvents.stream(ProductChangedEvent.class).toList();
+            assertThat(changes, hasSize(2));
+            assertThat(changes.get(0).productId(), notNullValue());
+            assertThat(changes.get(1).price(), comparesEqualTo(BigDecimal.valueOf(40)));
+        } finally {
+            jdbcTemplate.update("DELETE FROM products WHERE sku IN (?, ?, ?)", "SKU-200", "SKU-201", "SKU-202");
+            jdbcTemplate.update("DELETE FROM users WHERE email = ?", "admin_import_fail@example.com");
+        }
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void shouldRankTrendingProductsByRecentSales() throws Exception {
+        // Sales reach the tracker when an order commits, so this test commits and cleans up after itself
+        String adminToken = registerAndGetToken("admin_trending@example.com", Role.ADMIN);
+        registerAndGetToken("cust_trending@example.com", Role.CUSTOMER);
+        try {
+            User customer = userRepository.findByEmail("cust_trending@example.com").orElseThrow();
+            Long steady = createProduct(adminToken, "Trending Steady");
+            Long hot = createProduct(adminToken, "Trending Hot");
+            Long slow = createProduct(adminToken, "Trending Slow");
+            placeOrder(customer, steady, 3);
+            placeOrder(customer, slow, 1);
+            placeOrder(customer, hot, 2);
+            placeOrder(customer, hot, 3);
+
+            MvcResult top = mockMvc.perform(get("/api/v1/products/trending?limit=50"))
+                    .andExpect(status().isOk())
+                    .andReturn();
+            assertThat(productIds(objectMapper.readTree(top.getResponse().getContentAsString()), "/product/id"),
+                    containsInRelativeOrder(hot, steady, slow));
+
+            MvcResult page = mockMvc.perform(get("/api/v1/products?sort=trending&size=50"))
+                    .andExpect(status().isOk())
+                    .andReturn();
+            assertThat(productIds(objectMapper.readTree(page.getResponse().getContentAsString()).path("content"), "/id"),
+                    containsInRelativeOrder(hot, steady, slow));
+
+            mockMvc.perform(get("/api/v1/products?sort=trending&search=Lamp"))
+                    .andExpect(status().isBadRequest());
+        } finally {
+            jdbcTemplate.update("DELETE FROM order_items WHERE order_id IN (SELECT o.id FROM orders o JOIN users u ON u.id = o.user_id WHERE u.email = ?)", "cust_trending@example.com");
+            jdbcTemplate.update("DELETE FROM orders WHERE user_id IN (SELECT id FROM users WHERE email = ?)", "cust_trending@example.com");
+            jdbcTemplate.update("DELETE FROM products WHERE category = ?", "TrendingTest");
+            jdbcTemplate.update("DELETE FROM users WHERE email IN (?, ?)", "admin_trending@example.com", "cust_trending@example.com");
+        }
+    }
+
+    private Long createProduct(String adminToken, String name) throws Exception {
+        Product product = Product.builder().name(name).price(BigDecimal.TEN).stockQuantity(100).category("TrendingTest").build();
+        MvcResult result = mockMvc.perform(post("/api/v1/products")
+                        .header("Authorization", "Bearer " + adminToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(product)))
+                .andExpect(status().isOk())
+                .andReturn();
+        return objectMapper.readTree(result.getResponse().getContentAsString()).get("id").asLong();
+    }
+
+    private void placeOrder(User customer, Long productId, int quantity) {
+        orderService.placeOrder(customer, OrderRequest.builder()
+                .items(List.of(OrderItemRequest.builder().productId(productId).quantity(quantity).build()))
+                .build());
+    }
+
+    private static List<Long> productIds(JsonNode items, String idPointer) {
+        List<Long> ids = new ArrayList<>();
+        items.forEach(item -> ids.add(item.at(idPointer).asLong()));
+        return ids;
+    }
+
     // --- 3. Order Management ---
 
     @Test
@@ -367,6 +629,307 @@ class BackendApplicationTests {
                 .andExpect(jsonPath("$.driver").exists()); // Driver should be assigned
     }
 
+    @Test
+    void shouldScopeDriverRideListingToTheirZoneAndAssignments() throws Exception {
+        String custToken = registerAndGetToken("zone_rider@example.com", Role.CUSTOMER);
+        String driverToken = registerAndGetToken("zone_driver@example.com", Role.DRIVER);
+
+        // Driver in Nakuru; one ride there, one in Thika, one without coordinates
+        mockMvc.perform(put("/api/v1/drivers/me/location").header("Authorization", "Bearer " + driverToken).contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(DriverLocationRequest.builder().latitude(-0.3031).longitude(36.0800).build())))
+                .andExpect(status().isNoContent());
+        Long nearby = requestRideAt(custToken, -0.3040, 36.0810);
+        Long farAway = requestRideAt(custToken, -1.0333, 37.0693);
+        mockMvc.perform(post("/api/v1/rides").header("Authorization", "Bearer " + custToken).contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(RideRequest.builder().pickupLocation("Somewhere").dropoffLocation("Elsewhere").build())))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/v1/rides?status=REQUESTED").header("Authorization", "Bearer " + driverToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(2)))
+                .andExpect(jsonPath("$.content[*].id", hasItem(nearby.intValue())))
+                .andExpect(jsonPath("$.content[*].id", not(hasItem(farAway.intValue()))));
+
+        // Once the driver takes the far ride it shows up as theirs
+        mockMvc.perform(patch("/api/v1/rides/" + farAway + "/status").header("Authorization", "Bearer " + driverToken).contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(UpdateRideStatusRequest.builder().status(RideStatus.ACCEPTED).build())))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/v1/rides").header("Authorization", "Bearer " + driverToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(3)))
+                .andExpect(jsonPath("$.content[*].id", hasItems(nearby.intValue(), farAway.intValue())));
+        mockMvc.perform(get("/api/v1/rides?status=ACCEPTED").header("Authorization", "Bearer " + driverToken))
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.content[0].id").value(farAway));
+
+        Integer indexes = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.INDEXES WHERE INDEX_NAME IN ('IDX_RIDES_STATUS_ZONE_REQUESTED', 'IDX_RIDES_DRIVER_STATUS')", Integer.class);
+        assertThat(indexes, is(2));
+    }
+
+    @Test
+    void shouldRecordRideTimeline() throws Exception {
+        String custToken = registerAndGetToken("timeline_rider@example.com", Role.CUSTOMER);
+        String driverToken = registerAndGetToken("timeline_driver@example.com", Role.DRIVER);
+        String otherToken = registerAndGetToken("timeline_other@example.com", Role.CUSTOMER);
+        String adminToken = registerAndGetToken("timeline_admin@example.com", Role.ADMIN);
+
+        RideRequest request = RideRequest.builder().pickupLocation("A").dropoffLocation("B").build();
+        MvcResult rideResult = mockMvc.perform(post("/api/v1/rides").header("Authorization", "Bearer " + custToken).contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andReturn();
+        JsonNode ride = objectMapper.readTree(rideResult.getResponse().getContentAsString());
+        Long rideId = ride.get("id").asLong();
+        for (RideStatus next : List.of(RideStatus.ACCEPTED, RideStatus.COMPLETED)) {
+            mockMvc.perform(patch("/api/v1/rides/" + rideId + "/status").header("Authorization", "Bearer " + driverToken).contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(UpdateRideStatusRequest.builder().status(next).build())))
+                    .andExpect(status().isOk());
+        }
+
+        mockMvc.perform(get("/api/v1/rides/" + rideId + "/timeline").header("Authorization", "Bearer " + custToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("COMPLETED"))
+                .andExpect(jsonPath("$.events", hasSize(3)))
+                .andExpect(jsonPath("$.events[0].fromStatus").doesNotExist())
+                .andExpect(jsonPath("$.events[0].toStatus").value("REQUESTED"))
+                .andExpect(jsonPath("$.events[1].toStatus").value("ACCEPTED"))
+                .andExpect(jsonPath("$.events[1].actorId").isNumber())
+                .andExpect(jsonPath("$.events[2].fromStatus").value("ACCEPTED"))
+                .andExpect(jsonPath("$.events[2].toStatus").value("COMPLETED"))
+                .andExpect(jsonPath("$.timeToAcceptSeconds").isNumber())
+                .andExpect(jsonPath("$.tripDurationSeconds").isNumber());
+        mockMvc.perform(get("/api/v1/rides/" + rideId + "/timeline").header("Authorization", "Bearer " + otherToken))
+                .andExpect(status().isForbidden());
+
+        mockMvc.perform(get("/api/v1/rides/phase-metrics").header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].phase", contains("TIME_TO_ACCEPT", "TIME_TO_CANCEL", "TRIP_DURATION")));
+        mockMvc.perform(get("/api/v1/rides/phase-metrics").header("Authorization", "Bearer " + custToken))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void shouldMatchNearestAvailableDrivers() throws Exception {
+        String custToken = registerAndGetToken("geo_rider@example.com", Role.CUSTOMER);
+        String nearToken = registerAndGetToken("geo_near@example.com", Role.DRIVER);
+        String farToken = registerAndGetToken("geo_far@example.com", Role.DRIVER);
+        String adminToken = registerAndGetToken("geo_admin@example.com", Role.ADMIN);
+
+        DriverLocationRequest near = DriverLocationRequest.builder().latitude(-1.2870).longitude(36.8200).build();
+        DriverLocationRequest far = DriverLocationRequest.builder().latitude(-1.3500).longitude(36.9000).build();
+        mockMvc.perform(put("/api/v1/drivers/me/location").header("Authorization", "Bearer " + nearToken).contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(near)))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(put("/api/v1/drivers/me/location").header("Authorization", "Bearer " + farToken).contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(far)))
+                .andExpect(status().isNoContent());
+
+        // Customers cannot report driver locations
+        mockMvc.perform(put("/api/v1/drivers/me/location").header("Authorization", "Bearer " + custToken).contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(near)))
+                .andExpect(status().isForbidden());
+
+        RideRequest rideReq = RideRequest.builder()
+                .pickupLocation("Kenyatta Avenue").dropoffLocation("Westlands")
+                .pickupLatitude(-1.2864).pickupLongitude(36.8172)
+                .dropoffLatitude(-1.2635).dropoffLongitude(36.8045)
+                .build();
+        MvcResult rideResult = mockMvc.perform(post("/api/v1/rides").header("Authorization", "Bearer " + custToken).contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(rideReq)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.pickupLatitude").value(-1.2864))
+                .andReturn();
+        Long rideId = objectMapper.readTree(rideResult.getResponse().getContentAsString()).get("id").asLong();
+
+        mockMvc.perform(get("/api/v1/rides/" + rideId + "/drivers?limit=2").header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].distanceMeters", lessThan(1000.0)))
+                .andExpect(jsonPath("$[1].distanceMeters", greaterThan(5000.0)));
+
+        // Once the nearest driver accepts, they are no longer offered
+        UpdateRideStatusRequest accept = UpdateRideStatusRequest.builder().status(RideStatus.ACCEPTED).build();
+        mockMvc.perform(patch("/api/v1/rides/" + rideId + "/status").header("Authorization", "Bearer " + nearToken).contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(accept)))
+                .andExpect(status().isOk());
+        mockMvc.perform(patch("/api/v1/rides/" + rideId + "/status").header("Authorization", "Bearer " + farToken).contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(accept)))
+                .andExpect(status().isConflict());
+        mockMvc.perform(get("/api/v1/rides/" + rideId + "/drivers?limit=2").header("Authorization", "Bearer " + custToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].distanceMeters", greaterThan(5000.0)));
+    }
+
+    @Test
+    void shouldDispatchOpenRidesMinimizingTotalPickupDistance() throws Exception {
+        String custToken = registerAndGetToken("batch_rider@example.com", Role.CUSTOMER);
+        String eastToken = registerAndGetToken("batch_east@example.com", Role.DRIVER);
+        String westToken = registerAndGetToken("batch_west@example.com", Role.DRIVER);
+
+        // Near the equator: the older ride's nearest driver is east of it, but sending them there strands the
+        // newer ride with a driver 1.8 km away; the optimum sends the west driver to the older ride
+        mockMvc.perform(put("/api/v1/drivers/me/location").header("Authorization", "Bearer " + eastToken).contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(DriverLocationRequest.builder().latitude(0.5143).longitude(35.2754).build())))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(put("/api/v1/drivers/me/location").header("Authorization", "Bearer " + westToken).contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(DriverLocationRequest.builder().latitude(0.5143).longitude(35.2610).build())))
+                .andExpect(status().isNoContent());
+        Long olderRide = requestRideAt(custToken, 0.5143, 35.2700);
+        Long newerRide = requestRideAt(custToken, 0.5143, 35.2790);
+
+        assertThat(batchDispatcher.dispatch(), hasSize(2));
+
+        mockMvc.perform(get("/api/v1/rides/" + olderRide).header("Authorization", "Bearer " + custToken))
+                .andExpect(jsonPath("$.status").value("ACCEPTED"))
+                .andExpect(jsonPath("$.driver.email").value("batch_west@example.com"));
+        mockMvc.perform(get("/api/v1/rides/" + newerRide).header("Authorization", "Bearer " + custToken))
+                .andExpect(jsonPath("$.status").value("ACCEPTED"))
+                .andExpect(jsonPath("$.driver.email").value("batch_east@example.com"));
+        assertThat(batchDispatcher.dispatch(), empty());
+    }
+
+    private Long requestRideAt(String token, double latitude, double longitude) throws Exception {
+        RideRequest request = RideRequest.builder()
+                .pickupLocation("Pickup").dropoffLocation("Dropoff")
+                .pickupLatitude(latitude).pickupLongitude(longitude)
+                .build();
+        MvcResult result = mockMvc.perform(post("/api/v1/rides").header("Authorization", "Bearer " + token).contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andReturn();
+        return objectMapper.readTree(result.getResponse().getContentAsString()).get("id").asLong();
+    }
+
+    @Test
+    void shouldIngestBatchedDriverLocations() throws Exception {
+        String custToken = registerAndGetToken("ingest_rider@example.com", Role.CUSTOMER);
+        String driverToken = registerAndGetToken("ingest_driver@example.com", Role.DRIVER);
+        String adminToken = registerAndGetToken("ingest_admin@example.com", Role.ADMIN);
+
+        // Second sample is the newest; the third has an out-of-range latitude
+        String batch = """
+                [{"latitude": -4.0600, "longitude": 39.6700, "timestamp": 1000},
+                 {"latitude": -4.0435, "longitude": 39.6682, "timestamp": 2000},
+                 {"latitude": 95.0, "longitude": 39.6682}]
+                """;
+        mockMvc.perform(post("/api/v1/drivers/locations").header("Authorization", "Bearer " + driverToken).contentType(MediaType.APPLICATION_JSON).content(batch))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.received").value(3))
+                .andExpect(jsonPath("$.applied").value(2))
+                .andExpect(jsonPath("$.rejected").value(1));
+
+        // Drivers may only report for themselves
+        mockMvc.perform(post("/api/v1/drivers/locations").header("Authorization", "Bearer " + driverToken).contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"driverId\": 999999, \"latitude\": -4.04, \"longitude\": 39.66}]"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(post("/api/v1/drivers/locations").header("Authorization", "Bearer " + driverToken).contentType(MediaType.APPLICATION_JSON).content("{\"latitude\": 1}"))
+                .andExpect(status().isBadRequest());
+
+        RideRequest rideReq = RideRequest.builder()
+                .pickupLocation("Moi Avenue").dropoffLocation("Nyali")
+                .pickupLatitude(-4.0435).pickupLongitude(39.6682)
+                .build();
+        MvcResult rideResult = mockMvc.perform(post("/api/v1/rides").header("Authorization", "Bearer " + custToken).contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(rideReq)))
+                .andExpect(status().isOk())
+                .andReturn();
+        Long rideId = objectMapper.readTree(rideResult.getResponse().getContentAsString()).get("id").asLong();
+        mockMvc.perform(get("/api/v1/rides/" + rideId + "/drivers?limit=1").header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].distanceMeters", lessThan(10.0)));
+
+        driverLocationRecorder.flush();
+        Integer samples = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM driver_location_samples WHERE latitude BETWEEN -4.07 AND -4.04", Integer.class);
+        assertThat(samples, greaterThanOrEqualTo(1));
+    }
+
+    @Test
+    void shouldOpenZoneScopedRideFeedForDrivers() throws Exception {
+        String custToken = registerAndGetToken("feed_rider@example.com", Role.CUSTOMER);
+        String driverToken = registerAndGetToken("feed_driver@example.com", Role.DRIVER);
+
+        RideRequest rideReq = RideRequest.builder()
+                .pickupLocation("Kisumu Pier").dropoffLocation("Airport")
+                .pickupLatitude(-0.0917).pickupLongitude(34.7680)
+                .build();
+        mockMvc.perform(post("/api/v1/rides").header("Authorization", "Bearer " + custToken).contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(rideReq)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.pickupZone").value(Geohash.zoneOf(-0.0917, 34.7680)));
+
+        mockMvc.perform(get("/api/v1/rides/feed").header("Authorization", "Bearer " + custToken))
+                .andExpect(status().isForbidden());
+        // Without zones the driver needs a reported location
+        mockMvc.perform(get("/api/v1/rides/feed").header("Authorization", "Bearer " + driverToken))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v1/rides/feed?zones=nope!").header("Authorization", "Bearer " + driverToken))
+                .andExpect(status().isBadRequest());
+
+        DriverLocationRequest location = DriverLocationRequest.builder().latitude(-0.0917).longitude(34.7680).build();
+        mockMvc.perform(put("/api/v1/drivers/me/location").header("Authorization", "Bearer " + driverToken).contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(location)))
+                .andExpect(status().isNoContent());
+        int subscribers = rideFeed.getStream().getSubscriberCount();
+        mockMvc.perform(get("/api/v1/rides/feed").header("Authorization", "Bearer " + driverToken))
+                .andExpect(request().asyncStarted());
+        assertThat(rideFeed.getStream().getSubscriberCount(), greaterThan(subscribers));
+    }
+
+    @Test
+    void shouldQuoteAndPriceRidesUpfront() throws Exception {
+        String custToken = registerAndGetToken("quote_rider@example.com", Role.CUSTOMER);
+        String driverToken = registerAndGetToken("quote_driver@example.com", Role.DRIVER);
+
+        FareQuoteRequest quoteReq = FareQuoteRequest.builder()
+                .pickupLatitude(-3.2175).pickupLongitude(40.1191)
+                .dropoffLatitude(-3.2300).dropoffLongitude(40.1000)
+                .build();
+        MvcResult quoteResult = mockMvc.perform(post("/api/v1/rides/quote").header("Authorization", "Bearer " + custToken).contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(quoteReq)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.zone").value(Geohash.zoneOf(-3.2175, 40.1191)))
+                .andExpect(jsonPath("$.surgeMultiplier").value(1.0))
+                .andExpect(jsonPath("$.distanceKm", greaterThan(2.0)))
+                .andReturn();
+        double quotedFare = objectMapper.readTree(quoteResult.getResponse().getContentAsString()).get("fare").asDouble();
+        assertThat(quotedFare, greaterThan(5.0));
+
+        mockMvc.perform(post("/api/v1/rides/quote").header("Authorization", "Bearer " + custToken).contentType(MediaType.APPLICATION_JSON).content("{\"pickupLatitude\": -3.2}"))
+                .andExpect(status().isBadRequest());
+
+        RideRequest rideReq = RideRequest.builder()
+                .pickupLocation("Malindi Jetty").dropoffLocation("Casuarina")
+                .pickupLatitude(-3.2175).pickupLongitude(40.1191)
+                .dropoffLatitude(-3.2300).dropoffLongitude(40.1000)
+                .build();
+        MvcResult rideResult = mockMvc.perform(post("/api/v1/rides").header("Authorization", "Bearer " + custToken).contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(rideReq)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.fare").value(quotedFare))
+                .andReturn();
+        Long rideId = objectMapper.readTree(rideResult.getResponse().getContentAsString()).get("id").asLong();
+
+        // The upfront fare survives acceptance
+        UpdateRideStatusRequest accept = UpdateRideStatusRequest.builder().status(RideStatus.ACCEPTED).build();
+        mockMvc.perform(patch("/api/v1/rides/" + rideId + "/status").header("Authorization", "Bearer " + driverToken).contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(accept)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.fare").value(quotedFare));
+
+        // Known place names are resolved from the gazetteer
+        FareQuoteRequest named = FareQuoteRequest.builder().pickupLocation("kenyatta avenue").dropoffLocation("JKIA").build();
+        mockMvc.perform(post("/api/v1/rides/quote").header("Authorization", "Bearer " + custToken).contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(named)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.distanceKm", greaterThan(10.0)));
+        FareQuoteRequest unknown = FareQuoteRequest.builder().pickupLocation("Atlantis").dropoffLocation("JKIA").build();
+        mockMvc.perform(post("/api/v1/rides/quote").header("Authorization", "Bearer " + custToken).contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(unknown)))
+                .andExpect(status().isBadRequest());
+        RideRequest namedRide = RideRequest.builder().pickupLocation("Westlands").dropoffLocation("Karen").build();
+        mockMvc.perform(post("/api/v1/rides").header("Authorization", "Bearer " + custToken).contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(namedRide)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.pickupLatitude").value(-1.2676))
+                .andExpect(jsonPath("$.fare", greaterThan(5.0)));
+
+        // Rides without coordinates are charged the flat fallback fare on acceptance
+        RideRequest unlocated = RideRequest.builder().pickupLocation("Somewhere").dropoffLocation("Elsewhere").build();
+        MvcResult unlocatedResult = mockMvc.perform(post("/api/v1/rides").header("Authorization", "Bearer " + custToken).contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(unlocated)))
+                .andExpect(status().isOk())
+                .andReturn();
+        Long unlocatedId = objectMapper.readTree(unlocatedResult.getResponse().getContentAsString()).get("id").asLong();
+        mockMvc.perform(patch("/api/v1/rides/" + unlocatedId + "/status").header("Authorization", "Bearer " + driverToken).contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(accept)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.fare").value(25.0));
+    }
+
     // --- 5. Search Functionality (Orders & Rides) ---
 
     @Test
@@ -582,4 +1145,132 @@ class BackendApplicationTests {
         mockMvc.perform(get("/api/v1/rides/" + rideId).header("Authorization", "Bearer " + driverToken))
                 .andExpect(status().isOk());
     }
+
+    // --- 7. Observability ---
+
+    @Test
+    void shouldRecordTokensNotCheckedAgainstAUserAsSkipped() throws Exception {
+        String custToken = registerAndGetToken("cust_skipped_jwt@example.com", Role.CUSTOMER);
+        double valid = jwtValidations("valid");
+        double skipped = jwtValidations("skipped");
+
+        // Already authenticated, so the token is parsed but never validated
+        mockMvc.perform(get("/api/v1/products")
+                        .with(user("cust_skipped_jwt@example.com"))
+                        .header("Authorization", "Bearer " + custToken))
+                .andExpect(status().isOk());
+        assertThat(jwtValidations("skipped"), is(skipped + 1));
+        assertThat(jwtValidations("valid"), is(valid));
+
+        mockMvc.perform(get("/api/v1/products").header("Authorization", "Bearer " + custToken))
+                .andExpect(status().isOk());
+        assertThat(jwtValidations("valid"), is(valid + 1));
+    }
+
+    private double jwtValidations(String outcome) {
+        return meterRegistry.get("auth.jwt.validation").tag("outcome", outcome).timer().count();
+    }
+
+    @Test
+    void shouldExposeMetricsInPrometheusFormat() throws Exception {
+        String adminToken = registerAndGetToken("admin_metrics@example.com", Role.ADMIN);
+        String custToken = registerAndGetToken("cust_metrics@example.com", Role.CUSTOMER);
+        Product product = Product.builder().name("Metered").price(BigDecimal.valueOf(3)).stockQuantity(10).category("Metrics").build();
+        MvcResult prodResult = mockMvc.perform(post("/api/v1/products").header("Authorization", "Bearer " + adminToken).contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(product))).andReturn();
+        Long prodId = objectMapper.readTree(prodResult.getResponse().getContentAsString()).get("id").asLong();
+        OrderRequest orderReq = OrderRequest.builder().items(List.of(OrderItemRequest.builder().productId(prodId).quantity(1).build())).build();
+        mockMvc.perform(post("/api/v1/orders").header("Authorization", "Bearer " + custToken).contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(orderReq)))
+                .andExpect(status().isOk());
+        authenticateAndGetToken("cust_metrics@example.com", "password123");
+
+        String scrape = mockMvc.perform(get("/actuator/prometheus").with(httpBasic("prometheus", "test-scrape-password")))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(scrape, containsString("http_server_requests_seconds_bucket{"));
+        assertThat(scrape, containsString("orders_place_seconds_bucket{"));
+        assertThat(scrape, containsString("auth_authenticate_seconds_count{"));
+        assertThat(scrape, containsString("auth_jwt_validation_seconds_count{outcome=\"valid\","));
+        assertThat(scrape, containsString("hikaricp_connections_acquire_seconds_bucket{"));
+        assertThat(scrape, containsString("hibernate_entities_inserts_total{"));
+        assertThat(scrape, containsString("cache_gets_total{cache=\"catalog-responses\",result=\"hit\","));
+
+        // Everything except health needs an admin or, for the scrape, the scraper's credentials
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/actuator/prometheus").header("Authorization", "Bearer " + custToken))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/actuator/prometheus").with(httpBasic("prometheus", "wrong-password")))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/actuator/prometheus").with(httpBasic("prometheus", "test-scrape-password")))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/actuator/metrics").header("Authorization", "Bearer " + custToken))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/actuator/metrics").header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void shouldStreamAFlightRecordingWithApplicationEvents() throws Exception {
+        String adminToken = registerAndGetToken("admin_jfr@example.com", Role.ADMIN);
+        String custToken = registerAndGetToken("cust_jfr@example.com", Role.CUSTOMER);
+        mockMvc.perform(post("/api/v1/diagnostics/recordings").header("Authorization", "Bearer " + custToken))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(post("/api/v1/diagnostics/recordings").param("duration", "PT1H").header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isBadRequest());
+
+        // Sign-in work happening while the recording runs
+        AtomicBoolean recording = new AtomicBoolean(true);
+        Thread hashing = new Thread(() -> {
+            while (recording.get()) {
+                passwordEncoder.matches("password123", passwordEncoder.encode("password123"));
+            }
+        });
+        hashing.start();
+        MvcResult result;
+        try {
+            result = mockMvc.perform(post("/api/v1/diagnostics/recordings")
+                            .param("duration", "PT1S").param("settings", "default")
+                            .header("Authorization", "Bearer " + adminToken))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("Content-Disposition", startsWith("attachment; filename=\"cymelle-")))
+                    .andReturn();
+        } finally {
+            recording.set(false);
+            hashing.join();
+        }
+
+        Path file = Files.createTempFile("recording", ".jfr");
+        try {
+            Files.write(file, result.getResponse().getContentAsByteArray());
+            List<String> types = RecordingFile.readAllEvents(file).stream()
+                    .map(RecordedEvent::getEventType).map(type -> type.getName()).distinct().toList();
+            assertThat(types, hasItems("com.cymelle.PasswordHash", "jdk.CPULoad"));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void shouldServeCatalogReadsFromTheReadPool() throws Exception {
+        long readBefore = connectionsAcquired("read");
+        long writeBefore = connectionsAcquired("write");
+
+        mockMvc.perform(get("/api/v1/products").param("search", "bulkhead"))
+                .andExpect(status().isOk());
+
+        assertThat(connectionsAcquired("read"), greaterThan(readBefore));
+        assertThat(connectionsAcquired("write"), equalTo(writeBefore));
+        String scrape = mockMvc.perform(get("/actuator/prometheus").with(httpBasic("prometheus", "test-scrape-password")))
+                .andReturn().getResponse().getContentAsString();
+        assertThat(scrape, matchesRegex("(?s).*hikaricp_connections_pending\\{[^}]*pool=\"read\".*"));
+        assertThat(scrape, matchesRegex("(?s).*db_pool_saturation\\{[^}]*pool=\"write\".*"));
+    }
+
+    private long connectionsAcquired(String pool) {
+        // Pools start, and register their meters, on first use
+        Timer acquire = meterRegistry.find("hikaricp.connections.acquire").tag("pool", pool).timer();
+        return acquire == null ? 0 : acquire.count();
+    }
 }
@@ -0,0 +1,108 @@
+package com.cymelle.backend;
+
+import com.cymelle.backend.diagnostics.QueryBudgetFilter;
+import jakarta.persistence.EntityManager;
+import org.springframework.boot.test.autoconfigure.web.servlet.MockMvcBuilderCustomizer;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultHandler;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Declared SQL statement budgets per endpoint, checked after every MockMvc request of a test class that
+ * imports this configuration. A request over its budget, or to an endpoint without one, fails the test,
+ * so a fetch-plan regression (an N+1 behind a new association or a lazy collection serialized per row)
+ * fails the build. Budgets are the counts the endpoints need today; raise one only with a reason.
+ */
+@TestConfiguration
+public class QueryBudgets {
+
+    /** Requests rejected or answered before reaching a controller, e.g. by security: the user lookup. */
+    static final int UNMAPPED_BUDGET = 1;
+
+    static final Map<String, Integer> BUDGETS = Map.ofEntries(
+            Map.entry("POST /api/v1/auth/register", 2),
+            Map.entry("POST /api/v1/auth/authenticate", 2),
+            Map.entry("GET /api/v1/products", 2),
+            Map.entry("GET /api/v1/products/{id}", 1),
+            // Ranked ids come from memory; their products are loaded in one query on a cache miss
+            Map.entry("GET /api/v1/products/trending", 1),
+            Map.entry("POST /api/v1/products", 2),
+            Map.entry("POST /api/v1/products/import", 1),
+            Map.entry("PUT /api/v1/products/{id}", 2),
+            Map.entry("DELETE /api/v1/products/{id}", 3),
+            Map.entry("GET /api/v1/orders", 5),
+            Map.entry("GET /api/v1/orders/{id}", 3),
+            Map.entry("POST /api/v1/orders", 4),
+            Map.entry("PATCH /api/v1/orders/{id}/status", 3),
+            Map.entry("GET /api/v1/rides", 3),
+            Map.entry("GET /api/v1/rides/{id}", 2),
+            Map.entry("GET /api/v1/rides/{id}/drivers", 2),
+            Map.entry("GET /api/v1/rides/{id}/timeline", 3),
+            Map.entry("GET /api/v1/rides/feed", 1),
+            Map.entry("GET /api/v1/rides/phase-metrics", 1),
+            Map.entry("POST /api/v1/rides", 3),
+            Map.entry("POST /api/v1/rides/quote", 1),
+            Map.entry("PATCH /api/v1/rides/{id}/status", 4),
+            Map.entry("PUT /api/v1/drivers/me/location", 1),
+            Map.entry("POST /api/v1/drivers/locations", 1),
+            Map.entry("POST /api/v1/diagnostics/recordings", 1),
+            Map.entry("GET /actuator/metrics", 1),
+            Map.entry("GET /actuator/prometheus", 0));
+
+    @Bean
+    public MockMvcBuilderCustomizer queryBudgetCheck(EntityManager entityManager) {
+        // Tests run requests inside one transaction; starting each with an empty persistence context
+        // makes it load what it needs, as it would in production
+        return builder -> builder
+                .defaultRequest(get("/").with(request -> {
+                    if (entityManager.isJoinedToTransaction()) {
+                        entityManager.flush();
+                        entityManager.clear();
+                    }
+                    return request;
+                }))
+                .alwaysDo(check());
+    }
+
+    static ResultHandler check() {
+        return result -> {
+            Integer count = (Integer) result.getRequest().getAttribute(QueryBudgetFilter.QUERY_COUNT_ATTRIBUTE);
+            if (count == null) {
+                return;
+            }
+            String endpoint = endpoint(result);
+            Integer budget = endpoint == null ? Integer.valueOf(UNMAPPED_BUDGET) : BUDGETS.get(endpoint);
+            if (budget == null) {
+                throw new AssertionError("No query budget declared for " + endpoint + ", which ran " + count
+                        + " SQL statements; add it to " + QueryBudgets.class.getSimpleName() + ".BUDGETS");
+            }
+            if (count > budget) {
+                throw new AssertionError(String.format("%s %s ran %d SQL statements, over its budget of %d:%n%s",
+                        result.getRequest().getMethod(), result.getRequest().getRequestURI(), count, budget,
+                        statements(result)));
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String statements(MvcResult result) {
+        Map<String, Integer> statements =
+                (Map<String, Integer>) result.getRequest().getAttribute(QueryBudgetFilter.QUERY_STATEMENTS_ATTRIBUTE);
+        return statements.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                .map(statement -> statement.getValue() + "x " + statement.getKey())
+                .collect(Collectors.joining(System.lineSeparator()));
+    }
+
+    private static String endpoint(MvcResult result) {
+        Object pattern = result.getRequest().getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern == null ? null : result.getRequest().getMethod() + " " + pattern;
+    }
+}
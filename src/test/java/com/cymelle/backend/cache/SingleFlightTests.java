@@ -0,0 +1,112 @@
+package com.cymelle.backend.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTests {
+
+    @Test
+    void shouldShareOneLoadBetweenConcurrentCallers() throws Exception {
+        SingleFlight flight = new SingleFlight("test", Duration.ofSeconds(5));
+        AtomicInteger loaderCalls = new AtomicInteger();
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoader = new CountDownLatch(1);
+        int callers = 50;
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(callers)) {
+            Future<String> leader = executor.submit(() -> flight.execute("key", () -> {
+                loaderCalls.incrementAndGet();
+                loaderStarted.countDown();
+                await(releaseLoader);
+                return "value";
+            }));
+            assertTrue(loaderStarted.await(5, TimeUnit.SECONDS));
+
+            List<Future<String>> followers = new ArrayList<>();
+            for (int i = 1; i < callers; i++) {
+                followers.add(executor.submit(() -> flight.execute("key", () -> {
+                    loaderCalls.incrementAndGet();
+                    return "other";
+                })));
+            }
+            while (flight.getSharedLoadCount() < callers - 1) {
+                Thread.sleep(5);
+            }
+            releaseLoader.countDown();
+
+            assertEquals("value", leader.get(5, TimeUnit.SECONDS));
+            for (Future<String> follower : followers) {
+                assertEquals("value", follower.get(5, TimeUnit.SECONDS));
+            }
+        }
+        assertEquals(1, loaderCalls.get());
+        assertEquals(1, flight.getLoadCount());
+        assertEquals(0, flight.getInFlightCount());
+    }
+
+    @Test
+    void shouldPropagateLoaderFailureToWaitersAndAllowRetry() throws Exception {
+        SingleFlight flight = new SingleFlight("test", Duration.ofSeconds(5));
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoader = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(2)) {
+            Future<String> leader = executor.submit(() -> flight.<String>execute("key", () -> {
+                loaderStarted.countDown();
+                await(releaseLoader);
+                throw new IllegalStateException("boom");
+            }));
+            assertTrue(loaderStarted.await(5, TimeUnit.SECONDS));
+            Future<String> follower = executor.submit(() -> flight.execute("key", () -> "unused"));
+            while (flight.getSharedLoadCount() < 1) {
+                Thread.sleep(5);
+            }
+            releaseLoader.countDown();
+
+            Exception leaderError = assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS));
+            Exception followerError = assertThrows(Exception.class, () -> follower.get(5, TimeUnit.SECONDS));
+            assertEquals("boom", leaderError.getCause().getMessage());
+            assertEquals("boom", followerError.getCause().getMessage());
+        }
+        assertEquals("fresh", flight.execute("key", () -> "fresh"));
+    }
+
+    @Test
+    void shouldLoadIndependentlyWhenWaitTimesOut() throws Exception {
+        SingleFlight flight = new SingleFlight("test", Duration.ofMillis(20));
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoader = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newSingleThreadExecutor()) {
+            executor.submit(() -> flight.execute("key", () -> {
+                loaderStarted.countDown();
+                await(releaseLoader);
+                return "slow";
+            }));
+            assertTrue(loaderStarted.await(5, TimeUnit.SECONDS));
+
+            assertEquals("fallback", flight.execute("key", () -> "fallback"));
+            assertEquals(1, flight.getTimeoutCount());
+            releaseLoader.countDown();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.cymelle.backend.datasource;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PoolRoutingDataSourceTests {
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate readWrite;
+    private final TransactionTemplate readOnly;
+
+    PoolRoutingDataSourceTests() {
+        DataSource routing = new LazyConnectionDataSourceProxy(new PoolRoutingDataSource(database("write"), database("read")));
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(routing);
+        jdbc = new JdbcTemplate(routing);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @Test
+    void routesByTransactionReadOnlyFlag() {
+        assertThat(inTransaction(readOnly)).isEqualTo("read");
+        assertThat(inTransaction(readWrite)).isEqualTo("write");
+        // Plain JDBC outside a transaction may be a write
+        assertThat(pool()).isEqualTo("write");
+    }
+
+    @Test
+    void readPreferenceOnlyAppliesOutsideReadWriteTransactions() {
+        PoolRoutingDataSource.preferRead();
+        try {
+            assertThat(pool()).isEqualTo("read");
+            assertThat(inTransaction(readWrite)).isEqualTo("write");
+        } finally {
+            PoolRoutingDataSource.clearReadPreferred();
+        }
+        assertThat(pool()).isEqualTo("write");
+    }
+
+    private String inTransaction(TransactionTemplate transaction) {
+        return transaction.execute(status -> pool());
+    }
+
+    private String pool() {
+        return jdbc.queryForObject("SELECT name FROM pool_name", String.class);
+    }
+
+    private static DataSource database(String name) {
+        JdbcDataSource database = new JdbcDataSource();
+        database.setURL("jdbc:h2:mem:routing-" + name + ";DB_CLOSE_DELAY=-1");
+        new JdbcTemplate(database).execute("CREATE TABLE IF NOT EXISTS pool_name AS SELECT '" + name + "' AS name");
+        return database;
+    }
+}
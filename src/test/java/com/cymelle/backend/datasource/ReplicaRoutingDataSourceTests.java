@@ -0,0 +1,184 @@
+package com.cymelle.backend.datasource;
+
+import com.cymelle.backend.cache.CatalogResponseCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReplicaRoutingDataSourceTests {
+
+    private final MutableClock clock = new MutableClock();
+    private final DataSource primary = database("primary");
+    private final DataSource replica = database("replica");
+    private final ReplicaRoutingDataSource replicas = new ReplicaRoutingDataSource(primary, Map.of("replica-0", replica),
+            Duration.ofSeconds(5), Duration.ofSeconds(5), clock);
+    private final ReplicaLagMonitor monitor = new ReplicaLagMonitor(primary, List.of(replica), replicas, clock);
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate readWrite;
+    private final TransactionTemplate readOnly;
+
+    ReplicaRoutingDataSourceTests() {
+        DataSource routing = new LazyConnectionDataSourceProxy(new PoolRoutingDataSource(primary, replicas));
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(routing);
+        jdbc = new JdbcTemplate(routing);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @AfterEach
+    void clearUser() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void readsUseReplicaOnlyWhileItsHeartbeatIsFresh() {
+        // Lag is unknown until measured, and a replica without the heartbeat table cannot be read
+        assertThat(inTransaction(readOnly)).isEqualTo("primary");
+        monitor.beat();
+        assertThat(replicas.getLagMillis("replica-0")).isEqualTo(Long.MAX_VALUE);
+        assertThat(inTransaction(readOnly)).isEqualTo("primary");
+
+        replicate();
+        clock.advance(Duration.ofSeconds(1));
+        monitor.beat();
+        assertThat(replicas.getLagMillis("replica-0")).isEqualTo(1000);
+        assertThat(inTransaction(readOnly)).isEqualTo("replica");
+        assertThat(inTransaction(readWrite)).isEqualTo("primary");
+
+        // Replication stalls: the primary's heartbeat moves on, the replica's does not
+        clock.advance(Duration.ofSeconds(6));
+        monitor.beat();
+        assertThat(inTransaction(readOnly)).isEqualTo("primary");
+        assertThat(replicas.getReplicaReads()).isEqualTo(1);
+        assertThat(replicas.getLagFallbacks()).isEqualTo(3);
+    }
+
+    @Test
+    void userReadsFromPrimaryForTheWindowAfterTheirWriteCommits() {
+        monitor.beat();
+        replicate();
+        monitor.beat();
+
+        signIn("writer@example.com");
+        assertThat(inTransaction(readOnly)).isEqualTo("replica");
+        assertThat(inTransaction(readWrite)).isEqualTo("primary");
+        assertThat(inTransaction(readOnly)).isEqualTo("primary");
+
+        signIn("reader@example.com");
+        assertThat(inTransaction(readOnly)).isEqualTo("replica");
+
+        clock.advance(Duration.ofSeconds(6));
+        monitor.beat();
+        replicate();
+        monitor.beat();
+        signIn("writer@example.com");
+        assertThat(inTransaction(readOnly)).isEqualTo("replica");
+        assertThat(replicas.getStickyReads()).isEqualTo(1);
+    }
+
+    @Test
+    void rolledBackWriteDoesNotMakeReadsSticky() {
+        monitor.beat();
+        replicate();
+        monitor.beat();
+
+        signIn("writer@example.com");
+        readWrite.executeWithoutResult(status -> {
+            pool();
+            status.setRollbackOnly();
+        });
+        assertThat(inTransaction(readOnly)).isEqualTo("replica");
+    }
+
+    @Test
+    void onPrimaryPinsReadsToThePrimary() {
+        monitor.beat();
+        replicate();
+        monitor.beat();
+
+        assertThat(ReplicaRoutingDataSource.onPrimary(() -> inTransaction(readOnly))).isEqualTo("primary");
+        assertThat(inTransaction(readOnly)).isEqualTo("replica");
+    }
+
+    @Test
+    void catalogCacheStoresOnlyResponsesLoadedFromThePrimary() {
+        monitor.beat();
+        replicate();
+        monitor.beat();
+
+        CatalogResponseCache cache = new CatalogResponseCache(new ObjectMapper(), true, 16, 512);
+        assertThat(new String(cache.get("page", () -> inTransaction(readOnly)).body())).isEqualTo("\"primary\"");
+        CatalogResponseCache uncached = new CatalogResponseCache(new ObjectMapper(), false, 16, 512);
+        assertThat(new String(uncached.get("page", () -> inTransaction(readOnly)).body())).isEqualTo("\"replica\"");
+    }
+
+    private void replicate() {
+        Long beatAt = new JdbcTemplate(primary).queryForObject("SELECT beat_at FROM replica_heartbeat WHERE id = 1", Long.class);
+        JdbcTemplate target = new JdbcTemplate(replica);
+        target.execute("CREATE TABLE IF NOT EXISTS replica_heartbeat (id INT PRIMARY KEY, beat_at BIGINT NOT NULL)");
+        target.update("MERGE INTO replica_heartbeat (id, beat_at) KEY (id) VALUES (1, ?)", beatAt);
+    }
+
+    private static void signIn(String email) {
+        SecurityContextHolder.getContext().setAuthentication(
+                UsernamePasswordAuthenticationToken.authenticated(email, null, List.of()));
+    }
+
+    private String inTransaction(TransactionTemplate transaction) {
+        return transaction.execute(status -> pool());
+    }
+
+    private String pool() {
+        return jdbc.queryForObject("SELECT name FROM pool_name", String.class);
+    }
+
+    private static DataSource database(String name) {
+        JdbcDataSource database = new JdbcDataSource();
+        // A fresh pair of databases per test
+        database.setURL("jdbc:h2:mem:replica-" + name + "-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        new JdbcTemplate(database).execute("CREATE TABLE pool_name AS SELECT '" + name + "' AS name");
+        return database;
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now = Instant.parse("2026-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneId.of("UTC");
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
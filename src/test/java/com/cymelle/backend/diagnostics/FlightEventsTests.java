@@ -0,0 +1,76 @@
+package com.cymelle.backend.diagnostics;
+
+import com.cymelle.backend.event.RideStatusChangedEvent;
+import com.cymelle.backend.exception.RecordingInProgressException;
+import com.cymelle.backend.model.RideStatus;
+import com.cymelle.backend.security.RecordedPasswordEncoder;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlightEventsTests {
+
+    @Test
+    void shouldRecordPasswordHashingAndRideTransitions() throws Exception {
+        RecordedPasswordEncoder encoder = new RecordedPasswordEncoder(new BCryptPasswordEncoder(4));
+        List<RecordedEvent> events;
+        Path file = Files.createTempFile("flight-events", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(FlightEvents.PREFIX + "PasswordHash");
+            recording.enable(FlightEvents.PREFIX + "RideTransition");
+            recording.start();
+            String hash = encoder.encode("secret");
+            assertTrue(encoder.matches("secret", hash));
+            assertFalse(encoder.matches("guess", hash));
+            new RideTransitionEvents().onRideStatusChanged(new RideStatusChangedEvent(7L, RideStatus.REQUESTED,
+                    RideStatus.ACCEPTED, null, "A", "B", null, null, null, null, null, null, LocalDateTime.now()));
+            recording.stop();
+            recording.dump(file);
+            events = RecordingFile.readAllEvents(file);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+
+        List<RecordedEvent> hashes = events.stream()
+                .filter(event -> event.getEventType().getName().equals(FlightEvents.PREFIX + "PasswordHash")).toList();
+        assertEquals(List.of("encode", "matches", "matches"), hashes.stream().map(event -> event.getString("operation")).toList());
+        assertEquals(List.of(false, true, false), hashes.stream().map(event -> event.getBoolean("matched")).toList());
+        assertTrue(hashes.get(0).getDuration().compareTo(Duration.ZERO) > 0);
+
+        RecordedEvent transition = events.stream()
+                .filter(event -> event.getEventType().getName().equals(FlightEvents.PREFIX + "RideTransition"))
+                .findFirst().orElseThrow();
+        assertEquals(7L, transition.getLong("rideId"));
+        assertEquals("REQUESTED", transition.getString("from"));
+        assertEquals("ACCEPTED", transition.getString("to"));
+        assertEquals(0L, transition.getLong("actorId"));
+    }
+
+    @Test
+    void shouldRejectASecondRecordingWhileOneIsRunning() throws Exception {
+        FlightRecordings recordings = new FlightRecordings(Duration.ofSeconds(10), DataSize.ofMegabytes(10));
+        try (ExecutorService executor = Executors.newSingleThreadExecutor()) {
+            Future<Path> first = executor.submit(() -> recordings.record(Duration.ofSeconds(1), "default"));
+            while (!recordings.isRecording() && !first.isDone()) {
+                Thread.onSpinWait();
+            }
+            assertThrows(RecordingInProgressException.class, () -> recordings.record(Duration.ofSeconds(1), "default"));
+            Files.deleteIfExists(first.get());
+        }
+        assertFalse(recordings.isRecording());
+    }
+}
@@ -0,0 +1,74 @@
+package com.cymelle.backend.diagnostics;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QueryBudgetFilterTests {
+
+    private final QueryCounter queryCounter = new QueryCounter();
+
+    @Test
+    void countsStatementsPerRequestAndNestedTallies() throws Exception {
+        QueryBudgetFilter filter = new QueryBudgetFilter(queryCounter, 2, false);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/orders");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        try (QueryCounter.Tally outer = queryCounter.start()) {
+            filter.doFilter(request, response, new MockFilterChain(servlet("select 1", "select 2", "select 2")));
+            queryCounter.inspect("select 3");
+
+            assertThat(outer.getCount()).isEqualTo(4);
+        }
+        assertThat(request.getAttribute(QueryBudgetFilter.QUERY_COUNT_ATTRIBUTE)).isEqualTo(3);
+        assertThat(request.getAttribute(QueryBudgetFilter.QUERY_STATEMENTS_ATTRIBUTE))
+                .isEqualTo(Map.of("select 1", 1, "select 2", 2));
+        assertThat(response.getHeader(QueryBudgetFilter.QUERY_COUNT_HEADER)).isNull();
+
+        // Nothing is counted once every tally is closed
+        try (QueryCounter.Tally after = queryCounter.start()) {
+            assertThat(after.getCount()).isZero();
+        }
+    }
+
+    @Test
+    void reportsTheFinalCountInAHeaderWhenEnabled() throws Exception {
+        QueryBudgetFilter filter = new QueryBudgetFilter(queryCounter, 25, true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // The last statement runs after the body started, as a lazy load during serialization would
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/v1/rides"), response,
+                new MockFilterChain(new HttpServlet() {
+                    @Override
+                    protected void service(HttpServletRequest req, HttpServletResponse res) throws IOException {
+                        queryCounter.inspect("select ride");
+                        res.getWriter().write("{\"content\":[");
+                        queryCounter.inspect("select driver");
+                        res.getWriter().write("]}");
+                    }
+                }));
+
+        assertThat(response.getHeader(QueryBudgetFilter.QUERY_COUNT_HEADER)).isEqualTo("2");
+        assertThat(response.getContentAsString()).isEqualTo("{\"content\":[]}");
+    }
+
+    private HttpServlet servlet(String... statements) {
+        return new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse res) {
+                for (String statement : statements) {
+                    queryCounter.inspect(statement);
+                }
+            }
+        };
+    }
+}
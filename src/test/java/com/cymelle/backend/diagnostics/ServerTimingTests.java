@@ -0,0 +1,87 @@
+package com.cymelle.backend.diagnostics;
+
+import com.cymelle.backend.dto.OrderItemRequest;
+import com.cymelle.backend.dto.OrderRequest;
+import com.cymelle.backend.dto.RegisterRequest;
+import com.cymelle.backend.model.Product;
+import com.cymelle.backend.model.Role;
+import com.cymelle.backend.repository.ProductRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Samples every request, so each response carries the breakdown.
+ */
+@SpringBootTest(properties = {"diagnostics.server-timing.enabled=true", "diagnostics.server-timing.sample-rate=1.0"})
+@AutoConfigureMockMvc
+@Transactional
+class ServerTimingTests {
+
+    private static final Pattern METRIC = Pattern.compile("(\\w+);dur=([0-9.]+)(?:;desc=\"(\\d+) calls\")?");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Test
+    void shouldBreakDownAnOrderCallByPhase() throws Exception {
+        Product product = productRepository.save(Product.builder()
+                .name("Timed").price(BigDecimal.TEN).stockQuantity(5).category("Timing").build());
+        RegisterRequest register = RegisterRequest.builder()
+                .firstName("Timing").lastName("User").email("timing@example.com").password("password123").role(Role.CUSTOMER).build();
+        String token = objectMapper.readTree(mockMvc.perform(post("/api/v1/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(register)))
+                .andReturn().getResponse().getContentAsString()).get("token").asText();
+
+        OrderRequest order = OrderRequest.builder()
+                .items(List.of(OrderItemRequest.builder().productId(product.getId()).quantity(1).build())).build();
+        String header = mockMvc.perform(post("/api/v1/orders")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(order)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(ServerTimingFilter.SERVER_TIMING_HEADER);
+
+        assertNotNull(header);
+        Map<String, Double> durations = new HashMap<>();
+        Matcher metric = METRIC.matcher(header);
+        int repositoryCalls = 0;
+        while (metric.find()) {
+            durations.put(metric.group(1), Double.parseDouble(metric.group(2)));
+            if (metric.group(3) != null) {
+                repositoryCalls = Integer.parseInt(metric.group(3));
+            }
+        }
+        assertEquals(List.of("jwt", "repo", "ser", "service", "total", "user"), durations.keySet().stream().sorted().toList());
+        for (String phase : List.of("jwt", "user", "service", "repo", "ser")) {
+            assertTrue(durations.get(phase) > 0, phase + " was not timed: " + header);
+            assertTrue(durations.get(phase) <= durations.get("total"), phase + " exceeds the total: " + header);
+        }
+        // The user lookup, the product lookup and save, and the order save
+        assertTrue(repositoryCalls >= 3, header);
+        assertTrue(durations.get("repo") <= durations.get("service") + durations.get("user"), header);
+    }
+}
@@ -0,0 +1,41 @@
+package com.cymelle.backend.diagnostics;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VirtualThreadPinningMonitorTests {
+
+    private final Object lock = new Object();
+
+    @Test
+    void shouldReportVirtualThreadsBlockingInsideSynchronized() throws Exception {
+        VirtualThreadPinningMonitor monitor = new VirtualThreadPinningMonitor(Duration.ofMillis(5));
+        monitor.start();
+        try {
+            Thread.ofVirtual().start(this::sleepHoldingMonitor).join();
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (monitor.getPinnedCount() == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(50);
+            }
+            assertEquals(1, monitor.getPinnedCount());
+            assertEquals(1L, monitor.getPinnedCountsBySite().get(getClass().getName() + ".sleepHoldingMonitor"));
+        } finally {
+            monitor.stop();
+        }
+    }
+
+    private void sleepHoldingMonitor() {
+        synchronized (lock) {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
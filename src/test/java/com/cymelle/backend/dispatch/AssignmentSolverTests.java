@@ -0,0 +1,108 @@
+package com.cymelle.backend.dispatch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AssignmentSolverTests {
+
+    @Test
+    void shouldBeatGreedyMatching() {
+        // Rides at 0 and 1000, drivers at 600 and -1000: nearest-first gives 600 + 2000, the optimum 1000 + 400
+        long[][] cost = {
+                {600, 1000},
+                {400, 2000}
+        };
+        int[] assignment = solve(cost, 5000);
+
+        assertArrayEquals(new int[]{1, 0}, assignment);
+    }
+
+    @Test
+    void shouldLeaveRowsUnassignedWhenNoPairIsCheapEnough() {
+        long[][] cost = {
+                {100, -1},
+                {200, 6000},
+                {-1, 7000}
+        };
+        int[] assignment = solve(cost, 5000);
+
+        assertArrayEquals(new int[]{0, -1, -1}, assignment);
+    }
+
+    @Test
+    void shouldMatchBruteForceOnRandomSparseInstances() {
+        Random random = new Random(7);
+        for (int round = 0; round < 500; round++) {
+            int rows = 1 + random.nextInt(6);
+            int columns = 1 + random.nextInt(6);
+            long unassigned = 50 + random.nextInt(100);
+            long[][] cost = new long[rows][columns];
+            for (long[] row : cost) {
+                for (int j = 0; j < columns; j++) {
+                    row[j] = random.nextInt(3) == 0 ? -1 : random.nextInt(200);
+                }
+            }
+
+            int[] assignment = solve(cost, unassigned);
+
+            boolean[] used = new boolean[columns];
+            for (int i = 0; i < rows; i++) {
+                if (assignment[i] >= 0) {
+                    assertTrue(cost[i][assignment[i]] >= 0 && cost[i][assignment[i]] < unassigned);
+                    assertFalse(used[assignment[i]]);
+                    used[assignment[i]] = true;
+                }
+            }
+            assertEquals(bruteForce(cost, unassigned, 0, new boolean[columns]), total(cost, unassigned, assignment), "round " + round);
+        }
+    }
+
+    /**
+     * Negative entries mark pairs that are not offered.
+     */
+    private static int[] solve(long[][] cost, long unassigned) {
+        int[] rowStart = new int[cost.length + 1];
+        List<Integer> columns = new ArrayList<>();
+        List<Long> costs = new ArrayList<>();
+        for (int i = 0; i < cost.length; i++) {
+            for (int j = 0; j < cost[i].length; j++) {
+                if (cost[i][j] >= 0) {
+                    columns.add(j);
+                    costs.add(cost[i][j]);
+                }
+            }
+            rowStart[i + 1] = columns.size();
+        }
+        return AssignmentSolver.solve(cost.length, cost[0].length, rowStart,
+                columns.stream().mapToInt(Integer::intValue).toArray(),
+                costs.stream().mapToLong(Long::longValue).toArray(), unassigned);
+    }
+
+    private static long total(long[][] cost, long unassigned, int[] assignment) {
+        long sum = 0;
+        for (int i = 0; i < assignment.length; i++) {
+            sum += assignment[i] < 0 ? unassigned : cost[i][assignment[i]];
+        }
+        return sum;
+    }
+
+    private static long bruteForce(long[][] cost, long unassigned, int row, boolean[] used) {
+        if (row == cost.length) {
+            return 0;
+        }
+        long best = unassigned + bruteForce(cost, unassigned, row + 1, used);
+        for (int j = 0; j < used.length; j++) {
+            if (!used[j] && cost[row][j] >= 0 && cost[row][j] < unassigned) {
+                used[j] = true;
+                best = Math.min(best, cost[row][j] + bruteForce(cost, unassigned, row + 1, used));
+                used[j] = false;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,126 @@
+package com.cymelle.backend.event;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CoalescingEventStreamTests {
+
+    record Tick(String key, int count) {
+    }
+
+    static class BlockingEmitter extends SseEmitter {
+        final List<Tick> received = new CopyOnWriteArrayList<>();
+        final CountDownLatch firstSendStarted = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            firstSendStarted.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            builder.build().stream()
+                    .map(ResponseBodyEmitter.DataWithMediaType::getData)
+                    .filter(Tick.class::isInstance)
+                    .map(Tick.class::cast)
+                    .forEach(received::add);
+        }
+    }
+
+    private static CoalescingEventStream<String, Tick> newStream(int bufferSize) {
+        return new CoalescingEventStream<>("tick", Tick::key, (a, b) -> new Tick(a.key(), a.count() + b.count()), bufferSize);
+    }
+
+    @Test
+    void shouldCoalescePendingEventsPerKey() throws Exception {
+        try (CoalescingEventStream<String, Tick> stream = newStream(8)) {
+            BlockingEmitter emitter = new BlockingEmitter();
+            stream.subscribe(emitter, tick -> true);
+
+            stream.publish(new Tick("a", 1));
+            assertTrue(emitter.firstSendStarted.await(5, TimeUnit.SECONDS));
+            // While "a" is being written, three updates for "b" collapse into one
+            stream.publish(new Tick("b", 1));
+            stream.publish(new Tick("b", 1));
+            stream.publish(new Tick("b", 1));
+            emitter.release.countDown();
+
+            awaitDelivered(stream, 2);
+            assertEquals(List.of(new Tick("a", 1), new Tick("b", 3)), emitter.received);
+        }
+    }
+
+    @Test
+    void shouldEvictSubscriberWhoseBufferOverflows() throws Exception {
+        try (CoalescingEventStream<String, Tick> stream = newStream(2)) {
+            BlockingEmitter slow = new BlockingEmitter();
+            stream.subscribe(slow, tick -> true);
+
+            stream.publish(new Tick("a", 1));
+            assertTrue(slow.firstSendStarted.await(5, TimeUnit.SECONDS));
+            stream.publish(new Tick("b", 1));
+            stream.publish(new Tick("c", 1));
+            stream.publish(new Tick("d", 1));
+
+            assertEquals(1, stream.getEvictedCount());
+            assertEquals(0, stream.getSubscriberCount());
+            slow.release.countDown();
+        }
+    }
+
+    @Test
+    void shouldOnlyDeliverEventsMatchingSubscriberFilter() throws Exception {
+        try (CoalescingEventStream<String, Tick> stream = newStream(8)) {
+            BlockingEmitter emitter = new BlockingEmitter();
+            emitter.release.countDown();
+            stream.subscribe(emitter, tick -> tick.key().equals("b"));
+
+            stream.publish(new Tick("a", 1));
+            stream.publish(new Tick("b", 1));
+
+            awaitDelivered(stream, 1);
+            assertEquals(List.of(new Tick("b", 1)), emitter.received);
+        }
+    }
+
+    @Test
+    void shouldRouteTopicEventsToTheirSubscribersAndUntargetedOnes() throws Exception {
+        try (CoalescingEventStream<String, Tick> stream = newStream(8)) {
+            BlockingEmitter north = new BlockingEmitter();
+            BlockingEmitter south = new BlockingEmitter();
+            BlockingEmitter everywhere = new BlockingEmitter();
+            List.of(north, south, everywhere).forEach(emitter -> emitter.release.countDown());
+            stream.subscribe(north, Set.of("north"), tick -> true);
+            stream.subscribe(south, Set.of("south"), tick -> true);
+            stream.subscribe(everywhere, tick -> true);
+
+            stream.publish("north", new Tick("a", 1));
+            awaitDelivered(stream, 2);
+            stream.publish(new Tick("b", 1));
+            awaitDelivered(stream, 5);
+
+            assertEquals(List.of(new Tick("a", 1), new Tick("b", 1)), north.received);
+            assertEquals(List.of(new Tick("b", 1)), south.received);
+            assertEquals(List.of(new Tick("a", 1), new Tick("b", 1)), everywhere.received);
+        }
+    }
+
+    private static void awaitDelivered(CoalescingEventStream<?, ?> stream, long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (stream.getDeliveredCount() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, stream.getDeliveredCount());
+    }
+}
@@ -0,0 +1,66 @@
+package com.cymelle.backend.expiry;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HierarchicalTimingWheelTests {
+
+    @Test
+    void shouldFireEntriesAtTheirDeadlineAcrossLevels() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(1000, 8, 0);
+        // 8 s spans level 0, 64 s level 1, 512 s level 2
+        assertTrue(wheel.schedule(2_500, "soon"));
+        assertTrue(wheel.schedule(40_000, "minute"));
+        assertTrue(wheel.schedule(300_000, "minutes"));
+        assertTrue(wheel.schedule(5_000_000, "hours"));
+        assertEquals(4, wheel.size());
+
+        List<String> fired = new ArrayList<>();
+        for (long now = 0; now <= 6_000_000; now += 1000) {
+            long at = now;
+            wheel.advance(now, item -> {
+                fired.add(item + "@" + at);
+            });
+        }
+
+        assertEquals(List.of("soon@3000", "minute@40000", "minutes@300000", "hours@5000000"), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void shouldFireEverythingDueAfterALargeJump() {
+        HierarchicalTimingWheel<Integer> wheel = new HierarchicalTimingWheel<>(1000, 8, 0);
+        for (int i = 1; i <= 100; i++) {
+            wheel.schedule(i * 7_000L, i);
+        }
+
+        List<Integer> fired = new ArrayList<>();
+        wheel.advance(350_000, fired::add);
+        assertEquals(50, fired.size());
+        assertTrue(fired.containsAll(List.of(1, 25, 50)));
+
+        fired.clear();
+        wheel.advance(349_999 + 700_000, fired::add);
+        assertEquals(50, fired.size());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void shouldRejectDeadlinesAlreadyDue() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(1000, 8, 10_000);
+
+        assertFalse(wheel.schedule(9_000, "past"));
+        assertFalse(wheel.schedule(10_000, "now"));
+        assertTrue(wheel.schedule(10_001, "next"));
+
+        List<String> fired = new ArrayList<>();
+        wheel.advance(10_999, fired::add);
+        assertTrue(fired.isEmpty());
+        wheel.advance(11_000, fired::add);
+        assertEquals(List.of("next"), fired);
+    }
+}
@@ -0,0 +1,98 @@
+package com.cymelle.backend.expiry;
+
+import com.cymelle.backend.model.Ride;
+import com.cymelle.backend.model.RideStatus;
+import com.cymelle.backend.model.Role;
+import com.cymelle.backend.model.User;
+import com.cymelle.backend.repository.RideRepository;
+import com.cymelle.backend.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Drives a private scheduler with its own clock, leaving the application's scheduler untouched.
+ */
+@SpringBootTest
+@Transactional
+class RideExpirySchedulerTests {
+
+    static class MovableClock extends Clock {
+        final AtomicReference<Instant> now = new AtomicReference<>(Instant.now());
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneId.systemDefault();
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return now.get();
+        }
+
+        void advance(Duration duration) {
+            now.updateAndGet(instant -> instant.plus(duration));
+        }
+    }
+
+    @Autowired
+    private RideRepository rideRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void shouldCancelUnclaimedRidesAndFlagStalledOnes() {
+        User customer = userRepository.save(User.builder().email("expiry_rider@example.com").password("x").role(Role.CUSTOMER).build());
+        User driver = userRepository.save(User.builder().email("expiry_driver@example.com").password("x").role(Role.DRIVER).build());
+        Ride open = rideRepository.save(Ride.builder().customer(customer).pickupLocation("A").dropoffLocation("B").fare(BigDecimal.ZERO).build());
+        Ride accepted = rideRepository.save(Ride.builder().customer(customer).pickupLocation("C").dropoffLocation("D").fare(BigDecimal.ZERO).build());
+        assertEquals(1, rideRepository.claim(accepted.getId(), driver, BigDecimal.TEN, LocalDateTime.now()));
+
+        MovableClock clock = new MovableClock();
+        RideExpiryScheduler scheduler = new RideExpiryScheduler(rideRepository, eventPublisher, transactionManager, clock,
+                true, Duration.ofMinutes(15), Duration.ofHours(2), 1000, 64, 100);
+        scheduler.rebuild();
+        assertEquals(2, scheduler.getScheduledCount());
+
+        clock.advance(Duration.ofMinutes(14));
+        scheduler.tick();
+        assertEquals(RideStatus.REQUESTED, rideRepository.findById(open.getId()).orElseThrow().getStatus());
+
+        clock.advance(Duration.ofMinutes(2));
+        scheduler.tick();
+        assertEquals(RideStatus.CANCELLED, rideRepository.findById(open.getId()).orElseThrow().getStatus());
+        assertNull(rideRepository.findById(accepted.getId()).orElseThrow().getStalled());
+
+        clock.advance(Duration.ofHours(2));
+        scheduler.tick();
+        Ride stalled = rideRepository.findById(accepted.getId()).orElseThrow();
+        assertEquals(RideStatus.ACCEPTED, stalled.getStatus());
+        assertTrue(stalled.getStalled());
+        assertEquals(0, scheduler.getScheduledCount());
+    }
+}
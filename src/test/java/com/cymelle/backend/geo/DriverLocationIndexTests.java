@@ -0,0 +1,111 @@
+package com.cymelle.backend.geo;
+
+import com.cymelle.backend.geo.DriverLocationIndex.DriverDistance;
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DriverLocationIndexTests {
+
+    @Test
+    void shouldMatchBruteForceNearestNeighbours() {
+        DriverLocationIndex index = new DriverLocationIndex(0.01, 50_000);
+        Random random = new Random(42);
+        double[][] positions = new double[2_000][];
+        for (int id = 0; id < positions.length; id++) {
+            positions[id] = new double[]{-1.3 + random.nextDouble() * 0.2, 36.7 + random.nextDouble() * 0.2};
+            index.update(id, positions[id][0], positions[id][1], true, 0);
+        }
+
+        double lat = -1.2, lon = 36.8;
+        List<Long> expected = LongStream.range(0, positions.length).boxed()
+                .sorted(Comparator.comparingDouble(id -> GeoPoint.distanceMeters(lat, lon, positions[id.intValue()][0], positions[id.intValue()][1])))
+                .limit(10)
+                .toList();
+
+        List<DriverDistance> nearest = index.nearest(lat, lon, 10, id -> true);
+        assertEquals(expected, nearest.stream().map(DriverDistance::driverId).toList());
+    }
+
+    @Test
+    void shouldTrackMovesAndAvailability() {
+        DriverLocationIndex index = new DriverLocationIndex(0.01, 20_000);
+        index.update(1, -1.28, 36.82, true, 0);
+        index.update(2, -1.29, 36.83, true, 0);
+
+        // Driver 1 moves far away, driver 2 goes unavailable
+        index.update(1, -1.10, 36.60, true, 1);
+        index.setAvailable(2, false);
+        assertEquals(List.of(), index.nearest(-1.285, 36.825, 5, id -> true).stream()
+                .filter(candidate -> candidate.distanceMeters() < 5_000)
+                .toList());
+
+        index.setAvailable(2, true);
+        List<DriverDistance> nearest = index.nearest(-1.285, 36.825, 1, id -> true);
+        assertEquals(2L, nearest.get(0).driverId());
+
+        index.remove(2);
+        assertNull(index.get(2));
+        assertTrue(index.nearest(-1.285, 36.825, 5, id -> id != 1).isEmpty());
+    }
+
+    @Test
+    void shouldKeepDriversOnATripBusyAcrossLocationUpdates() {
+        DriverLocationIndex index = new DriverLocationIndex(0.01, 20_000);
+        index.update(1, -1.28, 36.82, null, 0);
+        assertTrue(index.get(1).available());
+
+        index.setAvailable(1, false);
+        index.update(1, -1.281, 36.821, null, 1);
+        index.update(1, -1.282, 36.822, true, 2);
+        assertFalse(index.get(1).available());
+        assertTrue(index.nearest(-1.28, 36.82, 5, id -> true).isEmpty());
+        assertEquals(0, index.availableIn(Geohash.zoneBits(-1.282, 36.822)));
+
+        // Trip ends; a routine ping without availability keeps the driver available
+        index.setAvailable(1, true);
+        index.update(1, -1.283, 36.823, null, 3);
+        assertTrue(index.get(1).available());
+
+        // A driver's own report is kept until they report again
+        index.update(1, -1.283, 36.823, false, 4);
+        index.update(1, -1.284, 36.824, null, 5);
+        assertFalse(index.get(1).available());
+    }
+
+    @Test
+    void shouldApplyBatchesAndIgnoreStaleSamples() {
+        DriverLocationIndex index = new DriverLocationIndex(0.01, 20_000);
+        LocationBatch batch = new LocationBatch(2);
+        batch.add(1, -1.28, 36.82, 200, true);
+        batch.add(1, -1.10, 36.60, 100, true);
+        batch.add(2, -1.29, 36.83, 100, false);
+
+        assertEquals(2, index.updateAll(batch));
+        assertEquals(-1.28, index.get(1).latitude());
+        assertEquals(2, index.size());
+        assertEquals(List.of(1L), index.nearest(-1.285, 36.825, 5, id -> true).stream().map(DriverDistance::driverId).toList());
+    }
+
+    @Test
+    void shouldNotReleaseBusyDriversFromABatch() {
+        DriverLocationIndex index = new DriverLocationIndex(0.01, 20_000);
+        index.update(1, -1.28, 36.82, true, 0);
+        index.update(2, -1.29, 36.83, true, 0);
+        index.setAvailable(1, false);
+
+        LocationBatch batch = new LocationBatch(2);
+        batch.add(1, -1.281, 36.821, 1, null);
+        batch.add(2, -1.291, 36.831, 1, null);
+        assertEquals(2, index.updateAll(batch));
+
+        assertFalse(index.get(1).available());
+        assertTrue(index.get(2).available());
+        assertEquals(List.of(2L), index.nearest(-1.285, 36.825, 5, id -> true).stream().map(DriverDistance::driverId).toList());
+    }
+}
@@ -0,0 +1,40 @@
+package com.cymelle.backend.geo;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DriverLocationRecorderTests {
+
+    @Test
+    void shouldDropOnlyTheChunkWhoseWriteFails() {
+        JdbcDataSource database = new JdbcDataSource();
+        database.setURL("jdbc:h2:mem:recorder-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("CREATE TABLE driver_location_samples (driver_id BIGINT NOT NULL, "
+                + "latitude DOUBLE PRECISION NOT NULL CHECK (latitude BETWEEN -90 AND 90), "
+                + "longitude DOUBLE PRECISION NOT NULL, recorded_at TIMESTAMP NOT NULL)");
+        DriverLocationRecorder recorder = new DriverLocationRecorder(jdbcTemplate,
+                new TransactionTemplate(new DataSourceTransactionManager(database)), 0, 16, 2);
+
+        // Chunks of two; the second one holds a sample the table rejects
+        LocationBatch batch = new LocationBatch(6);
+        for (int driverId = 1; driverId <= 6; driverId++) {
+            batch.add(driverId, driverId == 3 ? 91 : -1.28, 36.82, 1_000, null);
+        }
+        recorder.record(batch);
+        recorder.flush();
+
+        assertEquals(6, recorder.getRecordedCount());
+        assertEquals(4, recorder.getWrittenCount());
+        assertEquals(2, recorder.getDroppedCount());
+        assertEquals(List.of(1L, 2L, 5L, 6L),
+                jdbcTemplate.queryForList("SELECT driver_id FROM driver_location_samples ORDER BY driver_id", Long.class));
+    }
+}
@@ -0,0 +1,25 @@
+package com.cymelle.backend.geo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GeohashTests {
+
+    @Test
+    void shouldEncodeKnownPoints() {
+        assertEquals("u4pruydqqvj", Geohash.encode(57.64911, 10.40744, 11));
+        assertEquals("ezs42", Geohash.zoneOf(42.605, -5.603));
+    }
+
+    @Test
+    void shouldReturnCellWithItsEightNeighbours() {
+        Set<String> cells = Geohash.withNeighbours("u4pru");
+        assertEquals(9, cells.size());
+        assertTrue(cells.containsAll(Set.of("u4pru", "u4prv", "u4prs", "u4prg", "u4prt")));
+        // Neighbours across the antimeridian wrap around
+        assertTrue(Geohash.withNeighbours(Geohash.zoneOf(0.01, 179.99)).contains(Geohash.zoneOf(0.01, -179.99)));
+    }
+}
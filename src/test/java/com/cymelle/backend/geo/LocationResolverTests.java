@@ -0,0 +1,79 @@
+package com.cymelle.backend.geo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocationResolverTests {
+
+    static class CountingProvider implements GeocodingProvider {
+        final Map<String, GeoPoint> places = Map.of("kenyatta avenue", new GeoPoint(-1.2841, 36.8219));
+        final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public Optional<GeoPoint> geocode(String normalizedLocation) {
+            calls.incrementAndGet();
+            return Optional.ofNullable(places.get(normalizedLocation));
+        }
+    }
+
+    @Test
+    void shouldShareOneCacheEntryAcrossSpellingVariants() {
+        CountingProvider provider = new CountingProvider();
+        LocationResolver resolver = new LocationResolver(provider, 100);
+
+        assertEquals(Optional.of(new GeoPoint(-1.2841, 36.8219)), resolver.resolve("Kenyatta Avenue"));
+        assertTrue(resolver.resolve("  KENYATTA   avenue!").isPresent());
+        assertTrue(resolver.resolve("kényatta-avenue").isPresent());
+        assertEquals(1, provider.calls.get());
+    }
+
+    @Test
+    void shouldCacheMissesAndParseCoordinates() {
+        CountingProvider provider = new CountingProvider();
+        LocationResolver resolver = new LocationResolver(provider, 100);
+
+        assertTrue(resolver.resolve("Nowhere Street").isEmpty());
+        assertTrue(resolver.resolve("nowhere street").isEmpty());
+        assertEquals(1, provider.calls.get());
+
+        assertEquals(Optional.of(new GeoPoint(-1.5, 36.75)), resolver.resolve("-1.5, 36.75"));
+        assertEquals(1, provider.calls.get());
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedEntries() {
+        CountingProvider provider = new CountingProvider();
+        LocationResolver resolver = new LocationResolver(provider, 2);
+
+        resolver.resolve("Kenyatta Avenue");
+        resolver.resolve("Place A");
+        resolver.resolve("Kenyatta Avenue");
+        resolver.resolve("Place B");
+        assertEquals(2, resolver.getCache().size());
+
+        // "Place A" was least recently used, so it is looked up again; "Kenyatta Avenue" is not
+        resolver.resolve("Kenyatta Avenue");
+        resolver.resolve("Place A");
+        assertEquals(4, provider.calls.get());
+    }
+
+    @Test
+    void shouldMemoizeDistancesPerCellPair() {
+        AtomicInteger computations = new AtomicInteger();
+        DistanceCache cache = new DistanceCache((from, to) -> {
+            computations.incrementAndGet();
+            return from.distanceMeters(to);
+        }, 0.001, 100);
+
+        double first = cache.distanceMeters(-1.28641, 36.81721, -1.26351, 36.80451);
+        double nearby = cache.distanceMeters(-1.28649, 36.81729, -1.26359, 36.80459);
+        assertEquals(first, nearby);
+        assertEquals(1, computations.get());
+        assertEquals(GeoPoint.distanceMeters(-1.28641, 36.81721, -1.26351, 36.80451), first, 200);
+    }
+}
@@ -0,0 +1,69 @@
+package com.cymelle.backend.overload;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConcurrencyLimitFilterTests {
+
+    private final ConcurrencyLimiter limiter = new ConcurrencyLimiter(4, 4, 200, 20, 0.25, new SimpleMeterRegistry());
+    private final ConcurrencyLimitFilter filter =
+            new ConcurrencyLimitFilter(limiter, new ObjectMapper().findAndRegisterModules(), true, Duration.ofSeconds(2));
+
+    @Test
+    void shedsListingsFirstAndKeepsOrderPlacementGoing() throws Exception {
+        // Three slow order listings take the normal share of the limit of 4
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire("orders", ConcurrencyLimiter.Priority.NORMAL);
+        }
+
+        MockHttpServletResponse listing = perform("GET", "/api/v1/orders");
+        assertThat(listing.getStatus()).isEqualTo(503);
+        assertThat(listing.getHeader("Retry-After")).isEqualTo("2");
+        assertThat(listing.getContentAsString()).contains("\"status\":503", "\"path\":\"/api/v1/orders\"");
+
+        assertThat(perform("POST", "/api/v1/orders").getStatus()).isEqualTo(200);
+        assertThat(perform("PATCH", "/api/v1/rides/7/status").getStatus()).isEqualTo(200);
+        assertThat(limiter.getInFlight("orders")).isEqualTo(3);
+    }
+
+    @Test
+    void groupsApiRoutesAndLeavesStreamsAndOperationsAlone() {
+        assertThat(ConcurrencyLimitFilter.group(new MockHttpServletRequest("GET", "/api/v1/products/12"))).isEqualTo("products");
+        assertThat(ConcurrencyLimitFilter.group(new MockHttpServletRequest("POST", "/api/v1/orders"))).isEqualTo("orders");
+        assertThat(ConcurrencyLimitFilter.group(new MockHttpServletRequest("GET", "/api/v1/rides/feed"))).isNull();
+        assertThat(ConcurrencyLimitFilter.group(new MockHttpServletRequest("POST", "/api/v1/diagnostics/recordings"))).isNull();
+        assertThat(ConcurrencyLimitFilter.group(new MockHttpServletRequest("GET", "/actuator/health"))).isNull();
+        // Unknown paths share one group rather than creating a group and its meters each
+        assertThat(ConcurrencyLimitFilter.group(new MockHttpServletRequest("GET", "/api/v1/x1"))).isEqualTo("other");
+        assertThat(ConcurrencyLimitFilter.group(new MockHttpServletRequest("GET", "/api/v1/x2/y"))).isEqualTo("other");
+
+        assertThat(ConcurrencyLimitFilter.priority(new MockHttpServletRequest("PATCH", "/api/v1/rides/3/status")))
+                .isEqualTo(ConcurrencyLimiter.Priority.CRITICAL);
+        assertThat(ConcurrencyLimitFilter.priority(new MockHttpServletRequest("PATCH", "/api/v1/orders/3/status")))
+                .isEqualTo(ConcurrencyLimiter.Priority.NORMAL);
+        assertThat(ConcurrencyLimitFilter.priority(new MockHttpServletRequest("GET", "/api/v1/rides")))
+                .isEqualTo(ConcurrencyLimiter.Priority.NORMAL);
+    }
+
+    private MockHttpServletResponse perform(String method, String uri) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest(method, uri), response, new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse res) {
+                res.setStatus(200);
+            }
+        }));
+        return response;
+    }
+}
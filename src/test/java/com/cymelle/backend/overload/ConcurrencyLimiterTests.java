@@ -0,0 +1,76 @@
+package com.cymelle.backend.overload;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConcurrencyLimiterTests {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+
+    @Test
+    void limitGrowsWhileLatencyHoldsAndShrinksWhenItRises() {
+        GradientLimit limit = new GradientLimit(20, 4, 200, 10);
+        for (int i = 0; i < 2000; i++) {
+            limit.onSample(FAST, limit.getLimit());
+        }
+        int grown = limit.getLimit();
+        assertThat(grown).isGreaterThan(20);
+
+        // The database slows down fivefold: requests now queue
+        for (int i = 0; i < 200; i++) {
+            limit.onSample(5 * FAST, limit.getLimit());
+        }
+        assertThat(limit.getLimit()).isLessThan(grown / 2);
+
+        // It recovers once latency is back
+        int shrunk = limit.getLimit();
+        for (int i = 0; i < 200; i++) {
+            limit.onSample(FAST, limit.getLimit());
+        }
+        assertThat(limit.getLimit()).isGreaterThan(shrunk);
+    }
+
+    @Test
+    void limitHoldsWhileMostlyUnused() {
+        GradientLimit limit = new GradientLimit(20, 4, 200, 10);
+        for (int i = 0; i < 200; i++) {
+            limit.onSample(FAST, 2);
+        }
+        assertThat(limit.getLimit()).isEqualTo(20);
+    }
+
+    @Test
+    void reservesTheTopOfTheLimitForCriticalRequests() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(8, 4, 200, 20, 0.25, registry);
+        List<ConcurrencyLimiter.Permit> held = new ArrayList<>();
+
+        for (int i = 0; i < 6; i++) {
+            held.add(limiter.tryAcquire("orders", ConcurrencyLimiter.Priority.NORMAL));
+        }
+        assertThat(held).doesNotContainNull();
+        assertThat(limiter.tryAcquire("orders", ConcurrencyLimiter.Priority.NORMAL)).isNull();
+        // Other groups have limits of their own
+        assertThat(limiter.tryAcquire("products", ConcurrencyLimiter.Priority.NORMAL)).isNotNull();
+
+        held.add(limiter.tryAcquire("orders", ConcurrencyLimiter.Priority.CRITICAL));
+        held.add(limiter.tryAcquire("orders", ConcurrencyLimiter.Priority.CRITICAL));
+        assertThat(held).doesNotContainNull();
+        assertThat(limiter.tryAcquire("orders", ConcurrencyLimiter.Priority.CRITICAL)).isNull();
+        assertThat(limiter.getInFlight("orders")).isEqualTo(8);
+
+        held.forEach(ConcurrencyLimiter.Permit::release);
+        assertThat(limiter.getInFlight("orders")).isZero();
+        assertThat(registry.get("http.concurrency.rejected").tag("group", "orders").tag("priority", "normal").counter().count())
+                .isEqualTo(1);
+        assertThat(registry.get("http.concurrency.rejected").tag("group", "orders").tag("priority", "critical").counter().count())
+                .isEqualTo(1);
+        assertThat(registry.get("http.concurrency.limit").tag("group", "orders").gauge().value()).isEqualTo(8);
+    }
+}
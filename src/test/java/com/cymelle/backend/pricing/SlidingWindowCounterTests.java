@@ -0,0 +1,44 @@
+package com.cymelle.backend.pricing;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlidingWindowCounterTests {
+
+    @Test
+    void shouldForgetEventsOlderThanTheWindow() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(10_000, 10);
+        counter.record(0);
+        counter.record(500);
+        counter.record(4_000);
+
+        assertEquals(3, counter.sum(9_999));
+        assertEquals(1, counter.sum(10_000));
+        assertEquals(0, counter.sum(14_000));
+
+        // The bucket reused on the next lap starts from zero
+        counter.record(20_100);
+        assertEquals(1, counter.sum(20_100));
+    }
+
+    @Test
+    void shouldCountConcurrentRecordsWithoutLoss() throws Exception {
+        SlidingWindowCounter counter = new SlidingWindowCounter(60_000, 6);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    counter.record(1_000 + i % 5_000);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(80_000, counter.sum(6_000));
+    }
+}
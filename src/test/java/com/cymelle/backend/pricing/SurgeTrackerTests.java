@@ -0,0 +1,64 @@
+package com.cymelle.backend.pricing;
+
+import com.cymelle.backend.geo.DriverLocationIndex;
+import com.cymelle.backend.geo.Geohash;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SurgeTrackerTests {
+
+    static class MutableClock extends Clock {
+        private Instant now = Instant.parse("2026-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneId.of("UTC");
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+
+    @Test
+    void shouldSurgeWhenRequestsOutnumberAvailableDrivers() {
+        DriverLocationIndex index = new DriverLocationIndex(0.01, 20_000);
+        MutableClock clock = new MutableClock();
+        SurgeTracker tracker = new SurgeTracker(index, clock, Duration.ofMinutes(10), 10, 1.0, 0.5, 3.0, 0.1);
+        long zone = Geohash.zoneBits(-1.2864, 36.8172);
+
+        index.update(1, -1.2864, 36.8172, true, 0);
+        index.update(2, -1.2870, 36.8180, true, 0);
+        assertEquals(new BigDecimal("1.00"), tracker.multiplier(zone));
+
+        for (int i = 0; i < 6; i++) {
+            tracker.recordRequest(zone);
+        }
+        // 6 requests for 2 drivers: 2 over target, times 0.5 sensitivity
+        assertEquals(new BigDecimal("2.00"), tracker.multiplier(zone));
+
+        // A busy driver no longer counts as supply
+        index.setAvailable(2, false);
+        assertEquals(new BigDecimal("3.00"), tracker.multiplier(zone));
+
+        clock.advance(Duration.ofMinutes(11));
+        assertEquals(new BigDecimal("1.00"), tracker.multiplier(zone));
+    }
+}
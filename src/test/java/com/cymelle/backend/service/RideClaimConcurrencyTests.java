@@ -0,0 +1,165 @@
+package com.cymelle.backend.service;
+
+import com.cymelle.backend.exception.RideAlreadyClaimedException;
+import com.cymelle.backend.geo.DriverLocationIndex;
+import com.cymelle.backend.model.Ride;
+import com.cymelle.backend.model.RideStatus;
+import com.cymelle.backend.model.Role;
+import com.cymelle.backend.model.User;
+import com.cymelle.backend.repository.RideRepository;
+import com.cymelle.backend.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.ConcurrencyFailureException;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs outside a test transaction so every accept commits on its own, as it would in production.
+ */
+@SpringBootTest
+class RideClaimConcurrencyTests {
+
+    private static final int DRIVERS = 200;
+
+    @Autowired
+    private RideService rideService;
+
+    @Autowired
+    private RideRepository rideRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private DriverLocationIndex driverLocationIndex;
+
+    private final List<User> users = new ArrayList<>();
+    private final List<Ride> rides = new ArrayList<>();
+
+    @AfterEach
+    void cleanUp() {
+        rideRepository.deleteAll(rides);
+        userRepository.deleteAll(users);
+    }
+
+    @Test
+    void shouldLetExactlyOneOfManyConcurrentDriversClaimARide() throws Exception {
+        User customer = save(User.builder().email("claim_rider@example.com").password("x").role(Role.CUSTOMER).build());
+        List<User> drivers = new ArrayList<>();
+        for (int i = 0; i < DRIVERS; i++) {
+            drivers.add(save(User.builder().email("claim_driver_" + i + "@example.com").password("x").role(Role.DRIVER).build()));
+        }
+        Ride ride = rideRepository.save(Ride.builder().customer(customer).pickupLocation("A").dropoffLocation("B").fare(BigDecimal.ZERO).build());
+        rides.add(ride);
+
+        AtomicInteger conflicts = new AtomicInteger();
+        AtomicLong winner = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> attempts = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(64)) {
+            for (User driver : drivers) {
+                attempts.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        rideService.updateRideStatus(ride.getId(), RideStatus.ACCEPTED, driver);
+                        assertTrue(winner.compareAndSet(0, driver.getId()), "more than one driver claimed the ride");
+                    } catch (RideAlreadyClaimedException e) {
+                        conflicts.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> attempt : attempts) {
+                attempt.get();
+            }
+        }
+
+        assertNotEquals(0, winner.get());
+        assertEquals(DRIVERS - 1, conflicts.get());
+        Ride claimed = rideRepository.findById(ride.getId()).orElseThrow();
+        assertEquals(RideStatus.ACCEPTED, claimed.getStatus());
+        assertEquals(winner.get(), claimed.getDriver().getId());
+    }
+
+    @Test
+    void shouldNeverLetACancelOverwriteAClaimThatCommittedFirst() throws Exception {
+        User customer = save(User.builder().email("cancel_race_rider@example.com").password("x").role(Role.CUSTOMER).build());
+        User driver = save(User.builder().email("cancel_race_driver@example.com").password("x").role(Role.DRIVER).build());
+        try (ExecutorService executor = Executors.newFixedThreadPool(2)) {
+            for (int i = 0; i < 50; i++) {
+                driverLocationIndex.update(driver.getId(), -1.28, 36.82, true, i);
+                Ride ride = rideRepository.save(Ride.builder().customer(customer).pickupLocation("A").dropoffLocation("B").fare(BigDecimal.ZERO).build());
+                rides.add(ride);
+
+                CountDownLatch start = new CountDownLatch(1);
+                Future<Boolean> claim = executor.submit(() -> {
+                    start.await();
+                    return succeeds(() -> rideService.updateRideStatus(ride.getId(), RideStatus.ACCEPTED, driver));
+                });
+                Future<Boolean> cancel = executor.submit(() -> {
+                    start.await();
+                    return succeeds(() -> rideService.updateRideStatus(ride.getId(), RideStatus.CANCELLED, customer));
+                });
+                start.countDown();
+                boolean claimed = claim.get();
+                boolean cancelled = cancel.get();
+
+                Ride result = rideRepository.findById(ride.getId()).orElseThrow();
+                assertTrue(claimed || cancelled);
+                if (claimed) {
+                    // Either the claim stands or a cancel that saw it released the driver
+                    assertEquals(driver.getId(), result.getDriver().getId());
+                    assertEquals(cancelled ? RideStatus.CANCELLED : RideStatus.ACCEPTED, result.getStatus());
+                    assertEquals(cancelled, driverLocationIndex.get(driver.getId()).available());
+                } else {
+                    assertEquals(RideStatus.CANCELLED, result.getStatus());
+                    assertNull(result.getDriver());
+                }
+                driverLocationIndex.setAvailable(driver.getId(), true);
+            }
+        } finally {
+            driverLocationIndex.remove(driver.getId());
+        }
+    }
+
+    @Test
+    void shouldRejectSelfClaimWithoutConflict() {
+        User customer = save(User.builder().email("claim_self@example.com").password("x").role(Role.DRIVER).build());
+        Ride ride = rideRepository.save(Ride.builder().customer(customer).pickupLocation("A").dropoffLocation("B").fare(BigDecimal.ZERO).build());
+        rides.add(ride);
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class,
+                () -> rideService.updateRideStatus(ride.getId(), RideStatus.ACCEPTED, customer));
+        assertEquals("Drivers cannot accept a ride they requested as a customer.", ex.getMessage());
+        assertEquals(RideStatus.REQUESTED, rideRepository.findById(ride.getId()).orElseThrow().getStatus());
+    }
+
+    private static boolean succeeds(Runnable transition) {
+        try {
+            transition.run();
+            return true;
+        } catch (RideAlreadyClaimedException | ConcurrencyFailureException e) {
+            return false;
+        }
+    }
+
+    private User save(User user) {
+        User saved = userRepository.save(user);
+        users.add(saved);
+        return saved;
+    }
+}
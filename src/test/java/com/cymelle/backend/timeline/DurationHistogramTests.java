@@ -0,0 +1,35 @@
+package com.cymelle.backend.timeline;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DurationHistogramTests {
+
+    @Test
+    void shouldReportQuantilesWithinBucketPrecision() {
+        DurationHistogram histogram = new DurationHistogram();
+        for (long millis = 1; millis <= 100_000; millis++) {
+            histogram.record(millis);
+        }
+
+        assertEquals(100_000, histogram.count());
+        assertEquals(50_000.5, histogram.mean(), 0.001);
+        assertEquals(100_000, histogram.max());
+        assertEquals(50_000, histogram.quantile(0.50), 50_000 * 0.07);
+        assertEquals(99_000, histogram.quantile(0.99), 99_000 * 0.07);
+        assertEquals(100_000, histogram.quantile(1.0));
+    }
+
+    @Test
+    void shouldCountSmallValuesExactly() {
+        DurationHistogram histogram = new DurationHistogram();
+        histogram.record(3);
+        histogram.record(3);
+        histogram.record(7);
+
+        assertEquals(3, histogram.quantile(0.5));
+        assertEquals(7, histogram.quantile(0.9));
+        assertEquals(0, new DurationHistogram().quantile(0.5));
+    }
+}
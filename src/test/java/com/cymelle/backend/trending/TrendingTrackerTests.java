@@ -0,0 +1,84 @@
+package com.cymelle.backend.trending;
+
+import com.cymelle.backend.trending.TrendingTracker.TrendingScore;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrendingTrackerTests {
+
+    static class MutableClock extends Clock {
+        private Instant now = Instant.parse("2026-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneId.of("UTC");
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+
+    @Test
+    void shouldRankByDecayedSales() {
+        MutableClock clock = new MutableClock();
+        TrendingTracker tracker = new TrendingTracker(clock, Duration.ofHours(1), 10, 4, 1024);
+
+        tracker.recordSale(1L, 10);
+        clock.advance(Duration.ofHours(3));
+        tracker.recordSale(2L, 4);
+
+        List<TrendingScore> top = tracker.top(2);
+        assertEquals(2L, top.get(0).productId());
+        assertEquals(4.0, top.get(0).score(), 1e-6);
+        // Three half-lives later the old burst of 10 is worth 1.25
+        assertEquals(1L, top.get(1).productId());
+        assertEquals(1.25, top.get(1).score(), 1e-6);
+    }
+
+    @Test
+    void shouldKeepOnlyHeavyHittersWithinCapacity() {
+        TrendingTracker tracker = new TrendingTracker(new MutableClock(), Duration.ofHours(6), 3, 4, 4096);
+        for (long id = 1; id <= 50; id++) {
+            tracker.recordSale(id, 1);
+        }
+        tracker.recordSale(42L, 20);
+        tracker.recordSale(7L, 15);
+        tracker.recordSale(13L, 10);
+
+        List<TrendingScore> top = tracker.top(3);
+        assertEquals(3, tracker.size());
+        assertEquals(List.of(42L, 7L, 13L), top.stream().map(TrendingScore::productId).toList());
+    }
+
+    @Test
+    void shouldSurviveRescalingOverLongRuns() {
+        MutableClock clock = new MutableClock();
+        TrendingTracker tracker = new TrendingTracker(clock, Duration.ofMinutes(1), 10, 4, 1024);
+        for (int i = 0; i < 100; i++) {
+            tracker.recordSale(5L, 1);
+            clock.advance(Duration.ofMinutes(1));
+        }
+        double score = tracker.top(1).get(0).score();
+        assertTrue(Double.isFinite(score));
+        // Geometric series of one sale per half-life converges to just under 1
+        assertEquals(1.0, score, 1e-6);
+    }
+}